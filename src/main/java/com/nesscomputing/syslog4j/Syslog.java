@@ -17,6 +17,7 @@ package com.nesscomputing.syslog4j;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -56,6 +57,8 @@ public final class Syslog
 {
     protected static final Map<String, SyslogIF> instances = Maps.newHashMap();
 
+    protected static final AtomicInteger generation = new AtomicInteger(0);
+
     /**
      * Set up the default TCP and UDP Syslog protocols, as
      * well as UNIX_SYSLOG and UNIX_SOCKET (if running on a Unix-based system).
@@ -167,6 +170,7 @@ public final class Syslog
             syslog.initialize(syslogProtocol,config);
 
             instances.put(syslogProtocol,syslog);
+            generation.incrementAndGet();
         }
 
         return syslog;
@@ -207,9 +211,18 @@ public final class Syslog
             }
 
             instances.clear();
+            generation.incrementAndGet();
         }
     }
 
+    /**
+     * @return a number that changes whenever an instance is created or destroyed,
+     * so that callers holding on to instances can tell when to look them up again
+     */
+    public static int getGeneration() {
+        return generation.get();
+    }
+
     private synchronized static void initialize() {
         createInstance(SyslogConstants.UDP,new UDPNetSyslogConfig());
         createInstance(SyslogConstants.TCP,new TCPNetSyslogConfig());
@@ -252,6 +265,7 @@ public final class Syslog
 
             } finally {
                 instances.remove(_protocol);
+                generation.incrementAndGet();
             }
 
         } else {
@@ -279,6 +293,7 @@ public final class Syslog
 
             } finally {
                 instances.remove(protocol);
+                generation.incrementAndGet();
             }
 
         } else {
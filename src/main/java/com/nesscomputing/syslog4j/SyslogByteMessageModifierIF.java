@@ -0,0 +1,38 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j;
+
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
+
+/**
+* SyslogByteMessageModifierIF is implemented by message modifiers that can
+* work directly on the encoded message.
+*
+* <p>When every modifier in a chain is a SyslogMessageModifierIF, the chain
+* runs over Strings as before.  Once a chain includes a byte modifier, the
+* message is encoded once into a SyslogEncodingBuffer and each modifier appends
+* to or transforms that buffer in turn; consecutive String-only modifiers are
+* run together through StringSyslogMessageModifierAdapter.</p>
+*
+* <p>modify(..) must leave the buffer holding the same bytes as encoding the
+* result of the String modify(..) in the charset of the syslog configuration.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public interface SyslogByteMessageModifierIF extends SyslogMessageModifierIF {
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer);
+}
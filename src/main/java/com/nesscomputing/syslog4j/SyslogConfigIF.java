@@ -68,6 +68,15 @@ public interface SyslogConfigIF extends SyslogCharSetIF {
     int getMaxMessageLength();
     void setMaxMessageLength(int maxMessageLength);
 
+    SyslogLevel getThreshold();
+    /**
+     * Messages less severe than threshold are discarded before they are
+     * rendered (see SyslogIF.isEnabled(..)).  Use null to send every level.
+     *
+     * @param threshold
+     */
+    void setThreshold(SyslogLevel threshold);
+
     void addMessageModifier(SyslogMessageModifierIF messageModifier);
     void insertMessageModifier(int index, SyslogMessageModifierIF messageModifier);
     void removeMessageModifier(SyslogMessageModifierIF messageModifier);
@@ -54,6 +54,9 @@ public final class SyslogConstants
 
     public static final boolean THREADED_DEFAULT = true;
     public static final long THREAD_LOOP_INTERVAL_DEFAULT = 500;
+    public static final boolean THREAD_WAKE_UP_DEFAULT = false;
+    public static final long THREAD_LINGER_TIME_DEFAULT = 0;
+    public static final int THREAD_LINGER_MESSAGES_DEFAULT = 256;
 
     public static final boolean SEND_LOCAL_NAME_DEFAULT = true;
     public static final boolean SEND_LOCAL_TIMESTAMP_DEFAULT = true;
@@ -73,6 +76,8 @@ public final class SyslogConstants
 
     public static final boolean TRUNCATE_MESSAGE_DEFAULT = false;
 
+    public static final SyslogLevel THRESHOLD_DEFAULT = SyslogLevel.DEBUG;
+
     public static final String SPLIT_MESSAGE_BEGIN_TEXT_DEFAULT = "...";
     public static final String SPLIT_MESSAGE_END_TEXT_DEFAULT = "...";
 
@@ -90,6 +95,15 @@ public final class SyslogConstants
     public static final boolean TCP_REUSE_ADDRESS_DEFAULT = true;
     public static final boolean TCP_SET_BUFFER_SIZE_DEFAULT = true;
     public static final int TCP_FRESH_CONNECTION_INTERVAL_DEFAULT = -1;
+    public static final int TCP_MAX_BATCH_SIZE_DEFAULT = 0;
+    public static final int TCP_CONNECT_TIMEOUT_DEFAULT = 0;
+    public static final long TCP_RECONNECT_INITIAL_BACKOFF_DEFAULT = 0;
+    public static final long TCP_RECONNECT_MAX_BACKOFF_DEFAULT = 30000;
+    public static final byte TCP_ENDPOINT_STRATEGY_DEFAULT = 0;
+    public static final long TCP_ENDPOINT_RETRY_INTERVAL_DEFAULT = 5000;
+
+    public static final int UDP_MAX_PACKET_SIZE_DEFAULT = 0;
+    public static final byte UDP_PACKED_MESSAGE_DELIMITER = '\n';
 
     public static final int TCP_MAX_ACTIVE_SOCKETS_DEFAULT = 0;
     public static final byte TCP_MAX_ACTIVE_SOCKETS_BEHAVIOR_DEFAULT = 0;
@@ -111,8 +125,26 @@ public final class SyslogConstants
     public static final int MAX_SHUTDOWN_WAIT_DEFAULT = 30000;
     public static final long SHUTDOWN_INTERVAL = 100;
     public static final int MAX_QUEUE_SIZE_DEFAULT = -1;
+    public static final boolean USE_RING_BUFFER_QUEUE_DEFAULT = false;
+    public static final int RING_BUFFER_QUEUE_SIZE_DEFAULT = 8192;
+    public static final long MAX_QUEUE_BYTES_DEFAULT = -1;
+    public static final boolean USE_PRIORITY_QUEUE_DEFAULT = false;
+    public static final String SPILL_DIRECTORY_DEFAULT = null;
+    public static final int SPILL_SEGMENT_SIZE_DEFAULT = 16 * 1024 * 1024;
+    public static final int SPILL_MAX_SEGMENTS_DEFAULT = 64;
+    public static final int SPILL_READ_BATCH_SIZE = 1024;
+    public static final boolean USE_CIRCUIT_BREAKER_DEFAULT = false;
+    public static final long CIRCUIT_BREAKER_INITIAL_BACKOFF_DEFAULT = 250;
+    public static final long CIRCUIT_BREAKER_MAX_BACKOFF_DEFAULT = 30000;
+    public static final int CIRCUIT_BREAKER_PROBE_TIMEOUT = 2000;
+    public static final boolean PRIORITY_QUEUE_WEIGHTED_DEFAULT = false;
+    public static final int[] PRIORITY_QUEUE_CAPACITIES_DEFAULT = null;
+    public static final int[] PRIORITY_QUEUE_WEIGHTS_DEFAULT = null;
+    public static final int PRIORITY_QUEUE_DRAIN_BATCH_SIZE = 128;
 
     public static final long SERVER_SHUTDOWN_WAIT_DEFAULT = 500;
+    public static final boolean SERVER_UDP_SPLIT_PACKED_MESSAGES_DEFAULT = false;
+    public static final int SERVER_UDP_MAX_PACKET_SIZE_DEFAULT = SYSLOG_BUFFER_SIZE;
 
     public static final String SYSLOG_LIBRARY_DEFAULT = "c";
 
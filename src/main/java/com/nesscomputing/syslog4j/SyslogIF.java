@@ -14,6 +14,8 @@
  */
 package com.nesscomputing.syslog4j;
 
+import com.google.common.base.Supplier;
+
 /**
 * SyslogIF provides a common interface for all Syslog4j client implementations.
 *
@@ -33,6 +35,12 @@ public interface SyslogIF {
     public void backLog(SyslogLevel level, String message, Throwable reasonThrowable);
     public void backLog(SyslogLevel level, String message, String reason);
 
+    /**
+     * @return false if messages of level are discarded by the configured threshold;
+     * callers may test this before building an expensive message
+     */
+    public boolean isEnabled(SyslogLevel level);
+
     public void log(SyslogLevel level, String message);
 
     public void debug(String message);
@@ -46,6 +54,17 @@ public interface SyslogIF {
 
     public void log(SyslogLevel level, SyslogMessageIF message);
 
+    /**
+     * Logs the message returned by message, which is only called if level is enabled.
+     */
+    public void log(SyslogLevel level, Supplier<String> message);
+
+    /**
+     * Logs template with each "{}" replaced by the next of arguments (see
+     * SyslogMessageFormatter); the message is only rendered if level is enabled.
+     */
+    public void log(SyslogLevel level, String template, Object... arguments);
+
     public void debug(SyslogMessageIF message);
     public void info(SyslogMessageIF message);
     public void notice(SyslogMessageIF message);
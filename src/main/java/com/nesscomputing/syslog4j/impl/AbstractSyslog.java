@@ -14,27 +14,32 @@
  */
 package com.nesscomputing.syslog4j.impl;
 
-import static com.nesscomputing.syslog4j.SyslogConstants.IDENT_SUFFIX_DEFAULT;
-
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 
+import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
 import com.nesscomputing.syslog4j.SyslogBackLogHandlerIF;
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogConfigIF;
-import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogMessageIF;
 import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.message.modifier.StringSyslogMessageModifierAdapter;
+import com.nesscomputing.syslog4j.impl.message.processor.AbstractSyslogMessageProcessor;
 import com.nesscomputing.syslog4j.impl.message.processor.SyslogMessageProcessor;
 import com.nesscomputing.syslog4j.impl.message.processor.structured.StructuredSyslogMessageProcessor;
 import com.nesscomputing.syslog4j.impl.message.structured.StructuredSyslogMessage;
 import com.nesscomputing.syslog4j.impl.message.structured.StructuredSyslogMessageIF;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueByteBudget;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
+import com.nesscomputing.syslog4j.util.SyslogMessageFormatter;
 import com.nesscomputing.syslog4j.util.SyslogUtility;
 /**
 * AbstractSyslog provides a base abstract implementation of the SyslogIF.
@@ -56,6 +61,12 @@ public abstract class AbstractSyslog implements SyslogIF {
     protected SyslogMessageProcessorIF syslogMessageProcessor = null;
     protected SyslogMessageProcessorIF structuredSyslogMessageProcessor = null;
 
+    protected volatile SyslogSendPlan sendPlan = null;
+
+    protected SyslogQueueByteBudget queueByteBudget = null;
+
+    protected SyslogCircuitBreaker circuitBreaker = null;
+
     protected Object backLogStatusSyncObject = new Object();
 
     protected boolean backLogStatus = false;
@@ -81,6 +92,10 @@ public abstract class AbstractSyslog implements SyslogIF {
                     }
 
                     this.notifiedBackLogHandlers.clear();
+
+                    if (this.circuitBreaker != null) {
+                        this.circuitBreaker.close();
+                    }
                 }
 
                 this.backLogStatus = backLogStatus;
@@ -98,9 +113,65 @@ public abstract class AbstractSyslog implements SyslogIF {
             throw new SyslogRuntimeException("provided config must implement AbstractSyslogConfigIF");
         }
 
+        this.queueByteBudget = createQueueByteBudget();
+
+        if (this.syslogConfig.isUseCircuitBreaker()) {
+            this.circuitBreaker = new SyslogCircuitBreaker(this,this.syslogConfig.getCircuitBreakerInitialBackoff(),this.syslogConfig.getCircuitBreakerMaxBackoff());
+        }
+
         initialize();
     }
 
+    protected SyslogQueueByteBudget createQueueByteBudget() {
+        if (this.syslogConfig.getQueueByteBudget() != null) {
+            return this.syslogConfig.getQueueByteBudget();
+        }
+
+        if (this.syslogConfig.getMaxQueueBytes() >= 0) {
+            return new SyslogQueueByteBudget(this.syslogConfig.getMaxQueueBytes());
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the circuit breaker, or null if isUseCircuitBreaker() is not set
+     */
+    public SyslogCircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * Called by writers when they fail to connect to the destination.
+     */
+    public void openCircuit() {
+        if (this.circuitBreaker != null) {
+            this.circuitBreaker.open();
+        }
+    }
+
+    /**
+     * @return true if writers must not attempt to connect, as the destination is down
+     */
+    public boolean isCircuitOpen() {
+        return this.circuitBreaker != null && this.circuitBreaker.isOpen();
+    }
+
+    /**
+     * Called by the circuit breaker to test whether the destination is reachable
+     * again.  The default implementation assumes that it is.
+     */
+    protected boolean probe() {
+        return true;
+    }
+
+    /**
+     * @return the byte budget shared by the queues of this instance's writers, or null if there is none
+     */
+    public SyslogQueueByteBudget getQueueByteBudget() {
+        return this.queueByteBudget;
+    }
+
     public SyslogMessageProcessorIF getMessageProcessor() {
         if (this.syslogMessageProcessor == null) {
             this.syslogMessageProcessor = SyslogMessageProcessor.getDefault();
@@ -119,6 +190,22 @@ public abstract class AbstractSyslog implements SyslogIF {
 
     public void setMessageProcessor(SyslogMessageProcessorIF messageProcessor) {
         this.syslogMessageProcessor = messageProcessor;
+        this.sendPlan = null;
+    }
+
+    /**
+     * @return the send plan for the current configuration, building a new one
+     * if the configuration has changed since the last was built
+     */
+    protected SyslogSendPlan getSendPlan() {
+        SyslogSendPlan plan = this.sendPlan;
+
+        if (plan == null || !plan.isCurrent(this.syslogConfig)) {
+            plan = new SyslogSendPlan(this.syslogConfig,getMessageProcessor());
+            this.sendPlan = plan;
+        }
+
+        return plan;
     }
 
     public void setStructuredMessageProcessor(SyslogMessageProcessorIF messageProcessor) {
@@ -133,29 +220,59 @@ public abstract class AbstractSyslog implements SyslogIF {
         return this.syslogConfig;
     }
 
+    public boolean isEnabled(SyslogLevel level) {
+        SyslogLevel threshold = this.syslogConfig.getThreshold();
+
+        return threshold == null || level == null || level.getValue() <= threshold.getValue();
+    }
+
     public void log(SyslogLevel level, String message) {
-        if (this.syslogConfig.isUseStructuredData()) {
+        if (!isEnabled(level)) {
+            return;
+        }
+
+        SyslogSendPlan plan = getSendPlan();
+
+        if (plan.isUseStructuredData()) {
             StructuredSyslogMessageIF structuredMessage = new StructuredSyslogMessage(null,null,null,message);
 
-            log(getStructuredMessageProcessor(),level, null, structuredMessage.createMessage());
+            log(plan,getStructuredMessageProcessor(),level, null, structuredMessage.createMessage());
 
         } else {
-            log(getMessageProcessor(),level, null, message);
+            log(plan,getMessageProcessor(),level, null, message);
         }
     }
 
     public void log(SyslogLevel level, SyslogMessageIF message) {
-        if (message instanceof StructuredSyslogMessageIF) {
-            if (getMessageProcessor() instanceof StructuredSyslogMessageProcessor) {
-                log(getMessageProcessor(),level,message.getProcId(), message.createMessage());
+        if (!isEnabled(level)) {
+            return;
+        }
 
-            } else {
-                log(getStructuredMessageProcessor(),level, message.getProcId(), message.createMessage());
-            }
+        log(getSendPlan(),selectMessageProcessor(message),level,message.getProcId(), message.createMessage());
+    }
 
-        } else {
-            log(getMessageProcessor(),level,message.getProcId(), message.createMessage());
+    public void log(SyslogLevel level, Supplier<String> message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+
+        log(level,message.get());
+    }
+
+    public void log(SyslogLevel level, String template, Object... arguments) {
+        if (!isEnabled(level)) {
+            return;
+        }
+
+        log(level,SyslogMessageFormatter.format(template,arguments));
+    }
+
+    protected SyslogMessageProcessorIF selectMessageProcessor(SyslogMessageIF message) {
+        if (message instanceof StructuredSyslogMessageIF && !(getMessageProcessor() instanceof StructuredSyslogMessageProcessor)) {
+            return getStructuredMessageProcessor();
         }
+
+        return getMessageProcessor();
     }
 
     public void debug(String message) {
@@ -222,28 +339,66 @@ public abstract class AbstractSyslog implements SyslogIF {
         log(SyslogLevel.EMERGENCY,message);
     }
 
-    protected String prefixMessage(String message, String suffix) {
-        String ident = this.syslogConfig.getIdent();
+    /**
+     * Applies the message modifiers and the ident prefix, in the configured order.
+     */
+    protected String prepareMessage(SyslogSendPlan plan, SyslogLevel level, String message) {
+        if (plan.isIncludeIdentInMessageModifier()) {
+            return modifyMessage(plan,level,plan.prefixMessage(message));
+        }
 
-        String _message = (StringUtils.isBlank(ident) ? "" : (ident + suffix)) + message;
+        return plan.prefixMessage(modifyMessage(plan,level,message));
+    }
 
-        return _message;
+    /**
+     * Renders message into buffer through the byte modifier chain of plan
+     * (see SyslogSendPlan.isModifyingBytes()).
+     */
+    protected void prepareMessage(SyslogSendPlan plan, SyslogLevel level, String message, SyslogEncodingBuffer buffer) {
+        SyslogByteMessageModifierIF[] _messageModifiers = plan.getByteMessageModifiers();
+
+        String _message = plan.isIncludeIdentInMessageModifier() ? plan.prefixMessage(message) : message;
+
+        int i = 0;
+
+        //  a leading run of String modifiers is applied before the message is first encoded
+        if (_messageModifiers[0] instanceof StringSyslogMessageModifierAdapter) {
+            _message = _messageModifiers[0].modify(this, plan.getFacility(), level, _message);
+            i++;
+        }
+
+        buffer.encode(this.syslogConfig.getCharSet(),_message);
+
+        for(; i<_messageModifiers.length; i++) {
+            _messageModifiers[i].modify(this, plan.getFacility(), level, buffer);
+        }
+
+        if (!plan.isIncludeIdentInMessageModifier() && plan.getIdentPrefixBytes() != null) {
+            buffer.insert(0,plan.getIdentPrefixBytes());
+        }
     }
 
     public void log(SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) {
-        String _message = null;
-
-        if (this.syslogConfig.isIncludeIdentInMessageModifier()) {
-            _message = prefixMessage(message,IDENT_SUFFIX_DEFAULT);
-            _message = modifyMessage(level,_message);
+        log(getSendPlan(),messageProcessor,level,localProcId,message);
+    }
 
-        } else {
-            _message = modifyMessage(level,message);
-            _message = prefixMessage(_message,IDENT_SUFFIX_DEFAULT);
+    /**
+     * Logs message with the settings of plan, which is read once per message
+     * and passed to every step, so that a concurrent configuration change
+     * never mixes the settings of two plans in one message.  Every log(..)
+     * method ends here; implementations sending messages otherwise override
+     * this method.
+     */
+    protected void log(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) {
+        if (plan.isModifyingBytes()) {
+            logModifiedBytes(plan,messageProcessor,level,localProcId,message);
+            return;
         }
 
+        String _message = prepareMessage(plan,level,message);
+
         try {
-            write(messageProcessor, level, localProcId, _message);
+            write(plan,messageProcessor, level, localProcId, _message);
 
         } catch (SyslogRuntimeException sre) {
             if (sre.getCause() != null) {
@@ -259,28 +414,103 @@ public abstract class AbstractSyslog implements SyslogIF {
         }
     }
 
-    protected void write(SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) throws SyslogRuntimeException {
-        String header = messageProcessor.createSyslogHeader(this.syslogConfig.getFacility(),level,this.syslogConfig.getLocalName(), localProcId, this.syslogConfig.isSendLocalTimestamp(),this.syslogConfig.isSendLocalName());
+    /**
+     * Logs message through the byte modifier chain of plan; the message is
+     * encoded once and written from the thread's reusable buffer.
+     */
+    protected void logModifiedBytes(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) {
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+        try {
+            prepareMessage(plan,level,message,encodingBuffer);
+
+            try {
+                byte[] h = createSyslogHeader(plan,messageProcessor,level,localProcId);
+
+                if (isGatheringAllowed(messageProcessor)) {
+                    write(plan,messageProcessor,level,h,encodingBuffer.getBuffer(),encodingBuffer.getLength());
+
+                } else {
+                    byte[] m = encodingBuffer.toByteArray();
+
+                    write(plan,messageProcessor,level,h,m,m.length);
+                }
+
+            } catch (SyslogRuntimeException sre) {
+                String _message = encodingBuffer.toString(this.syslogConfig.getCharSet());
+
+                if (sre.getCause() != null) {
+                    backLog(level,_message,sre.getCause());
+
+                } else {
+                    backLog(level,_message,sre);
+                }
+
+                if (this.syslogConfig.isThrowExceptionOnWrite()) {
+                    throw sre;
+                }
+            }
+
+        } finally {
+            encodingBuffer.release();
+        }
+    }
+
+    protected void write(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) throws SyslogRuntimeException {
+        byte[] h = createSyslogHeader(plan,messageProcessor,level,localProcId);
+
+        //  packets built by concatenation never keep a reference to the message
+        //  bytes, so they can be encoded into the thread's reusable buffer
+        if (!isGatheringAllowed(messageProcessor)) {
+            byte[] m = SyslogUtility.getBytes(this.syslogConfig,message);
 
-        byte[] h = SyslogUtility.getBytes(this.syslogConfig,header);
-        byte[] m = SyslogUtility.getBytes(this.syslogConfig,message);
+            write(plan,messageProcessor,level,h,m,m.length);
+            return;
+        }
+
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
 
-        int mLength = m.length;
+        try {
+            int mLength = encodingBuffer.encode(this.syslogConfig,message);
 
-        int availableLen = this.syslogConfig.getMaxMessageLength() - h.length;
+            write(plan,messageProcessor,level,h,encodingBuffer.getBuffer(),mLength);
 
-        if (this.syslogConfig.isTruncateMessage() && (availableLen > 0 && mLength > availableLen)) {
-            mLength = availableLen;
+        } finally {
+            encodingBuffer.release();
+        }
+    }
+
+    protected void write(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, byte[] h, byte[] m, int messageLength) throws SyslogRuntimeException {
+        split(plan,null,messageProcessor,level,h,m,messageLength,null);
+    }
+
+    /**
+     * Truncates or splits the message as configured, and writes each packet
+     * with writePacket(..), or if packets is not null, adds it to packets instead.
+     *
+     * @param syslogWriter - the writer every packet of the message is written
+     * to, or null to leave the choice to write(level, byte[])
+     */
+    protected void split(SyslogSendPlan plan, AbstractSyslogWriter syslogWriter, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, byte[] h, byte[] m, int messageLength, List<byte []> packets) throws SyslogRuntimeException {
+        int mLength = messageLength;
+
+        int availableLen = plan.getMaxMessageLength() - h.length;
+
+        if (plan.isTruncateMessage() && (availableLen > 0 && mLength > availableLen)) {
+            mLength = SyslogUtility.getCharacterBoundary(this.syslogConfig,m,0,availableLen);
         }
 
         if (mLength <= availableLen) {
-            byte[] data = messageProcessor.createPacketData(h,m,0,mLength);
+            if (packets != null) {
+                packets.add(createPacketData(messageProcessor,h,m,0,mLength,null,null));
 
-            write(level,data);
+            } else {
+                writePacket(syslogWriter,level,messageProcessor,h,m,0,mLength,null,null);
+            }
 
         } else {
-            byte[] splitBeginText = this.syslogConfig.getSplitMessageBeginText();
-            byte[] splitEndText = this.syslogConfig.getSplitMessageEndText();
+            byte[] splitBeginText = plan.getSplitMessageBeginText();
+            byte[] splitEndText = plan.getSplitMessageEndText();
 
             int pos = 0;
             int left = mLength;
@@ -298,15 +528,21 @@ public abstract class AbstractSyslog implements SyslogIF {
 
                 if (actualAvailableLen > left) {
                     actualAvailableLen = left;
+
+                } else if (actualAvailableLen > 0 && actualAvailableLen < left) {
+                    actualAvailableLen = SyslogUtility.getCharacterBoundary(this.syslogConfig,m,pos,actualAvailableLen);
                 }
 
                 if (actualAvailableLen < 0) {
                     throw new SyslogRuntimeException("Message length < 0; recommendation: increase the size of maxMessageLength");
                 }
 
-                byte[] data = messageProcessor.createPacketData(h,m,pos,actualAvailableLen,doSplitBeginText ? splitBeginText : null,doSplitEndText ? splitEndText : null);
+                if (packets != null) {
+                    packets.add(createPacketData(messageProcessor,h,m,pos,actualAvailableLen,doSplitBeginText ? splitBeginText : null,doSplitEndText ? splitEndText : null));
 
-                write(level,data);
+                } else {
+                    writePacket(syslogWriter,level,messageProcessor,h,m,pos,actualAvailableLen,doSplitBeginText ? splitBeginText : null,doSplitEndText ? splitEndText : null);
+                }
 
                 pos += actualAvailableLen;
                 left -= actualAvailableLen;
@@ -314,35 +550,234 @@ public abstract class AbstractSyslog implements SyslogIF {
         }
     }
 
+    /**
+     * Renders message into the packets this instance would send for it (more
+     * than one if the message is split), without sending them.  Any other
+     * instance for which isRenderingCompatible(..) is true may send the same
+     * packets with writePackets(..).
+     */
+    public List<byte []> createPackets(SyslogLevel level, String message) {
+        SyslogSendPlan plan = getSendPlan();
+
+        if (plan.isUseStructuredData()) {
+            StructuredSyslogMessageIF structuredMessage = new StructuredSyslogMessage(null,null,null,message);
+
+            return createPackets(plan,getStructuredMessageProcessor(),level,null,structuredMessage.createMessage());
+        }
+
+        return createPackets(plan,getMessageProcessor(),level,null,message);
+    }
+
+    public List<byte []> createPackets(SyslogLevel level, SyslogMessageIF message) {
+        return createPackets(getSendPlan(),selectMessageProcessor(message),level,message.getProcId(),message.createMessage());
+    }
+
+    protected List<byte []> createPackets(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) {
+        byte[] h = createSyslogHeader(plan,messageProcessor,level,localProcId);
+        byte[] m = null;
+
+        if (plan.isModifyingBytes()) {
+            SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+            try {
+                prepareMessage(plan,level,message,encodingBuffer);
+
+                m = encodingBuffer.toByteArray();
+
+            } finally {
+                encodingBuffer.release();
+            }
+
+        } else {
+            m = SyslogUtility.getBytes(this.syslogConfig,prepareMessage(plan,level,message));
+        }
+
+        List<byte []> packets = Lists.newArrayListWithCapacity(1);
+
+        split(plan,null,messageProcessor,level,h,m,m.length,packets);
+
+        return packets;
+    }
+
+    /**
+     * Sends packets created by createPackets(..), backlogging those that
+     * could not be written.  The arrays must not be modified afterwards.
+     */
+    public void writePackets(SyslogLevel level, List<byte []> packets) {
+        for(int i=0; i<packets.size(); i++) {
+            byte[] packet = packets.get(i);
+
+            try {
+                write(level,packet);
+
+            } catch (SyslogRuntimeException sre) {
+                backLogPacket(level,SyslogUtility.newString(this.syslogConfig,packet),sre.getCause() != null ? sre.getCause() : sre);
+
+                if (this.syslogConfig.isThrowExceptionOnWrite()) {
+                    throw sre;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if every message is rendered by createPackets(..) and sent
+     * through write(level, byte[]), so that packets rendered by another
+     * instance may be handed to writePackets(..).  Implementations sending
+     * messages otherwise (e.g. by overriding log(SyslogSendPlan, ..)) must
+     * return false, the default.
+     */
+    public boolean isPacketSharingSupported() {
+        return false;
+    }
+
+    /**
+     * @return true if both instances support packet sharing and other renders
+     * every message into the same packets as this instance: it uses the same
+     * message processors, charset, message modifiers, and header, ident and
+     * split settings
+     */
+    public boolean isRenderingCompatible(AbstractSyslog other) {
+        if (!isPacketSharingSupported() || !other.isPacketSharingSupported()) {
+            return false;
+        }
+
+        AbstractSyslogConfigIF otherConfig = other.syslogConfig;
+
+        return getMessageProcessor() == other.getMessageProcessor() &&
+               getStructuredMessageProcessor() == other.getStructuredMessageProcessor() &&
+               this.syslogConfig.getCharSet().equals(otherConfig.getCharSet()) &&
+               this.syslogConfig.getFacility() == otherConfig.getFacility() &&
+               StringUtils.equals(this.syslogConfig.getLocalName(),otherConfig.getLocalName()) &&
+               StringUtils.equals(this.syslogConfig.getIdent(),otherConfig.getIdent()) &&
+               this.syslogConfig.isIncludeIdentInMessageModifier() == otherConfig.isIncludeIdentInMessageModifier() &&
+               this.syslogConfig.isSendLocalTimestamp() == otherConfig.isSendLocalTimestamp() &&
+               this.syslogConfig.isSendLocalName() == otherConfig.isSendLocalName() &&
+               this.syslogConfig.isUseStructuredData() == otherConfig.isUseStructuredData() &&
+               this.syslogConfig.getMaxMessageLength() == otherConfig.getMaxMessageLength() &&
+               this.syslogConfig.isTruncateMessage() == otherConfig.isTruncateMessage() &&
+               Arrays.equals(this.syslogConfig.getSplitMessageBeginText(),otherConfig.getSplitMessageBeginText()) &&
+               Arrays.equals(this.syslogConfig.getSplitMessageEndText(),otherConfig.getSplitMessageEndText()) &&
+               isEmptyOrEqual(this.syslogConfig.getMessageModifiers(),otherConfig.getMessageModifiers());
+    }
+
+    private static boolean isEmptyOrEqual(List<?> list, List<?> otherList) {
+        if (list == null || list.isEmpty()) {
+            return otherList == null || otherList.isEmpty();
+        }
+
+        return list.equals(otherList);
+    }
+
+    protected byte[] createSyslogHeader(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId) {
+        byte[] header = plan.getHeader(messageProcessor,level);
+
+        if (header != null) {
+            return header;
+        }
+
+        if (messageProcessor instanceof AbstractSyslogMessageProcessor) {
+            return ((AbstractSyslogMessageProcessor) messageProcessor).createSyslogHeaderBytes(this.syslogConfig,plan.getFacility(),level,plan.getLocalName(),localProcId,plan.isSendLocalTimestamp(),plan.isSendLocalName());
+        }
+
+        String headerText = messageProcessor.createSyslogHeader(plan.getFacility(),level,plan.getLocalName(),localProcId,plan.isSendLocalTimestamp(),plan.isSendLocalName());
+
+        return SyslogUtility.getBytes(this.syslogConfig,headerText);
+    }
+
+    /**
+     * Builds the packet for one message (or one part of a split message) and
+     * writes it.  Implementations with a writer supporting GatheringSyslogWriterIF
+     * may override this method to send the parts without building the packet;
+     * every part of a split message refers to the same message array, and is
+     * passed the same syslogWriter (which this implementation ignores).
+     */
+    protected void writePacket(AbstractSyslogWriter syslogWriter, SyslogLevel level, SyslogMessageProcessorIF messageProcessor, byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) throws SyslogRuntimeException {
+        byte[] data = createPacketData(messageProcessor,header,message,start,length,splitBeginText,splitEndText);
+
+        write(level,data);
+    }
+
+    protected byte[] createPacketData(SyslogMessageProcessorIF messageProcessor, byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) {
+        if (splitBeginText == null && splitEndText == null) {
+            return messageProcessor.createPacketData(header,message,start,length);
+        }
+
+        return messageProcessor.createPacketData(header,message,start,length,splitBeginText,splitEndText);
+    }
+
+    /**
+     * @return Returns true if the packet built by messageProcessor is the plain
+     * concatenation of its parts, so that a GatheringSyslogWriterIF may send them directly.
+     */
+    protected boolean isGatheringAllowed(SyslogMessageProcessorIF messageProcessor) {
+        return messageProcessor instanceof AbstractSyslogMessageProcessor && ((AbstractSyslogMessageProcessor) messageProcessor).isConcatenatingPacketData();
+    }
+
     protected abstract void initialize() throws SyslogRuntimeException;
 
     protected abstract void write(SyslogLevel level, byte[] message) throws SyslogRuntimeException;
 
     protected String modifyMessage(SyslogLevel level, String message) {
-        List<? extends SyslogMessageModifierIF> _messageModifiers = this.syslogConfig.getMessageModifiers();
+        return modifyMessage(getSendPlan(),level,message);
+    }
 
-        if (_messageModifiers == null || _messageModifiers.size() < 1) {
-            return message;
-        }
+    protected String modifyMessage(SyslogSendPlan plan, SyslogLevel level, String message) {
+        SyslogMessageModifierIF[] _messageModifiers = plan.getMessageModifiers();
 
         String _message = message;
 
-        SyslogFacility facility = this.syslogConfig.getFacility();
-
-        for(int i=0; i<_messageModifiers.size(); i++) {
-            SyslogMessageModifierIF messageModifier = _messageModifiers.get(i);
-
-            _message = messageModifier.modify(this, facility, level, _message);
+        for(int i=0; i<_messageModifiers.length; i++) {
+            _message = _messageModifiers[i].modify(this, plan.getFacility(), level, _message);
         }
 
         return _message;
     }
 
+    /**
+     * Sends a message previously passed to backLog(..), without applying the
+     * message modifiers again.
+     *
+     * @throws SyslogRuntimeException if the message could not be sent
+     */
+    public void replay(SyslogLevel level, String message) throws SyslogRuntimeException {
+        SyslogSendPlan plan = getSendPlan();
+
+        SyslogMessageProcessorIF messageProcessor = plan.isUseStructuredData() ? getStructuredMessageProcessor() : getMessageProcessor();
+
+        write(plan,messageProcessor,level,null,message);
+    }
+
+    /**
+     * Sends a packet previously passed to backLogPacket(..) as it is.
+     *
+     * @throws SyslogRuntimeException if the packet could not be sent
+     */
+    public void replayPacket(SyslogLevel level, String packet) throws SyslogRuntimeException {
+        write(level,SyslogUtility.getBytes(this.syslogConfig,packet));
+    }
+
     public void backLog(SyslogLevel level, String message, Throwable reasonThrowable) {
         backLog(level,message,reasonThrowable != null ? reasonThrowable.toString() : "UNKNOWN");
     }
 
     public void backLog(SyslogLevel level, String message, String reason) {
+        backLog(level,message,false,reason);
+    }
+
+    /**
+     * Backlogs a complete packet, header included, that could not be written.
+     * Handlers implementing PacketSyslogBackLogHandlerIF are told it is a packet.
+     */
+    public void backLogPacket(SyslogLevel level, String packet, Throwable reasonThrowable) {
+        backLogPacket(level,packet,reasonThrowable != null ? reasonThrowable.toString() : "UNKNOWN");
+    }
+
+    public void backLogPacket(SyslogLevel level, String packet, String reason) {
+        backLog(level,packet,true,reason);
+    }
+
+    protected void backLog(SyslogLevel level, String message, boolean packet, String reason) {
         boolean status = getBackLogStatus();
 
         if (!status) {
@@ -360,7 +795,13 @@ public abstract class AbstractSyslog implements SyslogIF {
                     this.notifiedBackLogHandlers.add(backLogHandler);
                 }
 
-                backLogHandler.log(this,level,message,reason);
+                if (packet && backLogHandler instanceof PacketSyslogBackLogHandlerIF) {
+                    ((PacketSyslogBackLogHandlerIF) backLogHandler).logPacket(this,level,message,reason);
+
+                } else {
+                    backLogHandler.log(this,level,message,reason);
+                }
+
                 break;
 
             } catch (Exception e) {
@@ -388,13 +829,25 @@ public abstract class AbstractSyslog implements SyslogIF {
 
 
     public AbstractSyslogWriter createWriter(){
+        AbstractSyslogWriter newWriter = instantiateWriter();
+
+        if (newWriter != null) {
+            newWriter.initialize(this);
+        }
+
+        return newWriter;
+    }
+
+    /**
+     * @return a new, uninitialized instance of the configured writer class
+     */
+    protected AbstractSyslogWriter instantiateWriter() {
         Class<? extends AbstractSyslogWriter> clazz = this.syslogConfig.getSyslogWriterClass();
 
         AbstractSyslogWriter newWriter = null;
 
         try {
             newWriter = clazz.newInstance();
-            newWriter.initialize(this);
 
         } catch (InstantiationException ie) {
             if (this.syslogConfig.isThrowExceptionOnInitialize()) {
@@ -16,6 +16,7 @@ package com.nesscomputing.syslog4j.impl;
 
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 import com.google.common.base.Charsets;
@@ -24,9 +25,12 @@ import com.nesscomputing.syslog4j.SyslogBackLogHandlerIF;
 import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.backlog.printstream.SystemErrSyslogBackLogHandler;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueByteBudget;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueOverflowPolicyIF;
 import com.nesscomputing.syslog4j.util.SyslogUtility;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -74,6 +78,32 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
     protected boolean useDaemonThread = SyslogConstants.USE_DAEMON_THREAD_DEFAULT;
     protected int threadPriority = SyslogConstants.THREAD_PRIORITY_DEFAULT;
     protected long threadLoopInterval = SyslogConstants.THREAD_LOOP_INTERVAL_DEFAULT;
+    protected boolean threadWakeUp = SyslogConstants.THREAD_WAKE_UP_DEFAULT;
+    protected long threadLingerTime = SyslogConstants.THREAD_LINGER_TIME_DEFAULT;
+    protected int threadLingerMessages = SyslogConstants.THREAD_LINGER_MESSAGES_DEFAULT;
+    protected boolean useRingBufferQueue = SyslogConstants.USE_RING_BUFFER_QUEUE_DEFAULT;
+
+    protected long maxQueueBytes = SyslogConstants.MAX_QUEUE_BYTES_DEFAULT;
+
+    protected SyslogQueueByteBudget queueByteBudget = null;
+
+    protected boolean useCircuitBreaker = SyslogConstants.USE_CIRCUIT_BREAKER_DEFAULT;
+    protected long circuitBreakerInitialBackoff = SyslogConstants.CIRCUIT_BREAKER_INITIAL_BACKOFF_DEFAULT;
+    protected long circuitBreakerMaxBackoff = SyslogConstants.CIRCUIT_BREAKER_MAX_BACKOFF_DEFAULT;
+
+    protected String spillDirectory = SyslogConstants.SPILL_DIRECTORY_DEFAULT;
+    protected int spillSegmentSize = SyslogConstants.SPILL_SEGMENT_SIZE_DEFAULT;
+    protected int spillMaxSegments = SyslogConstants.SPILL_MAX_SEGMENTS_DEFAULT;
+
+    protected boolean usePriorityQueue = SyslogConstants.USE_PRIORITY_QUEUE_DEFAULT;
+
+    protected boolean priorityQueueWeighted = SyslogConstants.PRIORITY_QUEUE_WEIGHTED_DEFAULT;
+
+    protected int[] priorityQueueCapacities = SyslogConstants.PRIORITY_QUEUE_CAPACITIES_DEFAULT;
+
+    protected int[] priorityQueueWeights = SyslogConstants.PRIORITY_QUEUE_WEIGHTS_DEFAULT;
+
+    protected SyslogQueueOverflowPolicyIF queueOverflowPolicy = null;
 
     protected int writeRetries = SyslogConstants.WRITE_RETRIES_DEFAULT;
     protected long maxShutdownWait = SyslogConstants.MAX_SHUTDOWN_WAIT_DEFAULT;
@@ -81,8 +111,20 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
     protected boolean truncateMessage = SyslogConstants.TRUNCATE_MESSAGE_DEFAULT;
     protected boolean useStructuredData = SyslogConstants.USE_STRUCTURED_DATA_DEFAULT;
 
+    protected SyslogLevel threshold = SyslogConstants.THRESHOLD_DEFAULT;
+
+    protected final AtomicInteger version = new AtomicInteger(0);
+
     public abstract Class<? extends SyslogIF> getSyslogClass();
 
+    public int getVersion() {
+        return this.version.get();
+    }
+
+    protected void changed() {
+        this.version.incrementAndGet();
+    }
+
     @Override
     public Charset getCharSet() {
         return this.charSet;
@@ -91,6 +133,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
     @Override
     public void setCharSet(Charset charSet) {
         this.charSet = charSet;
+        changed();
     }
 
     public String getLocalName() {
@@ -99,6 +142,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setLocalName(String localName) {
         this.localName = localName;
+        changed();
     }
 
     public boolean isThrowExceptionOnWrite() {
@@ -125,10 +169,12 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
     @SuppressFBWarnings("EI_EXPOSE_REP2")
     public void setSplitMessageBeginText(byte[] splitMessageBeginText) {
         this.splitMessageBeginText = splitMessageBeginText;
+        changed();
     }
 
     public void setSplitMessageBeginText(String splitMessageBeginText) throws SyslogRuntimeException {
         this.splitMessageBeginText = SyslogUtility.getBytes(this,splitMessageBeginText);
+        changed();
     }
 
     @SuppressFBWarnings("EI_EXPOSE_REP")
@@ -139,10 +185,12 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
     @SuppressFBWarnings("EI_EXPOSE_REP2")
     public void setSplitMessageEndText(byte[] splitMessageEndText) {
         this.splitMessageEndText = splitMessageEndText;
+        changed();
     }
 
     public void setSplitMessageEndText(String splitMessageEndText) throws SyslogRuntimeException {
         this.splitMessageEndText = SyslogUtility.getBytes(this,splitMessageEndText);
+        changed();
     }
 
     public int getMaxMessageLength() {
@@ -151,6 +199,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setMaxMessageLength(int maxMessageLength) {
         this.maxMessageLength = maxMessageLength;
+        changed();
     }
 
     public boolean isSendLocalTimestamp() {
@@ -159,6 +208,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setSendLocalTimestamp(boolean sendLocalTimestamp) {
         this.sendLocalTimestamp = sendLocalTimestamp;
+        changed();
     }
 
     public boolean isSendLocalName() {
@@ -167,6 +217,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setSendLocalName(boolean sendLocalName) {
         this.sendLocalName = sendLocalName;
+        changed();
     }
 
     @Override
@@ -177,6 +228,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
     @Override
     public void setFacility(SyslogFacility facility) {
         this.facility = facility;
+        changed();
     }
 
     public String getIdent() {
@@ -185,6 +237,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setIdent(String ident) {
         this.ident = ident;
+        changed();
     }
 
     protected synchronized List<SyslogMessageModifierIF> _getMessageModifiers() {
@@ -205,6 +258,8 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
         synchronized(_messageModifiers) {
             _messageModifiers.add(messageModifier);
         }
+
+        changed();
     }
 
     public void insertMessageModifier(int index, SyslogMessageModifierIF messageModifier) {
@@ -222,6 +277,8 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
                 throw new SyslogRuntimeException(ioobe);
             }
         }
+
+        changed();
     }
 
     public void removeMessageModifier(SyslogMessageModifierIF messageModifier) {
@@ -234,6 +291,8 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
         synchronized(_messageModifiers) {
             _messageModifiers.remove(messageModifier);
         }
+
+        changed();
     }
 
     public List<SyslogMessageModifierIF> getMessageModifiers() {
@@ -242,6 +301,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setMessageModifiers(List<SyslogMessageModifierIF> messageModifiers) {
         this.messageModifiers = messageModifiers;
+        changed();
     }
 
     public void removeAllMessageModifiers() {
@@ -250,6 +310,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
         }
 
         this.messageModifiers.clear();
+        changed();
     }
 
     protected synchronized List<SyslogBackLogHandlerIF> _getBackLogHandlers() {
@@ -329,6 +390,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setIncludeIdentInMessageModifier(boolean includeIdentInMessageModifier) {
         this.includeIdentInMessageModifier = includeIdentInMessageModifier;
+        changed();
     }
 
     public boolean isThreaded() {
@@ -363,6 +425,142 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
         this.threadLoopInterval = threadLoopInterval;
     }
 
+    public boolean isThreadWakeUp() {
+        return this.threadWakeUp;
+    }
+
+    public void setThreadWakeUp(boolean threadWakeUp) {
+        this.threadWakeUp = threadWakeUp;
+    }
+
+    public long getThreadLingerTime() {
+        return this.threadLingerTime;
+    }
+
+    public void setThreadLingerTime(long threadLingerTime) {
+        this.threadLingerTime = threadLingerTime;
+    }
+
+    public int getThreadLingerMessages() {
+        return this.threadLingerMessages;
+    }
+
+    public void setThreadLingerMessages(int threadLingerMessages) {
+        this.threadLingerMessages = threadLingerMessages;
+    }
+
+    public boolean isUseRingBufferQueue() {
+        return this.useRingBufferQueue;
+    }
+
+    public void setUseRingBufferQueue(boolean useRingBufferQueue) {
+        this.useRingBufferQueue = useRingBufferQueue;
+    }
+
+    public long getMaxQueueBytes() {
+        return this.maxQueueBytes;
+    }
+
+    public void setMaxQueueBytes(long maxQueueBytes) {
+        this.maxQueueBytes = maxQueueBytes;
+    }
+
+    public SyslogQueueByteBudget getQueueByteBudget() {
+        return this.queueByteBudget;
+    }
+
+    public void setQueueByteBudget(SyslogQueueByteBudget queueByteBudget) {
+        this.queueByteBudget = queueByteBudget;
+    }
+
+    public boolean isUseCircuitBreaker() {
+        return this.useCircuitBreaker;
+    }
+
+    public void setUseCircuitBreaker(boolean useCircuitBreaker) {
+        this.useCircuitBreaker = useCircuitBreaker;
+    }
+
+    public long getCircuitBreakerInitialBackoff() {
+        return this.circuitBreakerInitialBackoff;
+    }
+
+    public void setCircuitBreakerInitialBackoff(long circuitBreakerInitialBackoff) {
+        this.circuitBreakerInitialBackoff = circuitBreakerInitialBackoff;
+    }
+
+    public long getCircuitBreakerMaxBackoff() {
+        return this.circuitBreakerMaxBackoff;
+    }
+
+    public void setCircuitBreakerMaxBackoff(long circuitBreakerMaxBackoff) {
+        this.circuitBreakerMaxBackoff = circuitBreakerMaxBackoff;
+    }
+
+    public String getSpillDirectory() {
+        return this.spillDirectory;
+    }
+
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public int getSpillSegmentSize() {
+        return this.spillSegmentSize;
+    }
+
+    public void setSpillSegmentSize(int spillSegmentSize) {
+        this.spillSegmentSize = spillSegmentSize;
+    }
+
+    public int getSpillMaxSegments() {
+        return this.spillMaxSegments;
+    }
+
+    public void setSpillMaxSegments(int spillMaxSegments) {
+        this.spillMaxSegments = spillMaxSegments;
+    }
+
+    public boolean isUsePriorityQueue() {
+        return this.usePriorityQueue;
+    }
+
+    public void setUsePriorityQueue(boolean usePriorityQueue) {
+        this.usePriorityQueue = usePriorityQueue;
+    }
+
+    public boolean isPriorityQueueWeighted() {
+        return this.priorityQueueWeighted;
+    }
+
+    public void setPriorityQueueWeighted(boolean priorityQueueWeighted) {
+        this.priorityQueueWeighted = priorityQueueWeighted;
+    }
+
+    public int[] getPriorityQueueCapacities() {
+        return this.priorityQueueCapacities;
+    }
+
+    public void setPriorityQueueCapacities(int[] priorityQueueCapacities) {
+        this.priorityQueueCapacities = priorityQueueCapacities;
+    }
+
+    public int[] getPriorityQueueWeights() {
+        return this.priorityQueueWeights;
+    }
+
+    public void setPriorityQueueWeights(int[] priorityQueueWeights) {
+        this.priorityQueueWeights = priorityQueueWeights;
+    }
+
+    public SyslogQueueOverflowPolicyIF getQueueOverflowPolicy() {
+        return this.queueOverflowPolicy;
+    }
+
+    public void setQueueOverflowPolicy(SyslogQueueOverflowPolicyIF queueOverflowPolicy) {
+        this.queueOverflowPolicy = queueOverflowPolicy;
+    }
+
     public long getMaxShutdownWait() {
         return this.maxShutdownWait;
     }
@@ -385,6 +583,7 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setTruncateMessage(boolean truncateMessage) {
         this.truncateMessage = truncateMessage;
+        changed();
     }
 
     public boolean isUseStructuredData() {
@@ -393,6 +592,15 @@ public abstract class AbstractSyslogConfig implements AbstractSyslogConfigIF {
 
     public void setUseStructuredData(boolean useStructuredData) {
         this.useStructuredData = useStructuredData;
+        changed();
+    }
+
+    public SyslogLevel getThreshold() {
+        return this.threshold;
+    }
+
+    public void setThreshold(SyslogLevel threshold) {
+        this.threshold = threshold;
     }
 
     public Class<? extends AbstractSyslogWriter> getSyslogWriterClass() {
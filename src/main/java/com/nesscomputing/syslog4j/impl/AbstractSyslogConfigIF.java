@@ -19,6 +19,8 @@ import java.util.List;
 import com.nesscomputing.syslog4j.SyslogBackLogHandlerIF;
 import com.nesscomputing.syslog4j.SyslogConfigIF;
 import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueByteBudget;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueOverflowPolicyIF;
 
 /**
 * AbstractSyslogConfigIF provides an interface for all Abstract Syslog
@@ -38,6 +40,13 @@ public interface AbstractSyslogConfigIF extends SyslogConfigIF {
 
     public List<? extends SyslogMessageModifierIF> getMessageModifiers();
 
+    /**
+     * @return a number that changes whenever a setting used to render messages
+     * (charset, facility, ident, local name, header, split and structured data
+     * settings, or the message modifiers) is changed through this configuration
+     */
+    public int getVersion();
+
     public byte[] getSplitMessageBeginText();
     public void setSplitMessageBeginText(byte[] beginText);
 
@@ -56,6 +65,29 @@ public interface AbstractSyslogConfigIF extends SyslogConfigIF {
     public long getThreadLoopInterval();
     public void setThreadLoopInterval(long threadLoopInterval);
 
+    public boolean isThreadWakeUp();
+    /**
+     * When set, queueing a message signals an idle writer thread instead of
+     * leaving it asleep until the next threadLoopInterval; the loop interval then
+     * only bounds how long an idle writer parks.
+     *
+     * @param threadWakeUp
+     */
+    public void setThreadWakeUp(boolean threadWakeUp);
+
+    public long getThreadLingerTime();
+    /**
+     * Once woken up, the writer thread waits up to threadLingerTime milliseconds
+     * for threadLingerMessages messages to accumulate before sending, so that
+     * bursts are sent in batches.  Use the (default) value of 0 to send immediately.
+     *
+     * @param threadLingerTime
+     */
+    public void setThreadLingerTime(long threadLingerTime);
+
+    public int getThreadLingerMessages();
+    public void setThreadLingerMessages(int threadLingerMessages);
+
     public long getMaxShutdownWait();
     public void setMaxShutdownWait(long maxShutdownWait);
 
@@ -69,4 +101,125 @@ public interface AbstractSyslogConfigIF extends SyslogConfigIF {
      * @param maxQueueSize
      */
     public void setMaxQueueSize(int maxQueueSize);
+
+    public long getMaxQueueBytes();
+    /**
+     * Limits the total size of the messages queued by all writers of a Syslog
+     * instance; once reached, the queue overflow policy applies.  Use the
+     * (default) value of -1 for no limit.
+     *
+     * @param maxQueueBytes
+     */
+    public void setMaxQueueBytes(long maxQueueBytes);
+
+    public SyslogQueueByteBudget getQueueByteBudget();
+    /**
+     * Sets a byte budget to share with other Syslog instances (for example
+     * SyslogQueueByteBudget.getGlobalInstance()), in place of maxQueueBytes.
+     *
+     * @param queueByteBudget
+     */
+    public void setQueueByteBudget(SyslogQueueByteBudget queueByteBudget);
+
+    public boolean isUseRingBufferQueue();
+    /**
+     * Use a pre-allocated, lock-free ring buffer instead of a LinkedList for the
+     * "threaded" mode queue.  The ring capacity is taken from getMaxQueueSize(), or
+     * RING_BUFFER_QUEUE_SIZE_DEFAULT when the queue size is indefinite (-1).
+     *
+     * @param useRingBufferQueue
+     */
+    public void setUseRingBufferQueue(boolean useRingBufferQueue);
+
+    public boolean isUseCircuitBreaker();
+    /**
+     * Once a writer fails to connect, fail further writes immediately (without
+     * network calls) until a background probe, backing off exponentially from
+     * circuitBreakerInitialBackoff to circuitBreakerMaxBackoff milliseconds,
+     * reaches the destination again.
+     *
+     * @param useCircuitBreaker
+     */
+    public void setUseCircuitBreaker(boolean useCircuitBreaker);
+
+    public long getCircuitBreakerInitialBackoff();
+    public void setCircuitBreakerInitialBackoff(long circuitBreakerInitialBackoff);
+
+    public long getCircuitBreakerMaxBackoff();
+    public void setCircuitBreakerMaxBackoff(long circuitBreakerMaxBackoff);
+
+    public String getSpillDirectory();
+    /**
+     * Spill messages that do not fit in the "threaded" mode queue to memory-mapped
+     * segment files in this directory (which must not be shared with another
+     * instance), and hold messages that fail to send for retry rather than
+     * backlogging them.  Spilled messages are sent, in order, once the writer
+     * is able to send again.  Use the (default) value of null to disable.
+     *
+     * @param spillDirectory
+     */
+    public void setSpillDirectory(String spillDirectory);
+
+    public int getSpillSegmentSize();
+    public void setSpillSegmentSize(int spillSegmentSize);
+
+    public int getSpillMaxSegments();
+    /**
+     * Limits the spill files to spillMaxSegments segments of spillSegmentSize
+     * bytes each; once full, the queue overflow policy applies.
+     *
+     * @param spillMaxSegments
+     */
+    public void setSpillMaxSegments(int spillMaxSegments);
+
+    public boolean isUsePriorityQueue();
+    /**
+     * Give each SyslogLevel its own lane in the "threaded" mode queue, so that
+     * severe messages are written ahead of (and are not dropped along with)
+     * queued messages of lower levels.  Unless setPriorityQueueCapacities(..)
+     * is used, getMaxQueueSize() is split evenly across the lanes, the more
+     * severe lanes taking any remainder and each lane holding at least one message.
+     *
+     * @param usePriorityQueue
+     */
+    public void setUsePriorityQueue(boolean usePriorityQueue);
+
+    public boolean isPriorityQueueWeighted();
+    /**
+     * When using a priority queue, drain the lanes in weighted turns rather than
+     * strictly by severity, so that lower levels are not starved.
+     *
+     * @param priorityQueueWeighted
+     */
+    public void setPriorityQueueWeighted(boolean priorityQueueWeighted);
+
+    public int[] getPriorityQueueCapacities();
+    /**
+     * When using a priority queue, sets the capacity of each lane, indexed by
+     * SyslogLevel.getValue(), in place of a share of getMaxQueueSize().  Use -1
+     * for an unbounded lane, or the (default) value of null to split getMaxQueueSize().
+     *
+     * @param priorityQueueCapacities
+     */
+    public void setPriorityQueueCapacities(int[] priorityQueueCapacities);
+
+    public int[] getPriorityQueueWeights();
+    /**
+     * When using a weighted priority queue, sets the number of messages taken
+     * from each lane per turn, indexed by SyslogLevel.getValue().  Use the
+     * (default) value of null for PrioritySyslogQueue.DEFAULT_WEIGHTS.
+     *
+     * @param priorityQueueWeights
+     */
+    public void setPriorityQueueWeights(int[] priorityQueueWeights);
+
+    public SyslogQueueOverflowPolicyIF getQueueOverflowPolicy();
+    /**
+     * Decides what happens to a message when the "threaded" mode queue is full
+     * (see getMaxQueueSize()).  When null (the default), the message is passed to
+     * the backLog handlers.
+     *
+     * @param queueOverflowPolicy
+     */
+    public void setQueueOverflowPolicy(SyslogQueueOverflowPolicyIF queueOverflowPolicy);
 }
@@ -14,12 +14,30 @@
  */
 package com.nesscomputing.syslog4j.impl;
 
+import static com.nesscomputing.syslog4j.SyslogConstants.PRIORITY_QUEUE_DRAIN_BATCH_SIZE;
+import static com.nesscomputing.syslog4j.SyslogConstants.RING_BUFFER_QUEUE_SIZE_DEFAULT;
+import static com.nesscomputing.syslog4j.SyslogConstants.SPILL_READ_BATCH_SIZE;
+
+import java.io.File;
+
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 
 import com.google.common.collect.Lists;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.queue.BudgetedSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.LinkedListSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.MappedSyslogSpillStore;
+import com.nesscomputing.syslog4j.impl.queue.PrioritySyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.RingBufferSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.SpillingSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueByteBudget;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueIF;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueOverflowPolicyIF;
+import com.nesscomputing.syslog4j.impl.queue.overflow.BackLogSyslogQueueOverflowPolicy;
 import com.nesscomputing.syslog4j.util.SyslogUtility;
 
 /**
@@ -27,7 +45,12 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 * syslog messages within a separate Thread or an object pool.
 *
 * <p>When used in "threaded" mode (see TCPNetSyslogConfig for the option),
-* a queuing mechanism is used (via LinkedList).</p>
+* a queuing mechanism is used (via LinkedList, or a lock-free ring buffer
+* when AbstractSyslogConfigIF.isUseRingBufferQueue() is set), optionally with
+* a separate lane for each SyslogLevel (see isUsePriorityQueue()), and bounded
+* by message count and/or total bytes (see getMaxQueueBytes()).  Messages that
+* do not fit in a full queue are spilled to disk when getSpillDirectory() is
+* set, and are otherwise handled by a SyslogQueueOverflowPolicyIF.</p>
 *
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
@@ -39,7 +62,11 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 public abstract class AbstractSyslogWriter implements Runnable {
     protected AbstractSyslog syslog = null;
 
-    protected List<byte []> queuedMessages = null;
+    protected SyslogQueueIF queuedMessages = null;
+
+    protected SyslogQueueOverflowPolicyIF queueOverflowPolicy = null;
+
+    protected SpillingSyslogQueue spillQueue = null;
 
     protected Thread thread = null;
 
@@ -47,6 +74,12 @@ public abstract class AbstractSyslogWriter implements Runnable {
 
     protected boolean shutdown = false;
 
+    protected static final int WAIT_STATE_RUNNING = 0;
+    protected static final int WAIT_STATE_IDLE = 1;
+    protected static final int WAIT_STATE_LINGERING = 2;
+
+    protected volatile int waitState = WAIT_STATE_RUNNING;
+
     public void initialize(AbstractSyslog abstractSyslog) {
         this.syslog = abstractSyslog;
 
@@ -58,18 +91,230 @@ public abstract class AbstractSyslogWriter implements Runnable {
         }
 
         if (this.syslogConfig.isThreaded()) {
-            this.queuedMessages = Lists.newLinkedList();
+            this.queuedMessages = createQueue();
+
+            SyslogQueueByteBudget budget = this.syslog.getQueueByteBudget();
+
+            if (budget != null) {
+                this.queuedMessages = new BudgetedSyslogQueue(this.queuedMessages,budget);
+            }
+
+            if (this.syslogConfig.getSpillDirectory() != null) {
+                MappedSyslogSpillStore store = openSpillStore();
+
+                this.spillQueue = new SpillingSyslogQueue(this.queuedMessages,store,SPILL_READ_BATCH_SIZE);
+                this.queuedMessages = this.spillQueue;
+            }
+
+            this.queueOverflowPolicy = createQueueOverflowPolicy();
         }
     }
 
-    public void queue(SyslogLevel level, byte[] message) {
-        synchronized(this.queuedMessages) {
-            if (this.syslogConfig.getMaxQueueSize() == -1 || this.queuedMessages.size() < this.syslogConfig.getMaxQueueSize()) {
-                this.queuedMessages.add(message);
+    /**
+     * @return the directory of the spill files of this writer and of the other
+     * writers sending to the same destination
+     */
+    protected File getSpillDirectory() {
+        return new File(this.syslogConfig.getSpillDirectory());
+    }
+
+    /**
+     * Opens the spill store in the first subdirectory of getSpillDirectory()
+     * not in use by another writer (such as another writer of a pool), so
+     * that each writer has spill files of its own.  Spill files left behind
+     * by a previous process are replayed by the writer taking their subdirectory.
+     */
+    protected MappedSyslogSpillStore openSpillStore() {
+        File spillDirectory = getSpillDirectory();
+
+        for(int i=0; ; i++) {
+            MappedSyslogSpillStore store = MappedSyslogSpillStore.openIfUnused(new File(spillDirectory,"writer-" + i),this.syslogConfig.getSpillSegmentSize(),this.syslogConfig.getSpillMaxSegments());
+
+            if (store != null) {
+                return store;
+            }
+        }
+    }
+
+    protected SyslogQueueOverflowPolicyIF createQueueOverflowPolicy() {
+        SyslogQueueOverflowPolicyIF policy = this.syslogConfig.getQueueOverflowPolicy();
+
+        if (policy == null) {
+            policy = new BackLogSyslogQueueOverflowPolicy();
+        }
+
+        return policy;
+    }
+
+    public AbstractSyslog getSyslog() {
+        return this.syslog;
+    }
+
+    public SyslogQueueIF getQueue() {
+        return this.queuedMessages;
+    }
+
+    public SyslogQueueOverflowPolicyIF getQueueOverflowPolicy() {
+        return this.queueOverflowPolicy;
+    }
+
+    protected SyslogQueueIF createQueue() {
+        if (this.syslogConfig.isUsePriorityQueue()) {
+            int[] capacities = getLaneCapacities();
+
+            SyslogQueueIF[] lanes = new SyslogQueueIF[capacities.length];
+
+            for(int i=0; i<lanes.length; i++) {
+                lanes[i] = createLaneQueue(capacities[i]);
+            }
+
+            int[] weights = null;
+
+            if (this.syslogConfig.isPriorityQueueWeighted()) {
+                weights = this.syslogConfig.getPriorityQueueWeights();
+
+                if (weights == null) {
+                    weights = PrioritySyslogQueue.DEFAULT_WEIGHTS;
+                }
+            }
+
+            return new PrioritySyslogQueue(lanes,weights);
+        }
+
+        return createLaneQueue(this.syslogConfig.getMaxQueueSize());
+    }
+
+    /**
+     * @return the capacity of each priority lane, indexed by SyslogLevel.getValue():
+     * getPriorityQueueCapacities() if set, otherwise getMaxQueueSize() split
+     * evenly across the lanes (see AbstractSyslogConfigIF.setUsePriorityQueue(..))
+     */
+    protected int[] getLaneCapacities() {
+        int[] capacities = this.syslogConfig.getPriorityQueueCapacities();
+
+        if (capacities != null) {
+            if (capacities.length != SyslogLevel.values().length) {
+                throw new SyslogRuntimeException("priorityQueueCapacities requires a capacity for each SyslogLevel");
+            }
+
+            return capacities;
+        }
+
+        int maxQueueSize = this.syslogConfig.getMaxQueueSize();
+
+        if (maxQueueSize <= 0 && this.syslogConfig.isUseRingBufferQueue()) {
+            maxQueueSize = RING_BUFFER_QUEUE_SIZE_DEFAULT;
+        }
+
+        capacities = new int[SyslogLevel.values().length];
+
+        for(int i=0; i<capacities.length; i++) {
+            if (maxQueueSize <= 0) {
+                capacities[i] = maxQueueSize;
 
             } else {
-                this.syslog.backLog(level,SyslogUtility.newString(syslogConfig,message),"MaxQueueSize (" + this.syslogConfig.getMaxQueueSize() + ") reached");
+                capacities[i] = Math.max(1,maxQueueSize / capacities.length + (i < maxQueueSize % capacities.length ? 1 : 0));
+            }
+        }
+
+        return capacities;
+    }
+
+    /**
+     * @param capacity - maximum number of queued messages, or -1 for no bound
+     * (a ring buffer then holds RING_BUFFER_QUEUE_SIZE_DEFAULT messages)
+     */
+    protected SyslogQueueIF createLaneQueue(int capacity) {
+        if (this.syslogConfig.isUseRingBufferQueue()) {
+            return new RingBufferSyslogQueue(capacity > 0 ? capacity : RING_BUFFER_QUEUE_SIZE_DEFAULT);
+        }
+
+        return new LinkedListSyslogQueue(capacity);
+    }
+
+    /**
+     * @return the most messages the writer thread takes from the queue at once;
+     * bounded with priority lanes, so that messages of a more severe level
+     * queued while a batch is written are not held up behind a full lane
+     */
+    protected int getDrainBatchSize() {
+        if (this.syslogConfig.isUsePriorityQueue()) {
+            return PRIORITY_QUEUE_DRAIN_BATCH_SIZE;
+        }
+
+        return Integer.MAX_VALUE;
+    }
+
+    public void queue(SyslogLevel level, byte[] message) {
+        if (!this.queuedMessages.offer(level,message) && !this.queueOverflowPolicy.overflow(this,level,message)) {
+            return;
+        }
+
+        int state = this.waitState;
+
+        if (state == WAIT_STATE_IDLE || (state == WAIT_STATE_LINGERING && this.queuedMessages.size() >= this.syslogConfig.getThreadLingerMessages())) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Signals the writer thread, if it is parked waiting for messages.
+     */
+    public void wakeUp() {
+        Thread writerThread = this.thread;
+
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Called by the writer thread between queue drains.  Either sleeps for
+     * threadLoopInterval (the default) or, in threadWakeUp mode, parks until a
+     * message is queued and then lingers for up to threadLingerTime.
+     */
+    protected void waitForMessages() {
+        if (!this.syslogConfig.isThreadWakeUp()) {
+            SyslogUtility.sleep(this.syslogConfig.getThreadLoopInterval());
+            return;
+        }
+
+        try {
+            awaitMessage();
+
+            long lingerTime = this.syslogConfig.getThreadLingerTime();
+
+            if (lingerTime > 0 && !this.queuedMessages.isEmpty()) {
+                this.waitState = WAIT_STATE_LINGERING;
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerTime);
+                long remaining = deadline - System.nanoTime();
+
+                while(remaining > 0 && !this.shutdown && this.queuedMessages.size() < this.syslogConfig.getThreadLingerMessages()) {
+                    LockSupport.parkNanos(this,remaining);
+                    remaining = deadline - System.nanoTime();
+                }
             }
+
+        } finally {
+            this.waitState = WAIT_STATE_RUNNING;
+        }
+    }
+
+    /**
+     * Parks the writer thread for up to threadLoopInterval, returning early
+     * when queue(..) signals that a message is available.
+     */
+    protected void awaitMessage() {
+        try {
+            this.waitState = WAIT_STATE_IDLE;
+
+            if (this.queuedMessages.isEmpty() && !this.shutdown) {
+                LockSupport.parkNanos(this,TimeUnit.MILLISECONDS.toNanos(this.syslogConfig.getThreadLoopInterval()));
+            }
+
+        } finally {
+            this.waitState = WAIT_STATE_RUNNING;
         }
     }
 
@@ -89,33 +334,125 @@ public abstract class AbstractSyslogWriter implements Runnable {
 
     protected abstract void runCompleted();
 
+    /**
+     * @return the number of milliseconds the writer thread should leave
+     * messages queued before writing them, such as while the destination is
+     * known to be down; 0 (the default) to write them now
+     */
+    protected long getWriteDelay() {
+        return 0;
+    }
+
+    /**
+     * Writes messages drained from the queue by the writer thread, backlogging
+     * any message that cannot be written.  Writers able to send several messages
+     * at once may override this method.
+     *
+     * @param messages - drained messages, in queue order
+     */
+    protected void writeQueuedMessages(List<byte []> messages) {
+        for(int i=0; i<messages.size(); i++) {
+            byte[] message = messages.get(i);
+
+            try {
+                write(message);
+
+                this.syslog.setBackLogStatus(false);
+
+            } catch (SyslogRuntimeException sre) {
+                if (backLogQueuedMessages(messages,i,i + 1,sre)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles queued messages, from start (inclusive) to end (exclusive), that
+     * could not be written.  When spilling is enabled, these and all following
+     * messages are held for retry, so that they are sent in order; otherwise
+     * they are backlogged, along with all following messages if getWriteDelay()
+     * shows the destination is down.
+     *
+     * @return true if the caller must stop writing messages, as they are held for retry
+     */
+    protected boolean backLogQueuedMessages(List<byte []> messages, int start, int end, SyslogRuntimeException sre) {
+        if (this.spillQueue != null) {
+            this.spillQueue.retry(messages.subList(start,messages.size()));
+            return true;
+        }
+
+        boolean down = getWriteDelay() > 0;
+
+        for(int i=start; i<(down ? messages.size() : end); i++) {
+            this.syslog.backLogPacket(SyslogLevel.INFO, SyslogUtility.newString(this.syslogConfig, messages.get(i)), sre);
+        }
+
+        return down;
+    }
+
+    /**
+     * Called when shutting down with messages that could not be sent; keeps
+     * them in the spill files, backlogging any that do not fit.
+     */
+    protected void spillOnShutdown() {
+        List<byte []> unspilled = Lists.newArrayList();
+
+        this.spillQueue.spillAll(unspilled);
+
+        for(byte[] message : unspilled) {
+            this.syslog.backLogPacket(SyslogLevel.INFO, SyslogUtility.newString(this.syslogConfig, message), "Spill files full at shutdown");
+        }
+    }
+
     public void run() {
+        List<byte []> queuedMessagesCopy = Lists.newArrayList();
+
+        int drainBatchSize = getDrainBatchSize();
+
+        // the writer thread is started before the message that caused its
+        // creation is queued; wait for it rather than a full loop interval
+        awaitMessage();
+
         while(!this.shutdown || !this.queuedMessages.isEmpty()) {
-            List<byte []> queuedMessagesCopy = null;
+            long writeDelay = this.shutdown ? 0 : getWriteDelay();
 
-            synchronized(this.queuedMessages) {
-                queuedMessagesCopy = Lists.newLinkedList(this.queuedMessages);
-                this.queuedMessages.clear();
+            if (writeDelay > 0) {
+                SyslogUtility.sleep(Math.min(writeDelay,this.syslogConfig.getThreadLoopInterval()));
+                continue;
             }
 
-            if (queuedMessagesCopy != null) {
-                while(!queuedMessagesCopy.isEmpty()) {
-                    byte[] message = (byte[]) queuedMessagesCopy.remove(0);
+            int drained = this.queuedMessages.drainTo(queuedMessagesCopy,drainBatchSize);
 
-                    try {
-                        write(message);
+            if (!queuedMessagesCopy.isEmpty()) {
+                writeQueuedMessages(queuedMessagesCopy);
+                queuedMessagesCopy.clear();
 
-                        this.syslog.setBackLogStatus(false);
+                this.queueOverflowPolicy.drained(this);
+            }
 
-                    } catch (SyslogRuntimeException sre) {
-                        this.syslog.backLog(SyslogLevel.INFO, SyslogUtility.newString(this.syslog.getConfig(), message), sre);
-                    }
+            if (this.spillQueue != null && this.spillQueue.hasRetryMessages()) {
+                if (this.shutdown) {
+                    spillOnShutdown();
+                    break;
                 }
+
+                SyslogUtility.sleep(this.syslogConfig.getThreadLoopInterval());
+                continue;
             }
 
-            SyslogUtility.sleep(this.syslogConfig.getThreadLoopInterval());
+            if (drained >= drainBatchSize) {
+                // a full batch; more messages are likely waiting
+                continue;
+            }
+
+            waitForMessages();
         }
 
         runCompleted();
+
+        if (this.spillQueue != null) {
+            this.spillQueue.getStore().close();
+        }
     }
 }
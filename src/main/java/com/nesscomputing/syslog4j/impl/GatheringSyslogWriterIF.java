@@ -0,0 +1,38 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl;
+
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+
+/**
+* GatheringSyslogWriterIF is implemented by AbstractSyslogWriter implementations
+* that can send the parts of a syslog packet (header, message slice and split
+* texts) directly, without first concatenating them with
+* SyslogMessageProcessorIF.createPacketData(..).
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public interface GatheringSyslogWriterIF {
+    /**
+     * Writes header, the given slice of message and, if not null, the split
+     * begin/end texts as one packet.  Implementations must not keep references
+     * to the given arrays after returning.
+     *
+     * @throws SyslogRuntimeException
+     */
+    public void write(byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) throws SyslogRuntimeException;
+}
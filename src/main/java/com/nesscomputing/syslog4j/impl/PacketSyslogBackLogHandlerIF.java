@@ -0,0 +1,41 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl;
+
+import com.nesscomputing.syslog4j.SyslogBackLogHandlerIF;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+
+/**
+* PacketSyslogBackLogHandlerIF is implemented by SyslogBackLogHandlerIF
+* implementations that need to tell complete syslog packets, backlogged by
+* writers after the header was added, from messages backlogged before any
+* header was added.  Other handlers receive both through log(..).
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public interface PacketSyslogBackLogHandlerIF extends SyslogBackLogHandlerIF {
+    /**
+     * @param syslog - SyslogIF instance which cannot handle this packet
+     * @param level - message level
+     * @param packet - complete packet, header included (in String form)
+     * @param reason - reason given for why this packet could not be handled
+     * @throws SyslogRuntimeException - throwing this Exception activates the next backlogHandler in the chain
+     */
+    public void logPacket(SyslogIF syslog, SyslogLevel level, String packet, String reason) throws SyslogRuntimeException;
+}
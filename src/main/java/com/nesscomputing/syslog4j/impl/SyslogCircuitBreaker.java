@@ -0,0 +1,125 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+* SyslogCircuitBreaker records that the destination of an AbstractSyslog is
+* unreachable, so that writers fail fast instead of attempting to connect for
+* every message.
+*
+* <p>While the breaker is open, a single background thread probes the
+* destination (see AbstractSyslog.probe()), doubling the interval between
+* probes from initialBackoff up to maxBackoff, and closes the breaker once a
+* probe succeeds.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class SyslogCircuitBreaker {
+    private static final Logger LOG = Logger.getLogger(SyslogCircuitBreaker.class);
+
+    protected final AbstractSyslog syslog;
+
+    protected final long initialBackoff;
+    protected final long maxBackoff;
+
+    protected volatile boolean open = false;
+
+    protected Thread probeThread = null;
+
+    protected final AtomicLong openCount = new AtomicLong(0);
+
+    /**
+     * @param syslog - instance whose destination is probed
+     * @param initialBackoff - delay before the first probe, in milliseconds
+     * @param maxBackoff - maximum delay between probes, in milliseconds
+     */
+    public SyslogCircuitBreaker(AbstractSyslog syslog, long initialBackoff, long maxBackoff) {
+        this.syslog = syslog;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    public synchronized void open() {
+        if (this.open) {
+            return;
+        }
+
+        this.open = true;
+        this.openCount.incrementAndGet();
+
+        if (this.probeThread == null) {
+            this.probeThread = new Thread(new Prober());
+            this.probeThread.setName("SyslogCircuitBreaker: " + this.syslog.getProtocol());
+            this.probeThread.setDaemon(true);
+            this.probeThread.start();
+        }
+    }
+
+    public void close() {
+        this.open = false;
+    }
+
+    /**
+     * @return the number of times the breaker has opened
+     */
+    public long getOpenCount() {
+        return this.openCount.get();
+    }
+
+    protected class Prober implements Runnable {
+        public void run() {
+            long backoff = SyslogCircuitBreaker.this.initialBackoff;
+
+            while(true) {
+                synchronized(SyslogCircuitBreaker.this) {
+                    if (!SyslogCircuitBreaker.this.open) {
+                        SyslogCircuitBreaker.this.probeThread = null;
+                        return;
+                    }
+                }
+
+                LockSupport.parkNanos(this,TimeUnit.MILLISECONDS.toNanos(backoff));
+
+                if (!SyslogCircuitBreaker.this.open) {
+                    continue;
+                }
+
+                try {
+                    if (SyslogCircuitBreaker.this.syslog.probe()) {
+                        close();
+                        continue;
+                    }
+
+                } catch (RuntimeException re) {
+                    LOG.trace("Probe failed",re);
+                }
+
+                backoff = Math.min(backoff * 2,SyslogCircuitBreaker.this.maxBackoff);
+            }
+        }
+    }
+}
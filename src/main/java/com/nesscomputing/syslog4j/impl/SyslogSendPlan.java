@@ -0,0 +1,286 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl;
+
+import static com.nesscomputing.syslog4j.SyslogConstants.IDENT_SUFFIX_DEFAULT;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
+import com.nesscomputing.syslog4j.impl.message.modifier.StringSyslogMessageModifierAdapter;
+import com.nesscomputing.syslog4j.impl.message.processor.AbstractSyslogMessageProcessor;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+* SyslogSendPlan is an immutable snapshot of the settings AbstractSyslog uses
+* to render each message: the ident prefix, the message modifiers, the header
+* settings and the split settings.
+*
+* <p>AbstractSyslog builds a new plan whenever getVersion() of its
+* configuration changes, and reads every message's settings from the current
+* plan rather than from the configuration.  When the local timestamp is not
+* sent, the header of each level is built once along with the plan.</p>
+*
+* <p>When any message modifier implements SyslogByteMessageModifierIF, the plan
+* also holds the byte modifier chain: the byte modifiers in order, with each run
+* of String-only modifiers between them wrapped in one
+* StringSyslogMessageModifierAdapter.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class SyslogSendPlan {
+    protected static final SyslogMessageModifierIF[] NO_MESSAGE_MODIFIERS = new SyslogMessageModifierIF[0];
+
+    protected final int version;
+
+    protected final List<? extends SyslogMessageModifierIF> messageModifierList;
+    protected final int messageModifierCount;
+    protected final SyslogMessageModifierIF[] messageModifiers;
+    protected final SyslogByteMessageModifierIF[] byteMessageModifiers;
+
+    protected final String identPrefix;
+    protected final byte[] identPrefixBytes;
+    protected final boolean includeIdentInMessageModifier;
+
+    protected final SyslogFacility facility;
+    protected final String localName;
+    protected final boolean sendLocalTimestamp;
+    protected final boolean sendLocalName;
+
+    protected final int maxMessageLength;
+    protected final boolean truncateMessage;
+    protected final byte[] splitMessageBeginText;
+    protected final byte[] splitMessageEndText;
+
+    protected final boolean useStructuredData;
+
+    protected final SyslogMessageProcessorIF headerMessageProcessor;
+    protected final byte[][] headers;
+
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public SyslogSendPlan(AbstractSyslogConfigIF config, SyslogMessageProcessorIF messageProcessor) {
+        //  read the version first, so that a change made while the plan is
+        //  being built leaves the plan out of date rather than missed
+        this.version = config.getVersion();
+
+        this.messageModifierList = config.getMessageModifiers();
+
+        if (this.messageModifierList != null) {
+            synchronized(this.messageModifierList) {
+                this.messageModifierCount = this.messageModifierList.size();
+                this.messageModifiers = this.messageModifierList.toArray(new SyslogMessageModifierIF[this.messageModifierCount]);
+            }
+
+        } else {
+            this.messageModifierCount = 0;
+            this.messageModifiers = NO_MESSAGE_MODIFIERS;
+        }
+
+        this.byteMessageModifiers = isAppendable(config.getCharSet()) ? createByteMessageModifiers(this.messageModifiers) : null;
+
+        String ident = config.getIdent();
+
+        this.identPrefix = StringUtils.isBlank(ident) ? null : (ident + IDENT_SUFFIX_DEFAULT);
+        this.identPrefixBytes = this.identPrefix == null ? null : SyslogUtility.getBytes(config,this.identPrefix);
+        this.includeIdentInMessageModifier = config.isIncludeIdentInMessageModifier();
+
+        this.facility = config.getFacility();
+        this.localName = config.getLocalName();
+        this.sendLocalTimestamp = config.isSendLocalTimestamp();
+        this.sendLocalName = config.isSendLocalName();
+
+        this.maxMessageLength = config.getMaxMessageLength();
+        this.truncateMessage = config.isTruncateMessage();
+        this.splitMessageBeginText = config.getSplitMessageBeginText();
+        this.splitMessageEndText = config.getSplitMessageEndText();
+
+        this.useStructuredData = config.isUseStructuredData();
+
+        if (!this.sendLocalTimestamp && messageProcessor instanceof AbstractSyslogMessageProcessor && ((AbstractSyslogMessageProcessor) messageProcessor).isCachingHeader()) {
+            AbstractSyslogMessageProcessor abstractMessageProcessor = (AbstractSyslogMessageProcessor) messageProcessor;
+
+            SyslogLevel[] levels = SyslogLevel.values();
+
+            this.headerMessageProcessor = messageProcessor;
+            this.headers = new byte[levels.length][];
+
+            for(int i=0; i<levels.length; i++) {
+                this.headers[i] = abstractMessageProcessor.createSyslogHeaderBytes(config,this.facility,levels[i],this.localName,null,false,this.sendLocalName);
+            }
+
+        } else {
+            this.headerMessageProcessor = null;
+            this.headers = null;
+        }
+    }
+
+    /**
+     * @return false if charSet encodes a String differently from its parts
+     * encoded one after another, as "UTF-16" does by starting each with a byte
+     * order mark; byte modifiers are not used with such character sets
+     */
+    protected static boolean isAppendable(Charset charSet) {
+        return "aa".getBytes(charSet).length == 2 * "a".getBytes(charSet).length;
+    }
+
+    /**
+     * @return the byte modifier chain for messageModifiers, or null if none of
+     * them is a SyslogByteMessageModifierIF
+     */
+    protected static SyslogByteMessageModifierIF[] createByteMessageModifiers(SyslogMessageModifierIF[] messageModifiers) {
+        boolean modifyingBytes = false;
+
+        for(SyslogMessageModifierIF messageModifier: messageModifiers) {
+            if (messageModifier instanceof SyslogByteMessageModifierIF) {
+                modifyingBytes = true;
+                break;
+            }
+        }
+
+        if (!modifyingBytes) {
+            return null;
+        }
+
+        List<SyslogByteMessageModifierIF> chain = Lists.newArrayList();
+        List<SyslogMessageModifierIF> stringModifiers = Lists.newArrayList();
+
+        for(SyslogMessageModifierIF messageModifier: messageModifiers) {
+            if (messageModifier instanceof SyslogByteMessageModifierIF) {
+                if (!stringModifiers.isEmpty()) {
+                    chain.add(new StringSyslogMessageModifierAdapter(stringModifiers.toArray(new SyslogMessageModifierIF[stringModifiers.size()])));
+                    stringModifiers.clear();
+                }
+
+                chain.add((SyslogByteMessageModifierIF) messageModifier);
+
+            } else {
+                stringModifiers.add(messageModifier);
+            }
+        }
+
+        if (!stringModifiers.isEmpty()) {
+            chain.add(new StringSyslogMessageModifierAdapter(stringModifiers.toArray(new SyslogMessageModifierIF[stringModifiers.size()])));
+        }
+
+        return chain.toArray(new SyslogByteMessageModifierIF[chain.size()]);
+    }
+
+    /**
+     * @return false if config has changed since this plan was built
+     */
+    public boolean isCurrent(AbstractSyslogConfigIF config) {
+        if (this.version != config.getVersion()) {
+            return false;
+        }
+
+        //  the modifier list may also be changed directly
+        List<? extends SyslogMessageModifierIF> _messageModifierList = config.getMessageModifiers();
+
+        return _messageModifierList == this.messageModifierList && (_messageModifierList == null || _messageModifierList.size() == this.messageModifierCount);
+    }
+
+    public String prefixMessage(String message) {
+        return this.identPrefix == null ? message : this.identPrefix.concat(message);
+    }
+
+    /**
+     * @return the header built with the plan for level, or null if messageProcessor
+     * is not the one it was built with, or the header varies from message to message
+     */
+    public byte[] getHeader(SyslogMessageProcessorIF messageProcessor, SyslogLevel level) {
+        if (this.headers == null || messageProcessor != this.headerMessageProcessor) {
+            return null;
+        }
+
+        return this.headers[level.ordinal()];
+    }
+
+    public SyslogMessageModifierIF[] getMessageModifiers() {
+        return this.messageModifiers;
+    }
+
+    /**
+     * @return true if messages are modified through getByteMessageModifiers()
+     */
+    public boolean isModifyingBytes() {
+        return this.byteMessageModifiers != null;
+    }
+
+    public SyslogByteMessageModifierIF[] getByteMessageModifiers() {
+        return this.byteMessageModifiers;
+    }
+
+    /**
+     * @return the ident prefix encoded in the configured charset, or null if there is no ident
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getIdentPrefixBytes() {
+        return this.identPrefixBytes;
+    }
+
+    public boolean isIncludeIdentInMessageModifier() {
+        return this.includeIdentInMessageModifier;
+    }
+
+    public SyslogFacility getFacility() {
+        return this.facility;
+    }
+
+    public String getLocalName() {
+        return this.localName;
+    }
+
+    public boolean isSendLocalTimestamp() {
+        return this.sendLocalTimestamp;
+    }
+
+    public boolean isSendLocalName() {
+        return this.sendLocalName;
+    }
+
+    public int getMaxMessageLength() {
+        return this.maxMessageLength;
+    }
+
+    public boolean isTruncateMessage() {
+        return this.truncateMessage;
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getSplitMessageBeginText() {
+        return this.splitMessageBeginText;
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getSplitMessageEndText() {
+        return this.splitMessageEndText;
+    }
+
+    public boolean isUseStructuredData() {
+        return this.useStructuredData;
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.backlog;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Charsets;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.impl.PacketSyslogBackLogHandlerIF;
+
+/**
+* ReplayingSyslogBackLogHandler keeps backlogged messages in a bounded buffer
+* and, once the Syslog instance is up again, replays them through it on a
+* background thread, at up to replayRate messages per second.
+*
+* <p>Messages are held UTF-8 encoded in a single heap or direct ByteBuffer;
+* messages that do not fit are dropped and counted.  Replay stops if the
+* instance goes down again, and resumes from the same message when it is next
+* up.  Complete packets, backlogged by writers, are recorded as such and
+* replayed as they are; other messages are sent through the message processor
+* again.  Use one handler for each Syslog instance.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class ReplayingSyslogBackLogHandler extends AbstractSyslogBackLogHandler implements PacketSyslogBackLogHandlerIF {
+    private static final Logger LOG = Logger.getLogger(ReplayingSyslogBackLogHandler.class);
+
+    public static final int RECORD_HEADER_LENGTH = 6;
+
+    protected final ByteBuffer buffer;
+    protected int readPosition = 0;
+    protected int count = 0;
+
+    protected final int replayRate;
+
+    protected final AtomicLong droppedCount = new AtomicLong(0);
+    protected final AtomicLong replayedCount = new AtomicLong(0);
+
+    protected volatile boolean down = false;
+    protected Thread replayThread = null;
+
+    /**
+     * @param capacity - buffer size, in bytes
+     * @param direct - true to allocate the buffer outside the heap
+     * @param replayRate - maximum messages replayed per second, or 0 for no limit
+     */
+    public ReplayingSyslogBackLogHandler(int capacity, boolean direct, int replayRate) {
+        this.buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        this.replayRate = replayRate;
+
+        initialize();
+    }
+
+    public void initialize() throws SyslogRuntimeException {
+        //
+    }
+
+    public void down(SyslogIF syslog, String reason) {
+        this.down = true;
+    }
+
+    public synchronized void up(SyslogIF syslog) {
+        this.down = false;
+
+        if (this.count == 0 || this.replayThread != null) {
+            return;
+        }
+
+        this.replayThread = new Thread(new Replayer(syslog));
+        this.replayThread.setName("SyslogBackLogReplay: " + syslog.getProtocol());
+        this.replayThread.setDaemon(true);
+        this.replayThread.start();
+    }
+
+    public void log(SyslogIF syslog, SyslogLevel level, String message, String reason) throws SyslogRuntimeException {
+        log(level,message,false);
+    }
+
+    public void logPacket(SyslogIF syslog, SyslogLevel level, String packet, String reason) throws SyslogRuntimeException {
+        log(level,packet,true);
+    }
+
+    protected void log(SyslogLevel level, String message, boolean packet) {
+        if (message == null) {
+            return;
+        }
+
+        byte[] data = message.getBytes(Charsets.UTF_8);
+
+        if (!append(level,data,packet)) {
+            this.droppedCount.incrementAndGet();
+        }
+    }
+
+    protected synchronized boolean append(SyslogLevel level, byte[] data, boolean packet) {
+        int recordLength = RECORD_HEADER_LENGTH + data.length;
+
+        if (this.buffer.remaining() < recordLength && this.readPosition > 0) {
+            int position = this.buffer.position();
+
+            this.buffer.position(this.readPosition);
+            this.buffer.limit(position);
+            this.buffer.compact();
+
+            this.readPosition = 0;
+        }
+
+        if (this.buffer.remaining() < recordLength) {
+            return false;
+        }
+
+        this.buffer.put((byte) (level != null ? level.getValue() : -1));
+        this.buffer.put((byte) (packet ? 1 : 0));
+        this.buffer.putInt(data.length);
+        this.buffer.put(data);
+
+        this.count++;
+
+        return true;
+    }
+
+    /**
+     * Entry is a buffered message, as returned by peek().
+     */
+    protected static class Entry {
+        protected final SyslogLevel level;
+        protected final String message;
+        protected final boolean packet;
+
+        protected Entry(SyslogLevel level, String message, boolean packet) {
+            this.level = level;
+            this.message = message;
+            this.packet = packet;
+        }
+
+        public SyslogLevel getLevel() {
+            return this.level;
+        }
+
+        public String getMessage() {
+            return this.message;
+        }
+
+        public boolean isPacket() {
+            return this.packet;
+        }
+    }
+
+    /**
+     * @return the oldest buffered message, or null if there is none
+     */
+    protected synchronized Entry peek() {
+        if (this.count == 0) {
+            return null;
+        }
+
+        int levelValue = this.buffer.get(this.readPosition);
+        boolean packet = this.buffer.get(this.readPosition + 1) != 0;
+        int length = this.buffer.getInt(this.readPosition + 2);
+
+        byte[] data = new byte[length];
+
+        ByteBuffer slice = this.buffer.duplicate();
+        slice.position(this.readPosition + RECORD_HEADER_LENGTH);
+        slice.get(data);
+
+        return new Entry(SyslogLevel.forValue(levelValue),new String(data,Charsets.UTF_8),packet);
+    }
+
+    protected synchronized void remove() {
+        int length = this.buffer.getInt(this.readPosition + 2);
+
+        this.readPosition += RECORD_HEADER_LENGTH + length;
+        this.count--;
+
+        if (this.count == 0) {
+            this.buffer.clear();
+            this.readPosition = 0;
+        }
+    }
+
+    /**
+     * Called by the replay thread before it exits; the thread carries on instead
+     * if the instance is up and messages were buffered after it last looked, as
+     * up() only starts a new thread once this one has ended.
+     *
+     * @param failed - true if a replay failed, in which case the thread always exits
+     * @return true if the replay thread is to exit
+     */
+    protected synchronized boolean endReplay(boolean failed) {
+        if (!failed && !this.down && this.count > 0) {
+            return false;
+        }
+
+        this.replayThread = null;
+
+        return true;
+    }
+
+    protected void replay(SyslogIF syslog, SyslogLevel level, String message, boolean packet) throws SyslogRuntimeException {
+        if (syslog instanceof AbstractSyslog) {
+            if (packet) {
+                ((AbstractSyslog) syslog).replayPacket(level,message);
+
+            } else {
+                ((AbstractSyslog) syslog).replay(level,message);
+            }
+
+        } else {
+            syslog.log(level != null ? level : SyslogLevel.INFO,message);
+        }
+    }
+
+    protected class Replayer implements Runnable {
+        protected final SyslogIF syslog;
+
+        protected Replayer(SyslogIF syslog) {
+            this.syslog = syslog;
+        }
+
+        public void run() {
+            long interval = ReplayingSyslogBackLogHandler.this.replayRate > 0 ? TimeUnit.SECONDS.toNanos(1) / ReplayingSyslogBackLogHandler.this.replayRate : 0;
+            long next = System.nanoTime();
+
+            while(true) {
+                Entry entry = ReplayingSyslogBackLogHandler.this.down ? null : peek();
+
+                if (entry == null) {
+                    if (endReplay(false)) {
+                        break;
+                    }
+
+                    continue;
+                }
+
+                try {
+                    replay(this.syslog,entry.getLevel(),entry.getMessage(),entry.isPacket());
+
+                } catch (SyslogRuntimeException sre) {
+                    LOG.trace("Replay failed, waiting for the next up()",sre);
+                    endReplay(true);
+                    break;
+                }
+
+                remove();
+                ReplayingSyslogBackLogHandler.this.replayedCount.incrementAndGet();
+
+                if (interval > 0) {
+                    next += interval;
+
+                    long wait = next - System.nanoTime();
+
+                    if (wait > 0) {
+                        LockSupport.parkNanos(this,wait);
+
+                    } else {
+                        next = System.nanoTime();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of messages waiting to be replayed
+     */
+    public synchronized int getBufferedCount() {
+        return this.count;
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    public long getReplayedCount() {
+        return this.replayedCount.get();
+    }
+
+    public int getReplayRate() {
+        return this.replayRate;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.message.modifier;
+
+import java.nio.charset.Charset;
+
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
+
+/**
+* StringSyslogMessageModifierAdapter runs one or more String-only message
+* modifiers as a SyslogByteMessageModifierIF.
+*
+* <p>The buffer is decoded once, each modifier is applied to the String in
+* turn, and the result is encoded back into the buffer once.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class StringSyslogMessageModifierAdapter implements SyslogByteMessageModifierIF {
+    protected final SyslogMessageModifierIF[] messageModifiers;
+
+    public StringSyslogMessageModifierAdapter(SyslogMessageModifierIF... messageModifiers) {
+        this.messageModifiers = messageModifiers.clone();
+    }
+
+    public SyslogMessageModifierIF[] getMessageModifiers() {
+        return this.messageModifiers.clone();
+    }
+
+    @Override
+    public String modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, String message) {
+        String modifiedMessage = message;
+
+        for(SyslogMessageModifierIF messageModifier: this.messageModifiers) {
+            modifiedMessage = messageModifier.modify(syslog,facility,level,modifiedMessage);
+        }
+
+        return modifiedMessage;
+    }
+
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        Charset charSet = syslog.getConfig().getCharSet();
+
+        String message = modify(syslog,facility,level,buffer.toString(charSet));
+
+        buffer.encode(charSet,message);
+    }
+
+    public boolean verify(String message) {
+        // NO-OP
+        return true;
+    }
+}
@@ -14,12 +14,14 @@
  */
 package com.nesscomputing.syslog4j.impl.message.modifier.checksum;
 
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogCharSetIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.message.modifier.AbstractSyslogMessageModifier;
-import com.nesscomputing.syslog4j.util.SyslogUtility;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
 
 /**
 * ChecksumSyslogMessageModifier is an implementation of SyslogMessageModifierIF
@@ -32,7 +34,7 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: ChecksumSyslogMessageModifier.java,v 1.5 2010/10/28 05:10:57 cvs Exp $
 */
-public class ChecksumSyslogMessageModifier extends AbstractSyslogMessageModifier {
+public class ChecksumSyslogMessageModifier extends AbstractSyslogMessageModifier implements SyslogByteMessageModifierIF {
     protected ChecksumSyslogMessageModifierConfig config = null;
 
     public static final ChecksumSyslogMessageModifier createCRC32() {
@@ -85,9 +87,7 @@ public class ChecksumSyslogMessageModifier extends AbstractSyslogMessageModifier
         synchronized(this.config.getChecksum()) {
             this.config.getChecksum().reset();
 
-            byte[] messageBytes = SyslogUtility.getBytes(this.config,message);
-
-            this.config.getChecksum().update(messageBytes,0,message.length());
+            update(this.config,message);
 
             return this.config.getChecksum().getValue() == checksum;
         }
@@ -98,13 +98,11 @@ public class ChecksumSyslogMessageModifier extends AbstractSyslogMessageModifier
         synchronized(this.config.getChecksum()) {
             StringBuffer messageBuffer = new StringBuffer(message);
 
-            byte[] messageBytes = SyslogUtility.getBytes(syslog.getConfig(),message);
-
             if (!this.config.isContinuous()) {
                 this.config.getChecksum().reset();
             }
 
-            this.config.getChecksum().update(messageBytes,0,message.length());
+            update(syslog.getConfig(),message);
 
             messageBuffer.append(this.config.getPrefix());
             messageBuffer.append(Long.toHexString(this.config.getChecksum().getValue()).toUpperCase());
@@ -113,4 +111,37 @@ public class ChecksumSyslogMessageModifier extends AbstractSyslogMessageModifier
             return messageBuffer.toString();
         }
     }
+
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        String checksum = null;
+
+        synchronized(this.config.getChecksum()) {
+            if (!this.config.isContinuous()) {
+                this.config.getChecksum().reset();
+            }
+
+            this.config.getChecksum().update(buffer.getBuffer(),0,buffer.getLength());
+
+            checksum = Long.toHexString(this.config.getChecksum().getValue()).toUpperCase();
+        }
+
+        buffer.append(syslog.getConfig().getCharSet(),this.config.getPrefix() + checksum + this.config.getSuffix());
+    }
+
+    /**
+     * Must be called while holding the lock on the checksum.
+     */
+    protected void update(SyslogCharSetIF syslogCharSet, String message) {
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+        try {
+            int length = encodingBuffer.encode(syslogCharSet,message);
+
+            this.config.getChecksum().update(encodingBuffer.getBuffer(),0,length);
+
+        } finally {
+            encodingBuffer.release();
+        }
+    }
 }
@@ -14,22 +14,28 @@
  */
 package com.nesscomputing.syslog4j.impl.message.modifier.hash;
 
+import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
 
+import com.google.common.base.Charsets;
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogCharSetIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.message.modifier.AbstractSyslogMessageModifier;
 import com.nesscomputing.syslog4j.util.Base64;
-import com.nesscomputing.syslog4j.util.SyslogUtility;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
 
 /**
 * HashSyslogMessageModifier is an implementation of SyslogMessageModifierIF
 * that provides support for Java Cryptographic hashes (MD5, SHA1, SHA256, etc.).
 *
+* <p>Each thread keeps its own MessageDigest, which is reused for modify(..)
+* and verify(..) until the configured algorithm changes.</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -37,9 +43,11 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: HashSyslogMessageModifier.java,v 1.5 2010/10/28 05:10:57 cvs Exp $
 */
-public class HashSyslogMessageModifier extends AbstractSyslogMessageModifier {
+public class HashSyslogMessageModifier extends AbstractSyslogMessageModifier implements SyslogByteMessageModifierIF {
     protected HashSyslogMessageModifierConfig config = null;
 
+    protected final ThreadLocal<MessageDigest> threadDigest = new ThreadLocal<MessageDigest>();
+
     public static final HashSyslogMessageModifier createMD5() {
         HashSyslogMessageModifier md5 = new HashSyslogMessageModifier(HashSyslogMessageModifierConfig.createMD5());
 
@@ -88,15 +96,24 @@ public class HashSyslogMessageModifier extends AbstractSyslogMessageModifier {
         }
 
         try {
-            MessageDigest.getInstance(config.getHashAlgorithm());
+            this.threadDigest.set(MessageDigest.getInstance(config.getHashAlgorithm()));
 
         } catch (NoSuchAlgorithmException nsae){
             throw new SyslogRuntimeException(nsae);
         }
     }
 
+    /**
+     * @return the calling thread's MessageDigest for the configured algorithm,
+     * created on first use and reset before it is returned again
+     */
     protected MessageDigest obtainMessageDigest() {
-        MessageDigest digest = null;
+        MessageDigest digest = this.threadDigest.get();
+
+        if (digest != null && digest.getAlgorithm().equals(this.config.getHashAlgorithm())) {
+            digest.reset();
+            return digest;
+        }
 
         try {
             digest = MessageDigest.getInstance(this.config.getHashAlgorithm());
@@ -105,6 +122,8 @@ public class HashSyslogMessageModifier extends AbstractSyslogMessageModifier {
             throw new SyslogRuntimeException(nsae);
         }
 
+        this.threadDigest.set(digest);
+
         return digest;
     }
 
@@ -114,20 +133,45 @@ public class HashSyslogMessageModifier extends AbstractSyslogMessageModifier {
 
     @Override
     public String modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, String message) {
-        byte[] messageBytes = SyslogUtility.getBytes(syslog.getConfig(),message);
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
 
-        MessageDigest digest = obtainMessageDigest();
-        byte[] digestBytes = digest.digest(messageBytes);
+        try {
+            int length = encodingBuffer.encode(syslog.getConfig(),message);
+
+            byte[] digestBytes = digest(encodingBuffer.getBuffer(),0,length);
+
+            //  the Base64 notation is written after the message bytes and copied out as chars
+            int digestLength = encodingBuffer.appendBase64(Charsets.US_ASCII,digestBytes,0,digestBytes.length);
+
+            StringBuilder builder = new StringBuilder(message.length() + this.config.getPrefix().length() + digestLength + this.config.getSuffix().length());
+
+            builder.append(message);
+            builder.append(this.config.getPrefix());
+
+            byte[] b = encodingBuffer.getBuffer();
+
+            for(int i=length; i<length + digestLength; i++) {
+                builder.append((char) b[i]);
+            }
+
+            builder.append(this.config.getSuffix());
 
-        String digestString = Base64.encodeBytes(digestBytes,Base64.DONT_BREAK_LINES);
+            return builder.toString();
 
-        StringBuffer buffer = new StringBuffer(message);
+        } finally {
+            encodingBuffer.release();
+        }
+    }
+
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        byte[] digestBytes = digest(buffer.getBuffer(),0,buffer.getLength());
 
-        buffer.append(this.config.getPrefix());
-        buffer.append(digestString);
-        buffer.append(this.config.getSuffix());
+        Charset charSet = syslog.getConfig().getCharSet();
 
-        return buffer.toString();
+        buffer.append(charSet,this.config.getPrefix());
+        buffer.appendBase64(charSet,digestBytes,0,digestBytes.length);
+        buffer.append(charSet,this.config.getSuffix());
     }
 
     public boolean verify(String message, String base64Hash) {
@@ -137,11 +181,29 @@ public class HashSyslogMessageModifier extends AbstractSyslogMessageModifier {
     }
 
     public boolean verify(String message, byte[] hash) {
-        byte[] messageBytes = SyslogUtility.getBytes(this.config,message);
+        byte[] digestBytes = digest(this.config,message);
+
+        return MessageDigest.isEqual(digestBytes,hash);
+    }
+
+    protected byte[] digest(SyslogCharSetIF syslogCharSet, String message) {
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
 
+        try {
+            int length = encodingBuffer.encode(syslogCharSet,message);
+
+            return digest(encodingBuffer.getBuffer(),0,length);
+
+        } finally {
+            encodingBuffer.release();
+        }
+    }
+
+    protected byte[] digest(byte[] data, int offset, int length) {
         MessageDigest digest = obtainMessageDigest();
-        byte[] digestBytes = digest.digest(messageBytes);
 
-        return Arrays.equals(digestBytes,hash);
+        digest.update(data,offset,length);
+
+        return digest.digest();
     }
 }
@@ -21,13 +21,15 @@ import java.util.Arrays;
 
 import javax.crypto.Mac;
 
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogCharSetIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.message.modifier.AbstractSyslogMessageModifier;
 import com.nesscomputing.syslog4j.util.Base64;
-import com.nesscomputing.syslog4j.util.SyslogUtility;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
 
 /**
 * MacSyslogMessageModifier is an implementation of SyslogMessageModifierIF
@@ -40,7 +42,7 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: MacSyslogMessageModifier.java,v 1.5 2010/10/28 05:10:57 cvs Exp $
 */
-public class MacSyslogMessageModifier extends AbstractSyslogMessageModifier {
+public class MacSyslogMessageModifier extends AbstractSyslogMessageModifier implements SyslogByteMessageModifierIF {
     protected MacSyslogMessageModifierConfig config = null;
 
     protected Mac mac = null;
@@ -101,11 +103,9 @@ public class MacSyslogMessageModifier extends AbstractSyslogMessageModifier {
     @Override
     public String modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, String message) {
         synchronized(this.mac) {
-            byte[] messageBytes = SyslogUtility.getBytes(syslog.getConfig(),message);
-
             StringBuffer buffer = new StringBuffer(message);
 
-            byte[] macBytes = this.mac.doFinal(messageBytes);
+            byte[] macBytes = doFinal(syslog.getConfig(),message);
 
             String macString = Base64.encodeBytes(macBytes,Base64.DONT_BREAK_LINES);
 
@@ -117,6 +117,21 @@ public class MacSyslogMessageModifier extends AbstractSyslogMessageModifier {
         }
     }
 
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        byte[] macBytes = null;
+
+        synchronized(this.mac) {
+            this.mac.update(buffer.getBuffer(),0,buffer.getLength());
+
+            macBytes = this.mac.doFinal();
+        }
+
+        String macString = Base64.encodeBytes(macBytes,Base64.DONT_BREAK_LINES);
+
+        buffer.append(syslog.getConfig().getCharSet(),this.config.getPrefix() + macString + this.config.getSuffix());
+    }
+
     public boolean verify(String message, String base64Signature) {
         byte[] signature = Base64.decode(base64Signature);
 
@@ -125,11 +140,27 @@ public class MacSyslogMessageModifier extends AbstractSyslogMessageModifier {
 
     public boolean verify(String message, byte[] signature) {
         synchronized(this.mac) {
-            byte[] messageBytes = SyslogUtility.getBytes(this.config,message);
-
-            byte[] macBytes = this.mac.doFinal(messageBytes);
+            byte[] macBytes = doFinal(this.config,message);
 
             return Arrays.equals(macBytes,signature);
         }
     }
+
+    /**
+     * Must be called while holding the lock on mac.
+     */
+    protected byte[] doFinal(SyslogCharSetIF syslogCharSet, String message) {
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+        try {
+            int length = encodingBuffer.encode(syslogCharSet,message);
+
+            this.mac.update(encodingBuffer.getBuffer(),0,length);
+
+        } finally {
+            encodingBuffer.release();
+        }
+
+        return this.mac.doFinal();
+    }
 }
@@ -14,10 +14,11 @@
  */
 package com.nesscomputing.syslog4j.impl.message.modifier.sequential;
 
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
-import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
 /**
 * SequentialSyslogMessageModifier is an implementation of SyslogMessageModifierIF
 * that adds an incremented number at the end.
@@ -29,7 +30,7 @@ import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: SequentialSyslogMessageModifier.java,v 1.8 2010/11/28 04:43:31 cvs Exp $
 */
-public class SequentialSyslogMessageModifier implements SyslogMessageModifierIF {
+public class SequentialSyslogMessageModifier implements SyslogByteMessageModifierIF {
     protected SequentialSyslogMessageModifierConfig config = null;
 
     protected long currentSequence[] = new long[SyslogLevel.values().length];
@@ -108,6 +109,11 @@ public class SequentialSyslogMessageModifier implements SyslogMessageModifierIF
         return buffer.toString();
     }
 
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        buffer.append(syslog.getConfig().getCharSet(),this.config.getPrefix() + nextSequence(level) + this.config.getSuffix());
+    }
+
     public boolean verify(String message) {
         // NO-OP
 
@@ -16,10 +16,12 @@ package com.nesscomputing.syslog4j.impl.message.modifier.text;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
-import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
 
 /**
 * PrefixSyslogMessageModifier is an implementation of SyslogMessageModifierIF
@@ -32,7 +34,7 @@ import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: PrefixSyslogMessageModifier.java,v 1.5 2010/10/28 05:10:57 cvs Exp $
 */
-public class PrefixSyslogMessageModifier implements SyslogMessageModifierIF {
+public class PrefixSyslogMessageModifier implements SyslogByteMessageModifierIF {
     protected String prefix = null;
     protected String delimiter = " ";
 
@@ -68,6 +70,15 @@ public class PrefixSyslogMessageModifier implements SyslogMessageModifierIF {
         return this.prefix + this.delimiter + message;
     }
 
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        if (StringUtils.isBlank(this.prefix)) {
+            return;
+        }
+
+        buffer.insert(0,SyslogUtility.getBytes(syslog.getConfig(),this.prefix + this.delimiter));
+    }
+
     public boolean verify(String message) {
         // NO-OP
 
@@ -16,10 +16,11 @@ package com.nesscomputing.syslog4j.impl.message.modifier.text;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.nesscomputing.syslog4j.SyslogByteMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
 import com.nesscomputing.syslog4j.SyslogLevel;
-import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
 
 /**
 * SuffixSyslogMessageModifier is an implementation of SyslogMessageModifierIF
@@ -32,7 +33,7 @@ import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: SuffixSyslogMessageModifier.java,v 1.5 2010/10/28 05:10:57 cvs Exp $
 */
-public class SuffixSyslogMessageModifier implements SyslogMessageModifierIF {
+public class SuffixSyslogMessageModifier implements SyslogByteMessageModifierIF {
     protected String suffix = null;
     protected String delimiter = " ";
 
@@ -68,6 +69,15 @@ public class SuffixSyslogMessageModifier implements SyslogMessageModifierIF {
         return message + this.delimiter + this.suffix;
     }
 
+    @Override
+    public void modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, SyslogEncodingBuffer buffer) {
+        if (StringUtils.isBlank(this.suffix)) {
+            return;
+        }
+
+        buffer.append(syslog.getConfig().getCharSet(),this.delimiter + this.suffix);
+    }
+
     public boolean verify(String message) {
         // NO-OP
 
@@ -14,12 +14,7 @@
  */
 package com.nesscomputing.syslog4j.impl.message.processor;
 
-import static com.nesscomputing.syslog4j.SyslogConstants.SYSLOG_DATEFORMAT;
-
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
+import com.nesscomputing.syslog4j.SyslogCharSetIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
@@ -39,8 +34,55 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 public abstract class AbstractSyslogMessageProcessor implements SyslogMessageProcessorIF {
     protected String localName = null;
 
+    protected final boolean concatenatingPacketData;
+
+    protected final boolean cachingHeader;
+
+    protected final SyslogHeaderCache headerCache = new SyslogHeaderCache();
+
     public AbstractSyslogMessageProcessor() {
         this.localName = SyslogUtility.getLocalName();
+
+        Class<?> clazz = getClass();
+
+        this.concatenatingPacketData = !overrides(clazz,"createPacketData",byte[].class,byte[].class,int.class,int.class)
+            && !overrides(clazz,"createPacketData",byte[].class,byte[].class,int.class,int.class,byte[].class,byte[].class);
+
+        this.cachingHeader = !overrides(clazz,"createSyslogHeader",SyslogFacility.class,SyslogLevel.class,String.class,String.class,boolean.class,boolean.class)
+            && !overrides(clazz,"appendPriority",StringBuffer.class,SyslogFacility.class,SyslogLevel.class)
+            && !overrides(clazz,"appendLocalTimestamp",StringBuffer.class)
+            && !overrides(clazz,"appendLocalName",StringBuffer.class,String.class);
+    }
+
+    private static boolean overrides(Class<?> clazz, String name, Class<?>... parameterTypes) {
+        for(Class<?> c = clazz; c != AbstractSyslogMessageProcessor.class && c != null; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name,parameterTypes);
+                return true;
+
+            } catch (NoSuchMethodException nsme) {
+                //
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return Returns true if createPacketData(..) has not been overridden, i.e. a packet
+     * is the plain concatenation of header, split begin text, message slice and split end text.
+     * Writers implementing GatheringSyslogWriterIF may then send those parts directly.
+     */
+    public boolean isConcatenatingPacketData() {
+        return this.concatenatingPacketData;
+    }
+
+    /**
+     * @return Returns true if the RFC 3164 header methods have not been overridden,
+     * so that createSyslogHeaderBytes(..) may assemble headers from SyslogHeaderCache.
+     */
+    public boolean isCachingHeader() {
+        return this.cachingHeader;
     }
 
     public byte[] createPacketData(byte[] header, byte[] message, int start, int length) {
@@ -90,17 +132,12 @@ public abstract class AbstractSyslogMessageProcessor implements SyslogMessagePro
     }
 
     protected void appendLocalTimestamp(StringBuffer buffer) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat(SYSLOG_DATEFORMAT,Locale.ENGLISH);
-
-        String datePrefix = dateFormat.format(new Date());
+        byte[] timestamp = new byte[SyslogHeaderCache.LOCAL_TIMESTAMP_LENGTH];
 
-        int pos = buffer.length() + 4;
+        this.headerCache.writeLocalTimestamp(timestamp,0,System.currentTimeMillis());
 
-        buffer.append(datePrefix);
-
-        //  RFC 3164 requires leading space for days 1-9
-        if (buffer.charAt(pos) == '0') {
-            buffer.setCharAt(pos,' ');
+        for(int i=0; i<timestamp.length; i++) {
+            buffer.append((char) timestamp[i]);
         }
     }
 
@@ -131,4 +168,44 @@ public abstract class AbstractSyslogMessageProcessor implements SyslogMessagePro
 
         return buffer.toString();
     }
+
+    /**
+     * Creates the header encoded in the character set of syslogCharSet.  When
+     * isCachingHeader() is true the header is assembled from pre-encoded parts
+     * held by SyslogHeaderCache; otherwise the result of createSyslogHeader(..)
+     * is encoded.
+     */
+    public byte[] createSyslogHeaderBytes(SyslogCharSetIF syslogCharSet, SyslogFacility facility, SyslogLevel level, String localName, String localProcessId, boolean sendLocalTimestamp, boolean sendLocalName) {
+        if (!this.cachingHeader || !this.headerCache.isAsciiCompatible(syslogCharSet.getCharSet())) {
+            return SyslogUtility.getBytes(syslogCharSet,createSyslogHeader(facility,level,localName,localProcessId,sendLocalTimestamp,sendLocalName));
+        }
+
+        byte[] priority = this.headerCache.getPriorityBytes(facility,level);
+        byte[] name = sendLocalName ? this.headerCache.getLocalNameBytes(localName != null ? localName : this.localName,syslogCharSet.getCharSet()) : null;
+
+        int length = priority.length;
+
+        if (sendLocalTimestamp) {
+            length += SyslogHeaderCache.LOCAL_TIMESTAMP_LENGTH;
+        }
+        if (name != null) {
+            length += name.length;
+        }
+
+        byte[] header = new byte[length];
+
+        System.arraycopy(priority,0,header,0,priority.length);
+        int pos = priority.length;
+
+        if (sendLocalTimestamp) {
+            this.headerCache.writeLocalTimestamp(header,pos,System.currentTimeMillis());
+            pos += SyslogHeaderCache.LOCAL_TIMESTAMP_LENGTH;
+        }
+
+        if (name != null) {
+            System.arraycopy(name,0,header,pos,name.length);
+        }
+
+        return header;
+    }
 }
@@ -0,0 +1,194 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.message.processor;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* SyslogHeaderCache holds pre-encoded parts of the RFC 3164 syslog header
+* so that a header can be assembled with a few array copies.
+*
+* <p>Priorities are encoded once per facility/level combination, the local
+* name is encoded once per name and character set, and the timestamp is
+* rendered once per minute with the seconds patched into each header.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class SyslogHeaderCache {
+    /**
+     * Length of a timestamp in SyslogConstants.SYSLOG_DATEFORMAT, including the trailing space.
+     */
+    public static final int LOCAL_TIMESTAMP_LENGTH = 16;
+
+    protected static final int MINUTE_PREFIX_LENGTH = 13;
+
+    protected static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    protected static final String ASCII_PROBE = "<>0123456789: ABCXYZabcxyz";
+
+    protected static final byte[][] PRIORITIES = new byte[SyslogFacility.local7.getValue() + SyslogLevel.DEBUG.getValue() + 1][];
+
+    static {
+        for(int i=0; i<PRIORITIES.length; i++) {
+            PRIORITIES[i] = encodePriority(i);
+        }
+    }
+
+    protected static class LocalName {
+        protected final String localName;
+        protected final Charset charSet;
+        protected final byte[] bytes;
+
+        protected LocalName(String localName, Charset charSet) {
+            this.localName = localName;
+            this.charSet = charSet;
+            this.bytes = (localName + ' ').getBytes(charSet);
+        }
+    }
+
+    protected static class MinutePrefix {
+        protected final long minute;
+        protected final byte[] bytes;
+
+        protected MinutePrefix(long minute, byte[] bytes) {
+            this.minute = minute;
+            this.bytes = bytes;
+        }
+    }
+
+    protected volatile LocalName localName = null;
+
+    protected volatile MinutePrefix minutePrefix = null;
+
+    protected volatile Charset asciiCompatibleCharSet = null;
+
+    protected static byte[] encodePriority(int priority) {
+        return encodeAscii("<" + priority + ">");
+    }
+
+    /**
+     * @return Returns true if charSet encodes the digits, letters and punctuation used
+     * by the priority and timestamp as single ASCII bytes.
+     */
+    public boolean isAsciiCompatible(Charset charSet) {
+        if (charSet == null) {
+            return false;
+        }
+
+        if (charSet.equals(this.asciiCompatibleCharSet)) {
+            return true;
+        }
+
+        if (!charSet.canEncode() || !Arrays.equals(ASCII_PROBE.getBytes(charSet),encodeAscii(ASCII_PROBE))) {
+            return false;
+        }
+
+        this.asciiCompatibleCharSet = charSet;
+
+        return true;
+    }
+
+    protected static byte[] encodeAscii(String value) {
+        byte[] bytes = new byte[value.length()];
+
+        for(int i=0; i<bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return Returns the encoded "&lt;priority&gt;" for facility and level; the returned array must not be modified.
+     */
+    public byte[] getPriorityBytes(SyslogFacility facility, SyslogLevel level) {
+        int priority = (facility == null ? 0 : facility.getValue()) | (level == null ? 0 : level.getValue());
+
+        if (priority >= 0 && priority < PRIORITIES.length) {
+            return PRIORITIES[priority];
+        }
+
+        return encodePriority(priority);
+    }
+
+    /**
+     * @return Returns localName followed by a space, encoded in charSet; the returned array must not be modified.
+     */
+    public byte[] getLocalNameBytes(String localName, Charset charSet) {
+        LocalName cached = this.localName;
+
+        if (cached == null || !cached.localName.equals(localName) || !cached.charSet.equals(charSet)) {
+            cached = new LocalName(localName,charSet);
+            this.localName = cached;
+        }
+
+        return cached.bytes;
+    }
+
+    /**
+     * Writes the LOCAL_TIMESTAMP_LENGTH bytes of the local timestamp for timeMs,
+     * formatted as SyslogConstants.SYSLOG_DATEFORMAT with a leading space for
+     * days 1-9, into buffer starting at offset.
+     */
+    public void writeLocalTimestamp(byte[] buffer, int offset, long timeMs) {
+        long minute = timeMs / 60000;
+
+        MinutePrefix cached = this.minutePrefix;
+
+        if (cached == null || cached.minute != minute) {
+            cached = new MinutePrefix(minute,renderMinutePrefix(minute * 60000));
+            this.minutePrefix = cached;
+        }
+
+        System.arraycopy(cached.bytes,0,buffer,offset,MINUTE_PREFIX_LENGTH);
+
+        int second = (int) ((timeMs / 1000) % 60);
+
+        buffer[offset + MINUTE_PREFIX_LENGTH] = (byte) ('0' + second / 10);
+        buffer[offset + MINUTE_PREFIX_LENGTH + 1] = (byte) ('0' + second % 10);
+        buffer[offset + MINUTE_PREFIX_LENGTH + 2] = (byte) ' ';
+    }
+
+    /**
+     * @return Returns "MMM dd HH:mm:" for the local time timeMs
+     */
+    protected static byte[] renderMinutePrefix(long timeMs) {
+        Calendar calendar = Calendar.getInstance(Locale.ENGLISH);
+        calendar.setTimeInMillis(timeMs);
+
+        int day = calendar.get(Calendar.DAY_OF_MONTH);
+        int hour = calendar.get(Calendar.HOUR_OF_DAY);
+        int minute = calendar.get(Calendar.MINUTE);
+
+        StringBuilder builder = new StringBuilder(MINUTE_PREFIX_LENGTH);
+
+        builder.append(MONTHS[calendar.get(Calendar.MONTH)]).append(' ');
+
+        //  RFC 3164 requires leading space for days 1-9
+        builder.append(day < 10 ? ' ' : (char) ('0' + day / 10)).append((char) ('0' + day % 10)).append(' ');
+        builder.append((char) ('0' + hour / 10)).append((char) ('0' + hour % 10)).append(':');
+        builder.append((char) ('0' + minute / 10)).append((char) ('0' + minute % 10)).append(':');
+
+        return encodeAscii(builder.toString());
+    }
+}
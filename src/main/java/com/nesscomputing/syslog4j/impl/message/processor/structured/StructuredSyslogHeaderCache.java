@@ -0,0 +1,200 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.message.processor.structured;
+
+import java.nio.charset.Charset;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+import org.joda.time.format.ISODateTimeFormat;
+
+import com.nesscomputing.syslog4j.impl.message.structured.StructuredSyslogMessage;
+
+/**
+* StructuredSyslogHeaderCache holds pre-encoded parts of the RFC 5424 syslog
+* header used by StructuredSyslogMessageProcessor in cached mode.
+*
+* <p>The ISO-8601 timestamp is rendered once per second in the default
+* DateTimeZone, in the same format as ISODateTimeFormat.dateTime(), with the
+* milliseconds patched into each header.  The "HOST APP PROCID " suffix is
+* encoded once per distinct value.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class StructuredSyslogHeaderCache {
+    /**
+     * Position of the milliseconds within a timestamp ("yyyy-MM-ddTHH:mm:ss.SSS").
+     */
+    protected static final int MILLIS_OFFSET = 20;
+
+    protected static class SecondTimestamp {
+        protected final long second;
+        protected final DateTimeZone zone;
+        protected final byte[] bytes;
+
+        protected SecondTimestamp(long second, DateTimeZone zone, byte[] bytes) {
+            this.second = second;
+            this.zone = zone;
+            this.bytes = bytes;
+        }
+    }
+
+    protected static class Suffix {
+        protected final String localName;
+        protected final String applicationName;
+        protected final String processId;
+        protected final Charset charSet;
+        protected final byte[] bytes;
+
+        protected Suffix(String localName, String applicationName, String processId, Charset charSet) {
+            this.localName = localName;
+            this.applicationName = applicationName;
+            this.processId = processId;
+            this.charSet = charSet;
+
+            String suffix = localName + ' ' + StructuredSyslogMessage.nilProtect(applicationName) + ' ' + StructuredSyslogMessage.nilProtect(processId) + ' ';
+
+            this.bytes = suffix.getBytes(charSet);
+        }
+
+        protected boolean matches(String localName, String applicationName, String processId, Charset charSet) {
+            return equal(this.localName,localName) && equal(this.applicationName,applicationName) && equal(this.processId,processId) && this.charSet.equals(charSet);
+        }
+
+        protected static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    protected volatile SecondTimestamp secondTimestamp = null;
+
+    protected volatile Suffix suffix = null;
+
+    /**
+     * @return Returns the timestamp for the second containing timeMs with the
+     * milliseconds set to "000"; the returned array must not be modified.
+     */
+    public byte[] getTimestampTemplate(long timeMs) {
+        long second = timeMs / 1000;
+        DateTimeZone zone = DateTimeZone.getDefault();
+
+        SecondTimestamp cached = this.secondTimestamp;
+
+        if (cached == null || cached.second != second || cached.zone != zone) {
+            cached = new SecondTimestamp(second,zone,renderTimestamp(second * 1000,zone));
+            this.secondTimestamp = cached;
+        }
+
+        return cached.bytes;
+    }
+
+    /**
+     * Copies template (see getTimestampTemplate(..)) into buffer at offset and
+     * patches in the milliseconds of timeMs.
+     *
+     * @return Returns the number of bytes written
+     */
+    public static int writeTimestamp(byte[] buffer, int offset, byte[] template, long timeMs) {
+        System.arraycopy(template,0,buffer,offset,template.length);
+
+        int millis = (int) (timeMs % 1000);
+
+        buffer[offset + MILLIS_OFFSET] = (byte) ('0' + millis / 100);
+        buffer[offset + MILLIS_OFFSET + 1] = (byte) ('0' + (millis / 10) % 10);
+        buffer[offset + MILLIS_OFFSET + 2] = (byte) ('0' + millis % 10);
+
+        return template.length;
+    }
+
+    /**
+     * @return Returns "HOST APP PROCID " encoded in charSet, with nil values
+     * for a blank application name or process id; the returned array must not be modified.
+     */
+    public byte[] getSuffixBytes(String localName, String applicationName, String processId, Charset charSet) {
+        Suffix cached = this.suffix;
+
+        if (cached == null || !cached.matches(localName,applicationName,processId,charSet)) {
+            cached = new Suffix(localName,applicationName,processId,charSet);
+            this.suffix = cached;
+        }
+
+        return cached.bytes;
+    }
+
+    protected static byte[] renderTimestamp(long timeMs, DateTimeZone zone) {
+        int offset = zone.getOffset(timeMs);
+
+        Chronology chronology = ISOChronology.getInstanceUTC();
+        long localMs = timeMs + offset;
+
+        int year = chronology.year().get(localMs);
+
+        if (year < 0 || year > 9999 || offset % 60000 != 0) {
+            return encodeAscii(ISODateTimeFormat.dateTime().withZone(zone).print(timeMs));
+        }
+
+        StringBuilder builder = new StringBuilder(29);
+
+        appendPadded(builder,year,4);
+        builder.append('-');
+        appendPadded(builder,chronology.monthOfYear().get(localMs),2);
+        builder.append('-');
+        appendPadded(builder,chronology.dayOfMonth().get(localMs),2);
+        builder.append('T');
+        appendPadded(builder,chronology.hourOfDay().get(localMs),2);
+        builder.append(':');
+        appendPadded(builder,chronology.minuteOfHour().get(localMs),2);
+        builder.append(':');
+        appendPadded(builder,chronology.secondOfMinute().get(localMs),2);
+        builder.append(".000");
+
+        if (offset == 0) {
+            builder.append('Z');
+
+        } else {
+            int offsetMinutes = Math.abs(offset) / 60000;
+
+            builder.append(offset < 0 ? '-' : '+');
+            appendPadded(builder,offsetMinutes / 60,2);
+            builder.append(':');
+            appendPadded(builder,offsetMinutes % 60,2);
+        }
+
+        return encodeAscii(builder.toString());
+    }
+
+    protected static void appendPadded(StringBuilder builder, int value, int width) {
+        String digits = Integer.toString(value);
+
+        for(int i=digits.length(); i<width; i++) {
+            builder.append('0');
+        }
+
+        builder.append(digits);
+    }
+
+    protected static byte[] encodeAscii(String value) {
+        byte[] bytes = new byte[value.length()];
+
+        for(int i=0; i<bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+
+        return bytes;
+    }
+}
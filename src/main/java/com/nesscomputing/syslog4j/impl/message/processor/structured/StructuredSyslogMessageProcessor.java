@@ -21,6 +21,7 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 
+import com.nesscomputing.syslog4j.SyslogCharSetIF;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.impl.message.processor.AbstractSyslogMessageProcessor;
@@ -39,6 +40,10 @@ import com.nesscomputing.syslog4j.impl.message.structured.StructuredSyslogMessag
  * instance via the SyslogIF.setStructuredMessageProcessor(..) method or set it globally
  * via the StructuredSyslogMessageProcessor.setDefault(..) method.</p>
  *
+ * <p>When cachedHeader is enabled (and the default DateTimeFormatter is in
+ * use), headers are assembled from parts held by StructuredSyslogHeaderCache
+ * instead of being formatted for each message.</p>
+ *
  * <p>
  * Syslog4j is licensed under the Lesser GNU Public License v2.1. A copy of the
  * LGPL license is available in the META-INF folder in all distributions of
@@ -59,6 +64,11 @@ public class StructuredSyslogMessageProcessor extends AbstractSyslogMessageProce
     private String processId = STRUCTURED_DATA_PROCESS_ID_DEFAULT_VALUE;
 
     private DateTimeFormatter dateTimeFormatter = ISODateTimeFormat.dateTime();
+    private boolean defaultDateTimeFormatter = true;
+
+    private boolean cachedHeader = false;
+
+    private final StructuredSyslogHeaderCache structuredHeaderCache = new StructuredSyslogHeaderCache();
 
     public static void setDefault(StructuredSyslogMessageProcessor messageProcessor) {
         if (messageProcessor != null) {
@@ -85,6 +95,24 @@ public class StructuredSyslogMessageProcessor extends AbstractSyslogMessageProce
 
     public void setDateTimeFormatter(DateTimeFormatter dateTimeFormatter) {
         this.dateTimeFormatter = dateTimeFormatter;
+        this.defaultDateTimeFormatter = false;
+    }
+
+    public boolean isCachedHeader() {
+        return this.cachedHeader;
+    }
+
+    /**
+     * @param cachedHeader - render the timestamp with StructuredSyslogHeaderCache and
+     * reuse the encoded host, application name and process id between messages;
+     * ignored once a custom DateTimeFormatter has been set
+     */
+    public void setCachedHeader(boolean cachedHeader) {
+        this.cachedHeader = cachedHeader;
+    }
+
+    protected boolean isUsingHeaderCache() {
+        return this.cachedHeader && this.defaultDateTimeFormatter;
     }
 
     public String getApplicationName() {
@@ -111,7 +139,20 @@ public class StructuredSyslogMessageProcessor extends AbstractSyslogMessageProce
         buffer.append(VERSION);
         buffer.append(' ');
 
-        getDateTimeFormatter().printTo(buffer,System.currentTimeMillis());
+        if (isUsingHeaderCache()) {
+            long timeMs = System.currentTimeMillis();
+            byte[] template = this.structuredHeaderCache.getTimestampTemplate(timeMs);
+            byte[] timestamp = new byte[template.length];
+
+            StructuredSyslogHeaderCache.writeTimestamp(timestamp,0,template,timeMs);
+
+            for(int i=0; i<timestamp.length; i++) {
+                buffer.append((char) timestamp[i]);
+            }
+
+        } else {
+            getDateTimeFormatter().printTo(buffer,System.currentTimeMillis());
+        }
         buffer.append(' ');
 
         appendLocalName(buffer,localName);
@@ -123,4 +164,34 @@ public class StructuredSyslogMessageProcessor extends AbstractSyslogMessageProce
 
         return buffer.toString();
     }
+
+    @Override
+    public byte[] createSyslogHeaderBytes(SyslogCharSetIF syslogCharSet, SyslogFacility facility, SyslogLevel level, String localName, String localProcessId, boolean sendLocalTimestamp, boolean sendLocalName) {
+        if (!isUsingHeaderCache() || !this.headerCache.isAsciiCompatible(syslogCharSet.getCharSet())) {
+            return super.createSyslogHeaderBytes(syslogCharSet,facility,level,localName,localProcessId,sendLocalTimestamp,sendLocalName);
+        }
+
+        long timeMs = System.currentTimeMillis();
+
+        byte[] priority = this.headerCache.getPriorityBytes(facility,level);
+        byte[] timestamp = this.structuredHeaderCache.getTimestampTemplate(timeMs);
+        byte[] suffix = this.structuredHeaderCache.getSuffixBytes(localName != null ? localName : this.localName,this.applicationName,ObjectUtils.firstNonNull(localProcessId,this.processId),syslogCharSet.getCharSet());
+
+        byte[] header = new byte[priority.length + VERSION.length() + 1 + timestamp.length + 1 + suffix.length];
+
+        System.arraycopy(priority,0,header,0,priority.length);
+        int pos = priority.length;
+
+        for(int i=0; i<VERSION.length(); i++) {
+            header[pos++] = (byte) VERSION.charAt(i);
+        }
+        header[pos++] = ' ';
+
+        pos += StructuredSyslogHeaderCache.writeTimestamp(header,pos,timestamp,timeMs);
+        header[pos++] = ' ';
+
+        System.arraycopy(suffix,0,header,pos,suffix.length);
+
+        return header;
+    }
 }
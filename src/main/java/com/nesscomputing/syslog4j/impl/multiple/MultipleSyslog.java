@@ -14,6 +14,10 @@
  */
 package com.nesscomputing.syslog4j.impl.multiple;
 
+import java.util.List;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
 import com.nesscomputing.syslog4j.Syslog;
 import com.nesscomputing.syslog4j.SyslogConfigIF;
 import com.nesscomputing.syslog4j.SyslogIF;
@@ -21,11 +25,24 @@ import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogMessageIF;
 import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.util.SyslogMessageFormatter;
 
 /**
 * MultipleSyslog is an aggregator Syslog implementation for allowing a single
 * Syslog call to send to multiple Syslog implementations.
 *
+* <p>The configured protocols are looked up once, and again only when the
+* protocol list changes or a Syslog instance is created or destroyed.
+* Protocols that send packets through their writers and would render a
+* message identically (see AbstractSyslog.isRenderingCompatible(..)) share
+* one rendering of it: the
+* message is modified, given its header and encoded once, and the same packets
+* are handed to each of them.  Each protocol then writes the packets through
+* its own writer; threaded protocols only queue them, so a slow destination
+* does not hold up the others.  Non-threaded protocols still write on the
+* caller's thread, one after another.</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -37,6 +54,28 @@ public class MultipleSyslog implements SyslogIF {
     protected String syslogProtocol = null;
     protected MultipleSyslogConfig multipleSyslogConfig = null;
 
+    protected volatile Children children = null;
+
+    /**
+     * The configured protocols resolved to their instances, grouped by rendering.
+     */
+    protected static class Children {
+        protected final int generation;
+        protected final int version;
+        protected final int size;
+
+        protected final SyslogIF[] syslogs;
+        protected final SyslogIF[][] groups;
+
+        protected Children(int generation, int version, int size, SyslogIF[] syslogs, SyslogIF[][] groups) {
+            this.generation = generation;
+            this.version = version;
+            this.size = size;
+            this.syslogs = syslogs;
+            this.groups = groups;
+        }
+    }
+
     public void initialize(String protocol, SyslogConfigIF config) throws SyslogRuntimeException {
         this.syslogProtocol = protocol;
 
@@ -116,45 +155,202 @@ public class MultipleSyslog implements SyslogIF {
         log(SyslogLevel.WARN,message);
     }
 
+    protected Children getChildren() throws SyslogRuntimeException {
+        Children _children = this.children;
+
+        int generation = Syslog.getGeneration();
+        int version = this.multipleSyslogConfig.getVersion();
+        int size = this.multipleSyslogConfig.getProtocols().size();
+
+        if (_children == null || _children.generation != generation || _children.version != version || _children.size != size) {
+            _children = resolveChildren(generation,version);
+            this.children = _children;
+        }
+
+        return _children;
+    }
+
+    protected Children resolveChildren(int generation, int version) throws SyslogRuntimeException {
+        List<String> protocols = this.multipleSyslogConfig.getProtocols();
+
+        SyslogIF[] syslogs = new SyslogIF[protocols.size()];
+        List<List<SyslogIF>> groups = Lists.newArrayList();
+
+        for(int i=0; i<syslogs.length; i++) {
+            syslogs[i] = Syslog.getInstance(protocols.get(i));
+
+            List<SyslogIF> group = null;
+
+            if (syslogs[i] instanceof AbstractSyslog) {
+                for(int g=0; group == null && g<groups.size(); g++) {
+                    SyslogIF leader = groups.get(g).get(0);
+
+                    if (leader instanceof AbstractSyslog && ((AbstractSyslog) leader).isRenderingCompatible((AbstractSyslog) syslogs[i])) {
+                        group = groups.get(g);
+                    }
+                }
+            }
+
+            if (group == null) {
+                group = Lists.newArrayListWithCapacity(1);
+                groups.add(group);
+            }
+
+            group.add(syslogs[i]);
+        }
+
+        SyslogIF[][] _groups = new SyslogIF[groups.size()][];
+
+        for(int g=0; g<_groups.length; g++) {
+            _groups[g] = groups.get(g).toArray(new SyslogIF[groups.get(g).size()]);
+        }
+
+        return new Children(generation,version,syslogs.length,syslogs,_groups);
+    }
+
+    /**
+     * @return true if level passes the threshold of this MultipleSyslog and of
+     * at least one of its protocols
+     */
+    public boolean isEnabled(SyslogLevel level) {
+        if (!isThresholdEnabled(level)) {
+            return false;
+        }
+
+        SyslogIF[] syslogs = getChildren().syslogs;
+
+        for(int i=0; i<syslogs.length; i++) {
+            if (syslogs[i].isEnabled(level)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected boolean isThresholdEnabled(SyslogLevel level) {
+        SyslogLevel threshold = this.multipleSyslogConfig.getThreshold();
+
+        return threshold == null || level == null || level.getValue() <= threshold.getValue();
+    }
+
+    protected static boolean isEnabled(SyslogIF[] group, SyslogLevel level) {
+        for(int i=0; i<group.length; i++) {
+            if (group[i].isEnabled(level)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public void log(SyslogLevel level, String message) {
-        for(int i=0; i<this.multipleSyslogConfig.getProtocols().size(); i++) {
-            String protocol = (String) this.multipleSyslogConfig.getProtocols().get(i);
+        if (!isThresholdEnabled(level)) {
+            return;
+        }
+
+        SyslogIF[][] groups = getChildren().groups;
+
+        for(int g=0; g<groups.length; g++) {
+            SyslogIF[] group = groups[g];
+
+            if (group.length == 1) {
+                group[0].log(level,message);
 
-            SyslogIF syslog = Syslog.getInstance(protocol);
+            } else if (isEnabled(group,level)) {
+                AbstractSyslog leader = (AbstractSyslog) group[0];
 
-            syslog.log(level,message);
+                writePackets(group,level,leader.createPackets(level,message),message,null);
+            }
         }
     }
 
     @Override
     public void log(SyslogLevel level, SyslogMessageIF message) {
-        for(int i=0; i<this.multipleSyslogConfig.getProtocols().size(); i++) {
-            String protocol = (String) this.multipleSyslogConfig.getProtocols().get(i);
+        if (!isThresholdEnabled(level)) {
+            return;
+        }
+
+        SyslogIF[][] groups = getChildren().groups;
+
+        for(int g=0; g<groups.length; g++) {
+            SyslogIF[] group = groups[g];
+
+            if (group.length == 1) {
+                group[0].log(level,message);
 
-            SyslogIF syslog = Syslog.getInstance(protocol);
+            } else if (isEnabled(group,level)) {
+                AbstractSyslog leader = (AbstractSyslog) group[0];
 
-            syslog.log(level,message);
+                writePackets(group,level,leader.createPackets(level,message),null,message);
+            }
         }
     }
 
-    public void flush() throws SyslogRuntimeException {
-        for(int i=0; i<this.multipleSyslogConfig.getProtocols().size(); i++) {
-            String protocol = (String) this.multipleSyslogConfig.getProtocols().get(i);
+    /**
+     * Calls message once, and only if at least one protocol accepts level.
+     */
+    @Override
+    public void log(SyslogLevel level, Supplier<String> message) {
+        if (!isEnabled(level)) {
+            return;
+        }
 
-            SyslogIF syslog = Syslog.getInstance(protocol);
+        log(level,message.get());
+    }
 
-            syslog.flush();
+    /**
+     * Renders template once, and only if at least one protocol accepts level.
+     */
+    @Override
+    public void log(SyslogLevel level, String template, Object... arguments) {
+        if (!isEnabled(level)) {
+            return;
         }
+
+        log(level,SyslogMessageFormatter.format(template,arguments));
     }
 
-    public void shutdown() throws SyslogRuntimeException {
-        for(int i=0; i<this.multipleSyslogConfig.getProtocols().size(); i++) {
-            String protocol = (String) this.multipleSyslogConfig.getProtocols().get(i);
+    /**
+     * Hands the packets rendered by the first member of group to every member
+     * whose threshold accepts level.  A member whose configuration has changed since the group was formed logs
+     * the message itself instead.
+     */
+    protected void writePackets(SyslogIF[] group, SyslogLevel level, List<byte []> packets, String message, SyslogMessageIF syslogMessage) {
+        AbstractSyslog leader = (AbstractSyslog) group[0];
+
+        for(int i=0; i<group.length; i++) {
+            AbstractSyslog syslog = (AbstractSyslog) group[i];
+
+            if (!syslog.isEnabled(level)) {
+                continue;
+
+            } else if (i == 0 || leader.isRenderingCompatible(syslog)) {
+                syslog.writePackets(level,packets);
+
+            } else if (syslogMessage != null) {
+                syslog.log(level,syslogMessage);
+
+            } else {
+                syslog.log(level,message);
+            }
+        }
+    }
+
+    public void flush() throws SyslogRuntimeException {
+        SyslogIF[] syslogs = getChildren().syslogs;
 
-            SyslogIF syslog = Syslog.getInstance(protocol);
+        for(int i=0; i<syslogs.length; i++) {
+            syslogs[i].flush();
+        }
+    }
+
+    public void shutdown() throws SyslogRuntimeException {
+        SyslogIF[] syslogs = getChildren().syslogs;
 
-            syslog.shutdown();
+        for(int i=0; i<syslogs.length; i++) {
+            syslogs[i].shutdown();
         }
     }
 
@@ -26,6 +26,7 @@ import com.nesscomputing.syslog4j.SyslogConfigIF;
 import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 
@@ -43,6 +44,10 @@ import com.nesscomputing.syslog4j.SyslogRuntimeException;
 public class MultipleSyslogConfig implements SyslogConfigIF {
     protected List<String> syslogProtocols = null;
 
+    protected volatile int version = 0;
+
+    protected SyslogLevel threshold = SyslogConstants.THRESHOLD_DEFAULT;
+
     public MultipleSyslogConfig() {
         this.syslogProtocols = Lists.newArrayList();
     }
@@ -73,20 +78,32 @@ public class MultipleSyslogConfig implements SyslogConfigIF {
         return this.syslogProtocols;
     }
 
+    /**
+     * @return a number that changes whenever a protocol is added or removed
+     * through this configuration
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
     public void addProtocol(String protocol) {
         this.syslogProtocols.add(protocol);
+        this.version++;
     }
 
     public void insertProtocol(int index, String protocol) {
         this.syslogProtocols.add(index,protocol);
+        this.version++;
     }
 
     public void removeProtocol(String protocol) {
         this.syslogProtocols.remove(protocol);
+        this.version++;
     }
 
     public void removeAllProtocols() {
         this.syslogProtocols.clear();
+        this.version++;
     }
 
     public void addBackLogHandler(SyslogBackLogHandlerIF backLogHandler) {
@@ -243,6 +260,17 @@ public class MultipleSyslogConfig implements SyslogConfigIF {
         throw new SyslogRuntimeException("MultipleSyslog is an aggregator; please set the individual protocols");
     }
 
+    public SyslogLevel getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Applies in addition to the threshold of each protocol.
+     */
+    public void setThreshold(SyslogLevel threshold) {
+        this.threshold = threshold;
+    }
+
     public boolean isTruncateMessage() {
         return SyslogConstants.TRUNCATE_MESSAGE_DEFAULT;
     }
@@ -47,6 +47,10 @@ public abstract class AbstractNetSyslog extends AbstractSyslog {
         }
     }
 
+    public boolean isPacketSharingSupported() {
+        return true;
+    }
+
     /**
      * @return Returns an object of InetAddress of the local host, using caching if so directed.
      */
@@ -0,0 +1,479 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.tcp;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogConstants;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.GatheringSyslogWriterIF;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+/**
+* AbstractTCPNetSyslogWriter is the base of the TCP-based writers.  It manages
+* the connection (circuit breaker, reconnect backoff, fresh connections and
+* endpoints), frames messages with the delimiter sequence, coalesces queued
+* messages into batches and retries failed sends; subclasses only connect,
+* close and write over their transport.
+*
+* <p>Each message is framed together with its delimiter sequence in a reusable
+* buffer owned by the subclass and sent with a single write; when maxBatchSize
+* is set, queued messages are coalesced into batches of up to maxBatchSize
+* bytes.  In non-threaded mode the parts of each packet (including each part
+* of a split message) are framed directly, without first being concatenated
+* into a new array.</p>
+*
+* <p>Connects are bounded by connectTimeout, and when reconnectInitialBackoff
+* is set, failed connects are retried with a jittered exponential backoff (see
+* TCPNetSyslogReconnectScheduler) rather than on every write.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*
+* @param <C> - the connection type of the transport
+*/
+public abstract class AbstractTCPNetSyslogWriter<C> extends AbstractSyslogWriter implements GatheringSyslogWriterIF, TCPNetSyslogEndpointWriterIF {
+    protected TCPNetSyslog tcpNetSyslog = null;
+
+    protected TCPNetSyslogConfigIF tcpNetSyslogConfig = null;
+
+    protected TCPNetSyslogReconnectScheduler reconnectScheduler = null;
+
+    protected TCPNetSyslogEndpoint endpoint = null;
+
+    protected C connection = null;
+
+    protected int frameLength = 0;
+
+    protected int sendBufferSize = 0;
+
+    public void initialize(AbstractSyslog abstractSyslog) {
+        super.initialize(abstractSyslog);
+
+        this.tcpNetSyslog = (TCPNetSyslog) abstractSyslog;
+
+        this.tcpNetSyslogConfig = (TCPNetSyslogConfigIF) this.tcpNetSyslog.getConfig();
+
+        this.reconnectScheduler = createReconnectScheduler();
+    }
+
+    protected TCPNetSyslogReconnectScheduler createReconnectScheduler() {
+        return new TCPNetSyslogReconnectScheduler(this.tcpNetSyslogConfig.getReconnectInitialBackoff(),this.tcpNetSyslogConfig.getReconnectMaxBackoff(),this.tcpNetSyslogConfig.getFreshConnectionInterval());
+    }
+
+    public TCPNetSyslogReconnectScheduler getReconnectScheduler() {
+        return this.reconnectScheduler;
+    }
+
+    public TCPNetSyslogEndpoint getEndpoint() {
+        return this.endpoint;
+    }
+
+    public void setEndpoint(TCPNetSyslogEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    protected InetAddress getHostAddress() {
+        return this.endpoint != null ? this.endpoint.getHostAddress() : this.tcpNetSyslog.getHostAddress();
+    }
+
+    protected int getPort() {
+        return this.endpoint != null ? this.endpoint.getPort() : this.syslog.getConfig().getPort();
+    }
+
+    protected File getSpillDirectory() {
+        File spillDirectory = super.getSpillDirectory();
+
+        return this.endpoint != null ? new File(spillDirectory,this.endpoint.getHost() + "-" + this.endpoint.getPort()) : spillDirectory;
+    }
+
+    /**
+     * Opens a connection, waiting up to connectTimeout milliseconds.
+     */
+    protected abstract C createConnection(InetAddress hostAddress, int port, boolean keepalive) throws IOException;
+
+    protected abstract void disconnect(C connectionToClose) throws IOException;
+
+    protected abstract boolean isConnected(C connectionToCheck);
+
+    protected abstract boolean isClosed(C connectionToCheck);
+
+    protected abstract void setSendBufferSize(C connectionToSet, int size) throws IOException;
+
+    /**
+     * Copies the given slice of data into the frame buffer at offset, growing
+     * the buffer (and keeping its first offset bytes) if necessary.
+     */
+    protected abstract void appendToFrame(byte[] data, int start, int length, int offset);
+
+    /**
+     * Writes the first length bytes of the frame buffer; may be called again
+     * for the same frame when a write is retried.
+     */
+    protected abstract void writeFrame(C connectionToWrite, int length) throws IOException;
+
+    protected C getConnection() throws SyslogRuntimeException {
+        if (this.connection != null && isConnected(this.connection) && this.reconnectScheduler.isConnectionStale()) {
+            closeConnection(this.connection);
+        }
+
+        if (this.connection == null) {
+            if (this.syslog.isCircuitOpen()) {
+                throw new SyslogRuntimeException("Circuit breaker open: destination is down");
+            }
+
+            if (!this.reconnectScheduler.isConnectDue()) {
+                throw new SyslogRuntimeException("Reconnect pending: destination is down");
+            }
+
+            try {
+                this.connection = createConnection(getHostAddress(),getPort(),this.tcpNetSyslogConfig.isPersistentConnection());
+                this.reconnectScheduler.connected();
+                this.tcpNetSyslog.connected(this.endpoint);
+                this.sendBufferSize = 0;
+
+            } catch (IOException ioe) {
+                this.reconnectScheduler.connectFailed();
+                this.tcpNetSyslog.connectFailed(this.endpoint);
+
+                if (!hasThread()) {
+                    this.reconnectScheduler.scheduleReconnect(new Reconnect());
+                }
+
+                throw new SyslogRuntimeException(ioe);
+            }
+        }
+
+        return this.connection;
+    }
+
+    /**
+     * @return the reconnect backoff remaining while there is no connection, so
+     * that the writer thread leaves messages queued until it expires
+     */
+    protected long getWriteDelay() {
+        return this.connection == null ? this.reconnectScheduler.getReconnectDelay() : 0;
+    }
+
+    /**
+     * Connects on the reconnect scheduler's shared timer in non-threaded mode,
+     * installing the new connection unless a caller has connected in the meantime.
+     */
+    protected class Reconnect implements Callable<C> {
+        public C call() throws IOException {
+            C newConnection = null;
+
+            try {
+                newConnection = createConnection(getHostAddress(),getPort(),AbstractTCPNetSyslogWriter.this.tcpNetSyslogConfig.isPersistentConnection());
+
+            } catch (IOException ioe) {
+                if (AbstractTCPNetSyslogWriter.this.endpoint != null) {
+                    AbstractTCPNetSyslogWriter.this.endpoint.markDown(AbstractTCPNetSyslogWriter.this.tcpNetSyslogConfig.getEndpointRetryInterval());
+                }
+
+                throw ioe;
+            }
+
+            AbstractTCPNetSyslogWriter.this.tcpNetSyslog.connected(AbstractTCPNetSyslogWriter.this.endpoint);
+
+            synchronized(AbstractTCPNetSyslogWriter.this) {
+                if (AbstractTCPNetSyslogWriter.this.connection == null) {
+                    AbstractTCPNetSyslogWriter.this.connection = newConnection;
+                    AbstractTCPNetSyslogWriter.this.sendBufferSize = 0;
+
+                    return newConnection;
+                }
+            }
+
+            disconnect(newConnection);
+
+            return AbstractTCPNetSyslogWriter.this.connection;
+        }
+    }
+
+    protected void closeConnection(C connectionToClose) {
+        if (connectionToClose == null) {
+            return;
+        }
+
+        try {
+            disconnect(connectionToClose);
+
+        } catch (IOException ioe) {
+            throw new SyslogRuntimeException(ioe);
+
+        } finally {
+            if (connectionToClose == this.connection) {
+                this.connection = null;
+            }
+        }
+    }
+
+    protected void clearFrame() {
+        this.frameLength = 0;
+    }
+
+    protected void frame(byte[] data, int start, int length) {
+        appendToFrame(data,start,length,this.frameLength);
+
+        this.frameLength += length;
+    }
+
+    protected void frameDelimiterSequence() {
+        byte[] delimiterSequence = this.tcpNetSyslogConfig.getDelimiterSequence();
+
+        if (delimiterSequence != null && delimiterSequence.length > 0) {
+            frame(delimiterSequence,0,delimiterSequence.length);
+        }
+    }
+
+    /**
+     * Appends message and the configured delimiter sequence to the frame.
+     */
+    protected void frameMessage(byte[] message) {
+        frame(message,0,message.length);
+        frameDelimiterSequence();
+    }
+
+    public void write(byte[] message) throws SyslogRuntimeException {
+        clearFrame();
+        frameMessage(message);
+
+        send();
+    }
+
+    public void write(byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) throws SyslogRuntimeException {
+        clearFrame();
+
+        if (header != null) {
+            frame(header,0,header.length);
+        }
+
+        if (splitBeginText != null) {
+            frame(splitBeginText,0,splitBeginText.length);
+        }
+
+        frame(message,start,length);
+
+        if (splitEndText != null) {
+            frame(splitEndText,0,splitEndText.length);
+        }
+
+        frameDelimiterSequence();
+
+        send();
+    }
+
+    protected void writeQueuedMessages(List<byte []> messages) {
+        int maxBatchSize = this.tcpNetSyslogConfig.getMaxBatchSize();
+
+        if (maxBatchSize <= 0) {
+            super.writeQueuedMessages(messages);
+            return;
+        }
+
+        byte[] delimiterSequence = this.tcpNetSyslogConfig.getDelimiterSequence();
+        int delimiterLength = delimiterSequence != null ? delimiterSequence.length : 0;
+
+        int batchStart = 0;
+
+        clearFrame();
+
+        for(int i=0; i<messages.size(); i++) {
+            byte[] message = messages.get(i);
+
+            if (this.frameLength > 0 && (this.frameLength + message.length + delimiterLength) > maxBatchSize) {
+                if (!writeBatch(messages,batchStart,i)) {
+                    return;
+                }
+
+                batchStart = i;
+            }
+
+            frameMessage(message);
+        }
+
+        if (this.frameLength > 0) {
+            writeBatch(messages,batchStart,messages.size());
+        }
+    }
+
+    /**
+     * Sends the framed messages from start (inclusive) to end (exclusive),
+     * backlogging them on failure, and clears the frame.
+     *
+     * @return false if the remaining messages are held for retry (see backLogQueuedMessages(..))
+     */
+    protected boolean writeBatch(List<byte []> messages, int start, int end) {
+        try {
+            send();
+
+            this.syslog.setBackLogStatus(false);
+
+            return true;
+
+        } catch (SyslogRuntimeException sre) {
+            return !backLogQueuedMessages(messages,start,end,sre);
+
+        } finally {
+            clearFrame();
+        }
+    }
+
+    /**
+     * When this writer's endpoint has been marked down, moves the messages that
+     * could not be written, along with the rest of the queue, to the writer of
+     * the next available endpoint; otherwise (or if there is none) handles
+     * them as AbstractSyslogWriter does.
+     */
+    protected boolean backLogQueuedMessages(List<byte []> messages, int start, int end, SyslogRuntimeException sre) {
+        if (this.endpoint == null || this.endpoint.isAvailable(System.currentTimeMillis())) {
+            return super.backLogQueuedMessages(messages,start,end,sre);
+        }
+
+        AbstractSyslogWriter failoverWriter = this.tcpNetSyslog.getFailoverWriter(this);
+
+        if (failoverWriter == null) {
+            return super.backLogQueuedMessages(messages,start,end,sre);
+        }
+
+        try {
+            List<byte []> rerouted = Lists.newArrayList(messages.subList(start,messages.size()));
+
+            while(this.queuedMessages.drainTo(rerouted,Integer.MAX_VALUE) > 0) {
+                //  includes any messages held for retry and spilled to disk
+            }
+
+            for(byte[] message : rerouted) {
+                this.tcpNetSyslog.write(failoverWriter,SyslogLevel.INFO,message);
+            }
+
+        } finally {
+            this.tcpNetSyslog.returnWriter(failoverWriter);
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends the frame, retrying up to writeRetries times.
+     */
+    protected void send() throws SyslogRuntimeException {
+        int length = this.frameLength;
+
+        C currentConnection = null;
+
+        int attempts = 0;
+        while(attempts != -1 && attempts < (this.tcpNetSyslogConfig.getWriteRetries() + 1)) {
+            try {
+                currentConnection = getConnection();
+
+                if (currentConnection == null) {
+                    throw new SyslogRuntimeException("No connection available");
+                }
+
+                if (this.tcpNetSyslogConfig.isSetBufferSize() && length > this.sendBufferSize) {
+                    setSendBufferSize(currentConnection,length);
+                    this.sendBufferSize = length;
+                }
+
+                writeFrame(currentConnection,length);
+
+                this.syslog.setBackLogStatus(false);
+
+                attempts = -1;
+
+                if (!this.tcpNetSyslogConfig.isPersistentConnection()) {
+                    closeConnection(currentConnection);
+                }
+
+            } catch (IOException ioe) {
+                attempts++;
+                closeConnection(currentConnection);
+
+                if (attempts >= (this.tcpNetSyslogConfig.getWriteRetries() + 1)) {
+                    throw new SyslogRuntimeException(ioe);
+                }
+            }
+        }
+    }
+
+    public synchronized void flush() throws SyslogRuntimeException {
+        if (this.connection == null) {
+            return;
+        }
+
+        if (this.syslogConfig.isThreaded()) {
+            this.shutdown();
+            this.syslog.createWriterThread(this);
+
+        } else {
+            closeConnection(this.connection);
+        }
+    }
+
+    public void shutdown() throws SyslogRuntimeException {
+        this.shutdown = true;
+        wakeUp();
+
+        synchronized(this) {
+            if (this.syslogConfig.isThreaded()) {
+                long timeStart = System.currentTimeMillis();
+                boolean done = false;
+
+                while(!done) {
+                    if (this.connection == null || isClosed(this.connection)) {
+                        done = true;
+
+                    } else {
+                        long now = System.currentTimeMillis();
+
+                        if (now > (timeStart + this.tcpNetSyslogConfig.getMaxShutdownWait())) {
+                            closeConnection(this.connection);
+                            this.thread.interrupt();
+                            done = true;
+                        }
+
+                        if (!done) {
+                            SyslogUtility.sleep(SyslogConstants.SHUTDOWN_INTERVAL);
+                        }
+                    }
+                }
+
+            } else {
+                this.reconnectScheduler.cancel();
+
+                if (this.connection == null || isClosed(this.connection)) {
+                    return;
+                }
+
+                closeConnection(this.connection);
+            }
+        }
+    }
+
+    protected void runCompleted() {
+        closeConnection(this.connection);
+    }
+}
@@ -14,15 +14,33 @@
  */
 package com.nesscomputing.syslog4j.impl.net.tcp;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.GatheringSyslogWriterIF;
+import com.nesscomputing.syslog4j.impl.SyslogSendPlan;
 import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslog;
 
 /**
 * TCPNetSyslog is an extension of AbstractSyslog that provides support for
 * TCP/IP-based syslog clients.
 *
+* <p>When several endpoints are configured, each message is sent through the
+* writer of one endpoint, chosen by the configured endpointStrategy from the
+* endpoints that have not recently failed to connect.  A message that cannot
+* be written is retried once on the next available endpoint before it is
+* backlogged; in "threaded" mode, the queue of an endpoint found to be down is
+* moved to the next available endpoint.</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -31,10 +49,14 @@ import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslog;
 * @version $Id: TCPNetSyslog.java,v 1.21 2010/11/28 04:43:31 cvs Exp $
 */
 public class TCPNetSyslog extends AbstractNetSyslog {
-    protected TCPNetSyslogWriter writer = null;
+    protected AbstractSyslogWriter writer = null;
 
     protected TCPNetSyslogConfigIF tcpNetSyslogConfig = null;
 
+    protected TCPNetSyslogEndpoint[] endpoints = null;
+
+    protected final AtomicInteger nextEndpoint = new AtomicInteger(0);
+
     public void initialize() throws SyslogRuntimeException {
         super.initialize();
 
@@ -44,10 +66,204 @@ public class TCPNetSyslog extends AbstractNetSyslog {
         } catch (ClassCastException cce) {
             throw new SyslogRuntimeException("config must implement interface TCPNetSyslogConfigIF");
         }
+
+        List<String> configuredEndpoints = this.tcpNetSyslogConfig.getEndpoints();
+
+        if (configuredEndpoints != null && !configuredEndpoints.isEmpty()) {
+            this.endpoints = new TCPNetSyslogEndpoint[configuredEndpoints.size()];
+
+            for(int i=0; i<this.endpoints.length; i++) {
+                this.endpoints[i] = TCPNetSyslogEndpoint.parse(configuredEndpoints.get(i),this.tcpNetSyslogConfig.getPort(),this.tcpNetSyslogConfig.isCacheHostAddress());
+            }
+        }
+    }
+
+    public TCPNetSyslogEndpoint[] getEndpoints() {
+        return this.endpoints;
     }
 
     public AbstractSyslogWriter getWriter() {
-        return getWriter(true);
+        if (this.endpoints == null) {
+            return getWriter(true);
+        }
+
+        TCPNetSyslogEndpoint endpoint = selectEndpoint();
+
+        endpoint.pending.incrementAndGet();
+
+        return getWriter(endpoint);
+    }
+
+    protected AbstractSyslogWriter getWriter(TCPNetSyslogEndpoint endpoint) {
+        AbstractSyslogWriter endpointWriter = endpoint.writer;
+
+        if (endpointWriter != null) {
+            return endpointWriter;
+        }
+
+        synchronized(endpoint) {
+            if (endpoint.writer == null) {
+                endpointWriter = createWriter(endpoint);
+
+                if (this.tcpNetSyslogConfig.isThreaded()) {
+                    createWriterThread(endpointWriter);
+                }
+
+                endpoint.writer = endpointWriter;
+            }
+
+            return endpoint.writer;
+        }
+    }
+
+    protected AbstractSyslogWriter createWriter(TCPNetSyslogEndpoint endpoint) {
+        AbstractSyslogWriter newWriter = instantiateWriter();
+
+        if (newWriter != null) {
+            if (newWriter instanceof TCPNetSyslogEndpointWriterIF) {
+                ((TCPNetSyslogEndpointWriterIF) newWriter).setEndpoint(endpoint);
+            }
+
+            newWriter.initialize(this);
+        }
+
+        return newWriter;
+    }
+
+    /**
+     * Chooses the endpoint for the next message according to endpointStrategy,
+     * among the endpoints not marked down; if all are marked down, the one
+     * that is due to be retried first.
+     */
+    protected TCPNetSyslogEndpoint selectEndpoint() {
+        long currentTimeMs = System.currentTimeMillis();
+
+        byte strategy = this.tcpNetSyslogConfig.getEndpointStrategy();
+
+        TCPNetSyslogEndpoint selected = null;
+
+        if (strategy == TCPNetSyslogConfigIF.ENDPOINT_STRATEGY_FAILOVER) {
+            for(int i=0; i<this.endpoints.length && selected == null; i++) {
+                if (this.endpoints[i].isAvailable(currentTimeMs)) {
+                    selected = this.endpoints[i];
+                }
+            }
+
+        } else if (strategy == TCPNetSyslogConfigIF.ENDPOINT_STRATEGY_LEAST_QUEUED) {
+            //  ties go round-robin
+            int start = (this.nextEndpoint.getAndIncrement() & Integer.MAX_VALUE) % this.endpoints.length;
+            int selectedLoad = Integer.MAX_VALUE;
+
+            for(int i=0; i<this.endpoints.length; i++) {
+                TCPNetSyslogEndpoint endpoint = this.endpoints[(start + i) % this.endpoints.length];
+
+                if (endpoint.isAvailable(currentTimeMs)) {
+                    int load = endpoint.getLoad();
+
+                    if (load < selectedLoad) {
+                        selected = endpoint;
+                        selectedLoad = load;
+                    }
+                }
+            }
+
+        } else {
+            int start = (this.nextEndpoint.getAndIncrement() & Integer.MAX_VALUE) % this.endpoints.length;
+
+            for(int i=0; i<this.endpoints.length && selected == null; i++) {
+                TCPNetSyslogEndpoint endpoint = this.endpoints[(start + i) % this.endpoints.length];
+
+                if (endpoint.isAvailable(currentTimeMs)) {
+                    selected = endpoint;
+                }
+            }
+        }
+
+        if (selected == null) {
+            selected = this.endpoints[0];
+
+            for(int i=1; i<this.endpoints.length; i++) {
+                if (this.endpoints[i].getDownUntilMs() < selected.getDownUntilMs()) {
+                    selected = this.endpoints[i];
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Chooses the endpoint to retry on after failedWriter could not write: the
+     * next available endpoint after its own, in the order they were added.
+     *
+     * @return the writer of that endpoint, to be passed to returnWriter(..), or
+     * null if no endpoints are configured or none other is available
+     */
+    protected AbstractSyslogWriter getFailoverWriter(AbstractSyslogWriter failedWriter) {
+        if (this.endpoints == null || !(failedWriter instanceof TCPNetSyslogEndpointWriterIF)) {
+            return null;
+        }
+
+        TCPNetSyslogEndpoint failedEndpoint = ((TCPNetSyslogEndpointWriterIF) failedWriter).getEndpoint();
+
+        int start = 0;
+
+        for(int i=0; i<this.endpoints.length; i++) {
+            if (this.endpoints[i] == failedEndpoint) {
+                start = i + 1;
+            }
+        }
+
+        long currentTimeMs = System.currentTimeMillis();
+
+        for(int i=0; i<this.endpoints.length; i++) {
+            TCPNetSyslogEndpoint endpoint = this.endpoints[(start + i) % this.endpoints.length];
+
+            if (endpoint != failedEndpoint && endpoint.isAvailable(currentTimeMs)) {
+                endpoint.pending.incrementAndGet();
+
+                return getWriter(endpoint);
+            }
+        }
+
+        return null;
+    }
+
+    protected boolean isEndpointAvailable() {
+        long currentTimeMs = System.currentTimeMillis();
+
+        for(int i=0; i<this.endpoints.length; i++) {
+            if (this.endpoints[i].isAvailable(currentTimeMs)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Called by writers when a connect succeeds.
+     */
+    public void connected(TCPNetSyslogEndpoint endpoint) {
+        if (endpoint != null) {
+            endpoint.markUp();
+        }
+    }
+
+    /**
+     * Called by writers when a connect fails: takes the endpoint out of
+     * rotation, and opens the circuit breaker once no endpoint is left.
+     */
+    public void connectFailed(TCPNetSyslogEndpoint endpoint) {
+        if (endpoint != null) {
+            endpoint.markDown(this.tcpNetSyslogConfig.getEndpointRetryInterval());
+
+            if (isEndpointAvailable()) {
+                return;
+            }
+        }
+
+        openCircuit();
     }
 
     public synchronized AbstractSyslogWriter getWriter(boolean create) {
@@ -55,7 +271,7 @@ public class TCPNetSyslog extends AbstractNetSyslog {
             return this.writer;
         }
 
-        this.writer = (TCPNetSyslogWriter) createWriter();
+        this.writer = createWriter();
 
         if (this.tcpNetSyslogConfig.isThreaded()) {
             createWriterThread(this.writer);
@@ -68,13 +284,49 @@ public class TCPNetSyslog extends AbstractNetSyslog {
         AbstractSyslogWriter syslogWriter = getWriter();
 
         try {
-            if (syslogWriter.hasThread()) {
-                syslogWriter.queue(level,message);
+            write(syslogWriter,level,message);
 
-            } else {
-                synchronized(syslogWriter) {
-                    syslogWriter.write(message);
-                }
+        } catch (SyslogRuntimeException sre) {
+            AbstractSyslogWriter failoverWriter = getFailoverWriter(syslogWriter);
+
+            if (failoverWriter == null) {
+                throw sre;
+            }
+
+            try {
+                write(failoverWriter,level,message);
+
+            } finally {
+                returnWriter(failoverWriter);
+            }
+
+        } finally {
+            returnWriter(syslogWriter);
+        }
+    }
+
+    /**
+     * Writes every packet of the message through one writer, so that all the
+     * parts of a split message are sent to the same endpoint, in order.
+     */
+    protected void write(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, byte[] h, byte[] m, int messageLength) throws SyslogRuntimeException {
+        AbstractSyslogWriter syslogWriter = getWriter();
+
+        try {
+            split(plan,syslogWriter,messageProcessor,level,h,m,messageLength,null);
+
+        } catch (SyslogRuntimeException sre) {
+            AbstractSyslogWriter failoverWriter = getFailoverWriter(syslogWriter);
+
+            if (failoverWriter == null) {
+                throw sre;
+            }
+
+            try {
+                split(plan,failoverWriter,messageProcessor,level,h,m,messageLength,null);
+
+            } finally {
+                returnWriter(failoverWriter);
             }
 
         } finally {
@@ -82,12 +334,88 @@ public class TCPNetSyslog extends AbstractNetSyslog {
         }
     }
 
+    protected void write(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) throws SyslogRuntimeException {
+        if (syslogWriter.hasThread()) {
+            syslogWriter.queue(level,message);
+
+        } else {
+            synchronized(syslogWriter) {
+                syslogWriter.write(message);
+            }
+        }
+    }
+
+    protected void writePacket(AbstractSyslogWriter syslogWriter, SyslogLevel level, SyslogMessageProcessorIF messageProcessor, byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) throws SyslogRuntimeException {
+        if (syslogWriter == null) {
+            super.writePacket(syslogWriter,level,messageProcessor,header,message,start,length,splitBeginText,splitEndText);
+            return;
+        }
+
+        if (isGatheringAllowed(messageProcessor) && !syslogWriter.hasThread() && syslogWriter instanceof GatheringSyslogWriterIF) {
+            synchronized(syslogWriter) {
+                ((GatheringSyslogWriterIF) syslogWriter).write(header,message,start,length,splitBeginText,splitEndText);
+            }
+
+        } else {
+            write(syslogWriter,level,createPacketData(messageProcessor,header,message,start,length,splitBeginText,splitEndText));
+        }
+    }
+
+    /**
+     * Tests whether the destination accepts connections again.
+     */
+    protected boolean probe() {
+        if (this.endpoints == null) {
+            return probe(getHostAddress(),this.syslogConfig.getPort());
+        }
+
+        boolean available = false;
+
+        for(int i=0; i<this.endpoints.length; i++) {
+            if (probe(this.endpoints[i].getHostAddress(),this.endpoints[i].getPort())) {
+                this.endpoints[i].markUp();
+                available = true;
+            }
+        }
+
+        return available;
+    }
+
+    protected boolean probe(InetAddress hostAddress, int port) {
+        Socket socket = new Socket();
+
+        try {
+            socket.connect(new InetSocketAddress(hostAddress,port),SyslogConstants.CIRCUIT_BREAKER_PROBE_TIMEOUT);
+
+            return true;
+
+        } catch (IOException ioe) {
+            return false;
+
+        } finally {
+            try {
+                socket.close();
+
+            } catch (IOException ioe) {
+                //
+            }
+        }
+    }
+
     public void flush() throws SyslogRuntimeException {
         AbstractSyslogWriter syslogWriter = getWriter(false);
 
         if (syslogWriter != null) {
             syslogWriter.flush();
         }
+
+        if (this.endpoints != null) {
+            for(int i=0; i<this.endpoints.length; i++) {
+                if (this.endpoints[i].writer != null) {
+                    this.endpoints[i].writer.flush();
+                }
+            }
+        }
     }
 
     public void shutdown() throws SyslogRuntimeException {
@@ -96,9 +424,23 @@ public class TCPNetSyslog extends AbstractNetSyslog {
         if (syslogWriter != null) {
             syslogWriter.shutdown();
         }
+
+        if (this.endpoints != null) {
+            for(int i=0; i<this.endpoints.length; i++) {
+                if (this.endpoints[i].writer != null) {
+                    this.endpoints[i].writer.shutdown();
+                }
+            }
+        }
     }
 
     public void returnWriter(AbstractSyslogWriter syslogWriter) {
-        //
+        if (this.endpoints != null && syslogWriter instanceof TCPNetSyslogEndpointWriterIF) {
+            TCPNetSyslogEndpoint endpoint = ((TCPNetSyslogEndpointWriterIF) syslogWriter).getEndpoint();
+
+            if (endpoint != null) {
+                endpoint.pending.decrementAndGet();
+            }
+        }
     }
 }
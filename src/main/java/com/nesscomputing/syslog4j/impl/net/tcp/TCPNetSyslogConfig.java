@@ -14,8 +14,10 @@
  */
 package com.nesscomputing.syslog4j.impl.net.tcp;
 
+import java.util.List;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
 import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
@@ -65,6 +67,17 @@ public class TCPNetSyslogConfig extends AbstractNetSyslogConfig implements TCPNe
 
     protected int freshConnectionInterval = SyslogConstants.TCP_FRESH_CONNECTION_INTERVAL_DEFAULT;
 
+    protected int maxBatchSize = SyslogConstants.TCP_MAX_BATCH_SIZE_DEFAULT;
+
+    protected int connectTimeout = SyslogConstants.TCP_CONNECT_TIMEOUT_DEFAULT;
+
+    protected long reconnectInitialBackoff = SyslogConstants.TCP_RECONNECT_INITIAL_BACKOFF_DEFAULT;
+    protected long reconnectMaxBackoff = SyslogConstants.TCP_RECONNECT_MAX_BACKOFF_DEFAULT;
+
+    protected List<String> endpoints = null;
+    protected byte endpointStrategy = SyslogConstants.TCP_ENDPOINT_STRATEGY_DEFAULT;
+    protected long endpointRetryInterval = SyslogConstants.TCP_ENDPOINT_RETRY_INTERVAL_DEFAULT;
+
     public TCPNetSyslogConfig() {
         initialize();
     }
@@ -172,6 +185,70 @@ public class TCPNetSyslogConfig extends AbstractNetSyslogConfig implements TCPNe
         this.freshConnectionInterval = freshConnectionInterval;
     }
 
+    public int getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public long getReconnectInitialBackoff() {
+        return this.reconnectInitialBackoff;
+    }
+
+    public void setReconnectInitialBackoff(long reconnectInitialBackoff) {
+        this.reconnectInitialBackoff = reconnectInitialBackoff;
+    }
+
+    public long getReconnectMaxBackoff() {
+        return this.reconnectMaxBackoff;
+    }
+
+    public void setReconnectMaxBackoff(long reconnectMaxBackoff) {
+        this.reconnectMaxBackoff = reconnectMaxBackoff;
+    }
+
+    public List<String> getEndpoints() {
+        return this.endpoints;
+    }
+
+    public void setEndpoints(List<String> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public synchronized void addEndpoint(String endpoint) {
+        if (this.endpoints == null) {
+            this.endpoints = Lists.newArrayList();
+        }
+
+        this.endpoints.add(endpoint);
+    }
+
+    public byte getEndpointStrategy() {
+        return this.endpointStrategy;
+    }
+
+    public void setEndpointStrategy(byte endpointStrategy) {
+        this.endpointStrategy = endpointStrategy;
+    }
+
+    public long getEndpointRetryInterval() {
+        return this.endpointRetryInterval;
+    }
+
+    public void setEndpointRetryInterval(long endpointRetryInterval) {
+        this.endpointRetryInterval = endpointRetryInterval;
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
     public Class<? extends AbstractSyslogWriter> getSyslogWriterClass() {
         return TCPNetSyslogWriter.class;
     }
@@ -14,6 +14,8 @@
  */
 package com.nesscomputing.syslog4j.impl.net.tcp;
 
+import java.util.List;
+
 import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslogConfigIF;
 
 /**
@@ -28,6 +30,10 @@ import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslogConfigIF;
 * @version $Id: TCPNetSyslogConfigIF.java,v 1.6 2010/10/29 03:14:12 cvs Exp $
 */
 public interface TCPNetSyslogConfigIF extends AbstractNetSyslogConfigIF {
+    public final static byte ENDPOINT_STRATEGY_ROUND_ROBIN = 0;
+    public final static byte ENDPOINT_STRATEGY_LEAST_QUEUED = 1;
+    public final static byte ENDPOINT_STRATEGY_FAILOVER = 2;
+
     public byte[] getDelimiterSequence();
     public void setDelimiterSequence(byte[] delimiterSequence);
 
@@ -51,4 +57,64 @@ public interface TCPNetSyslogConfigIF extends AbstractNetSyslogConfigIF {
 
     public int getFreshConnectionInterval();
     public void setFreshConnectionInterval(int interval);
+
+    public int getConnectTimeout();
+    /**
+     * @param connectTimeout - maximum time in milliseconds to wait for a connection; use 0 to wait indefinitely
+     */
+    public void setConnectTimeout(int connectTimeout);
+
+    public long getReconnectInitialBackoff();
+    /**
+     * After a failed connect, hold off further connects for a jittered backoff
+     * starting at reconnectInitialBackoff milliseconds and doubling with each
+     * failure up to reconnectMaxBackoff.  In non-threaded mode the reconnects
+     * are made on a shared timer thread, and messages fail fast in the meantime.
+     * Use the (default) value of 0 to attempt a connect on every write.
+     *
+     * @param reconnectInitialBackoff
+     */
+    public void setReconnectInitialBackoff(long reconnectInitialBackoff);
+
+    public long getReconnectMaxBackoff();
+    public void setReconnectMaxBackoff(long reconnectMaxBackoff);
+
+    public List<String> getEndpoints();
+    public void setEndpoints(List<String> endpoints);
+    /**
+     * Adds a destination of the form "host", "host:port" or "[address]:port"
+     * (port defaults to getPort()).  When endpoints are configured, messages
+     * are spread over them according to endpointStrategy, each endpoint with
+     * its own connection, and host is not used.  (Not supported by the pooled
+     * implementations, which fail to initialize when endpoints are set.)
+     *
+     * @param endpoint
+     */
+    public void addEndpoint(String endpoint);
+
+    public byte getEndpointStrategy();
+    /**
+     * @param endpointStrategy - ENDPOINT_STRATEGY_ROUND_ROBIN (the default),
+     * ENDPOINT_STRATEGY_LEAST_QUEUED (the endpoint with the fewest writes in
+     * progress and queued messages) or ENDPOINT_STRATEGY_FAILOVER (the first
+     * available endpoint in the order they were added)
+     */
+    public void setEndpointStrategy(byte endpointStrategy);
+
+    public long getEndpointRetryInterval();
+    /**
+     * @param endpointRetryInterval - time in milliseconds an endpoint is left
+     * out of rotation after failing to connect
+     */
+    public void setEndpointRetryInterval(long endpointRetryInterval);
+
+    public int getMaxBatchSize();
+    /**
+     * In "threaded" mode, frame up to maxBatchSize bytes of queued messages
+     * (including delimiters) into one buffer and send them with a single write.
+     * Use the (default) value of 0 to send queued messages one at a time.
+     *
+     * @param maxBatchSize
+     */
+    public void setMaxBatchSize(int maxBatchSize);
 }
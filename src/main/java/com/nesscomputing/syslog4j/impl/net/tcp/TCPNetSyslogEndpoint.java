@@ -0,0 +1,142 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.tcp;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueIF;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+/**
+* TCPNetSyslogEndpoint is one of the destinations of a TCPNetSyslog configured
+* with several endpoints (see TCPNetSyslogConfigIF.addEndpoint(..)).  Each
+* endpoint has its own writer, and so its own connection (and in "threaded"
+* mode its own queue and thread).
+*
+* <p>An endpoint whose writer fails to connect is taken out of rotation for
+* endpointRetryInterval milliseconds, after which it is tried again.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class TCPNetSyslogEndpoint {
+    protected final String host;
+    protected final int port;
+    protected final boolean cacheHostAddress;
+
+    private volatile InetAddress cachedHostAddress = null;
+
+    protected volatile AbstractSyslogWriter writer = null;
+
+    protected final AtomicInteger pending = new AtomicInteger(0);
+
+    protected volatile long downUntilMs = 0;
+
+    public TCPNetSyslogEndpoint(String host, int port, boolean cacheHostAddress) {
+        this.host = host;
+        this.port = port;
+        this.cacheHostAddress = cacheHostAddress;
+    }
+
+    /**
+     * Parses an endpoint of the form "host", "host:port" or "[address]:port".
+     */
+    public static TCPNetSyslogEndpoint parse(String endpoint, int defaultPort, boolean cacheHostAddress) {
+        String host = endpoint.trim();
+        int port = defaultPort;
+
+        int colon = host.lastIndexOf(':');
+
+        if (colon > 0 && (host.charAt(0) == '[' ? host.charAt(colon - 1) == ']' : host.indexOf(':') == colon)) {
+            port = Integer.parseInt(host.substring(colon + 1).trim());
+            host = host.substring(0,colon);
+        }
+
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1,host.length() - 1);
+        }
+
+        return new TCPNetSyslogEndpoint(host,port,cacheHostAddress);
+    }
+
+    public String getHost() {
+        return this.host;
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    public InetAddress getHostAddress() {
+        if (!this.cacheHostAddress) {
+            return SyslogUtility.getInetAddress(this.host);
+        }
+
+        if (this.cachedHostAddress == null) {
+            this.cachedHostAddress = SyslogUtility.getInetAddress(this.host);
+        }
+
+        return this.cachedHostAddress;
+    }
+
+    public AbstractSyslogWriter getWriter() {
+        return this.writer;
+    }
+
+    /**
+     * @return true unless the endpoint was marked down less than endpointRetryInterval ago
+     */
+    public boolean isAvailable(long currentTimeMs) {
+        return currentTimeMs >= this.downUntilMs;
+    }
+
+    public long getDownUntilMs() {
+        return this.downUntilMs;
+    }
+
+    public void markDown(long retryInterval) {
+        this.downUntilMs = System.currentTimeMillis() + retryInterval;
+    }
+
+    public void markUp() {
+        this.downUntilMs = 0;
+    }
+
+    /**
+     * @return the number of writes in progress plus (in "threaded" mode) the number of queued messages
+     */
+    public int getLoad() {
+        int load = this.pending.get();
+
+        AbstractSyslogWriter endpointWriter = this.writer;
+
+        if (endpointWriter != null) {
+            SyslogQueueIF queue = endpointWriter.getQueue();
+
+            if (queue != null) {
+                load += queue.size();
+            }
+        }
+
+        return load;
+    }
+
+    public String toString() {
+        return this.host + ":" + this.port;
+    }
+}
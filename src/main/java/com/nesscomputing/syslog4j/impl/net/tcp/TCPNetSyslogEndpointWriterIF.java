@@ -0,0 +1,34 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.tcp;
+
+/**
+* TCPNetSyslogEndpointWriterIF is implemented by TCP-based writers which can be
+* pointed at one of several endpoints instead of the configured host and port.
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public interface TCPNetSyslogEndpointWriterIF {
+    public TCPNetSyslogEndpoint getEndpoint();
+
+    /**
+     * Called before the writer is initialized.
+     *
+     * @param endpoint
+     */
+    public void setEndpoint(TCPNetSyslogEndpoint endpoint);
+}
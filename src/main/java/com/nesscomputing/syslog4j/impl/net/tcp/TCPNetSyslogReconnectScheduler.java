@@ -0,0 +1,256 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.tcp;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+* TCPNetSyslogReconnectScheduler decides when a TCP-based writer may open a
+* new connection.
+*
+* <p>After a failed connect, further attempts are held off for a jittered,
+* exponentially growing backoff (starting at reconnectInitialBackoff and
+* doubling up to reconnectMaxBackoff); a successful connect resets it.  The
+* age of the current connection is tracked here as well, so that
+* freshConnectionInterval is decided in the same place.</p>
+*
+* <p>In "threaded" mode the writer thread leaves messages queued until the
+* backoff expires.  In non-threaded mode attempts are made on a timer thread
+* shared by all writers, so that callers logging while the destination is down
+* fail fast instead of each waiting on a connect; the timer thread exits when
+* no attempt is scheduled.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class TCPNetSyslogReconnectScheduler {
+    private static ScheduledExecutorService timer = null;
+    private static int timerUsers = 0;
+
+    protected final long initialBackoff;
+    protected final long maxBackoff;
+    protected final int freshConnectionInterval;
+
+    protected final Random random = new Random();
+
+    protected int failures = 0;
+    protected long nextAttemptTimeMs = 0;
+    protected long connectedTimeMs = 0;
+    protected boolean reconnectPending = false;
+    protected boolean cancelled = false;
+    protected ScheduledFuture<?> scheduledReconnect = null;
+
+    public TCPNetSyslogReconnectScheduler(long initialBackoff, long maxBackoff, int freshConnectionInterval) {
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = Math.max(initialBackoff,maxBackoff);
+        this.freshConnectionInterval = freshConnectionInterval;
+    }
+
+    /**
+     * @return the shared timer, which is kept until a matching releaseTimer()
+     */
+    protected static synchronized ScheduledExecutorService acquireTimer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable,"TCPNetSyslogReconnectScheduler");
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+        }
+
+        timerUsers++;
+
+        return timer;
+    }
+
+    protected static synchronized void releaseTimer() {
+        timerUsers--;
+
+        if (timerUsers == 0) {
+            timer.shutdown();
+            timer = null;
+        }
+    }
+
+    public boolean isBackoffEnabled() {
+        return this.initialBackoff > 0;
+    }
+
+    /**
+     * @return the number of milliseconds until the next connect attempt is allowed, or 0 if it is allowed now
+     */
+    public synchronized long getReconnectDelay() {
+        return Math.max(0,this.nextAttemptTimeMs - System.currentTimeMillis());
+    }
+
+    /**
+     * @return true if a connect may be attempted now, i.e. no backoff is in
+     * effect and no attempt is scheduled on the shared timer
+     */
+    public synchronized boolean isConnectDue() {
+        return !this.reconnectPending && getReconnectDelay() == 0;
+    }
+
+    /**
+     * @return true if the current connection is older than freshConnectionInterval
+     */
+    public synchronized boolean isConnectionStale() {
+        return this.freshConnectionInterval > 0 && (System.currentTimeMillis() - this.connectedTimeMs) >= this.freshConnectionInterval;
+    }
+
+    /**
+     * Records a successful connect; a writer connecting again after cancel()
+     * is in use again, so this also allows reconnects to be scheduled.
+     */
+    public synchronized void connected() {
+        this.cancelled = false;
+        this.failures = 0;
+        this.nextAttemptTimeMs = 0;
+        this.connectedTimeMs = System.currentTimeMillis();
+    }
+
+    /**
+     * Records a failed connect and starts the next backoff period.
+     *
+     * @return the backoff in milliseconds before the next attempt
+     */
+    public synchronized long connectFailed() {
+        if (!isBackoffEnabled()) {
+            return 0;
+        }
+
+        if (this.failures < 62) {
+            this.failures++;
+        }
+
+        long backoff = this.initialBackoff;
+
+        for(int i=1; i<this.failures && backoff < this.maxBackoff; i++) {
+            backoff *= 2;
+        }
+
+        backoff = Math.min(backoff,this.maxBackoff);
+
+        //  half the backoff is fixed and half is random, so that clients which
+        //  lost the same destination do not all come back at the same moment
+        long delay = backoff / 2 + (long) (this.random.nextDouble() * (backoff - backoff / 2));
+
+        this.nextAttemptTimeMs = System.currentTimeMillis() + delay;
+
+        return delay;
+    }
+
+    public synchronized int getFailures() {
+        return this.failures;
+    }
+
+    public synchronized boolean isReconnectPending() {
+        return this.reconnectPending;
+    }
+
+    /**
+     * Runs reconnect on the shared timer once the current backoff expires,
+     * rescheduling it (with a longer backoff) for as long as it throws.  Only
+     * one attempt is pending at a time; does nothing if backoff is disabled.
+     */
+    public synchronized void scheduleReconnect(final Callable<?> reconnect) {
+        if (this.reconnectPending || this.cancelled || !isBackoffEnabled()) {
+            return;
+        }
+
+        this.reconnectPending = true;
+
+        this.scheduledReconnect = acquireTimer().schedule(new Runnable() {
+            public void run() {
+                try {
+                    attemptReconnect(reconnect);
+
+                } finally {
+                    releaseTimer();
+                }
+            }
+        },getReconnectDelay(),TimeUnit.MILLISECONDS);
+    }
+
+    protected void attemptReconnect(Callable<?> reconnect) {
+        synchronized(this) {
+            this.scheduledReconnect = null;
+
+            if (this.cancelled) {
+                this.reconnectPending = false;
+                return;
+            }
+        }
+
+        boolean success = false;
+
+        try {
+            reconnect.call();
+            success = true;
+
+        } catch (Exception e) {
+            //
+        }
+
+        synchronized(this) {
+            this.reconnectPending = false;
+
+            if (this.cancelled) {
+                return;
+            }
+
+            if (success) {
+                connected();
+
+            } else {
+                connectFailed();
+                scheduleReconnect(reconnect);
+            }
+        }
+    }
+
+    /**
+     * Stops any reconnects scheduled on the shared timer, until the next
+     * successful connect.
+     */
+    public synchronized void cancel() {
+        this.cancelled = true;
+
+        if (this.scheduledReconnect != null && this.scheduledReconnect.cancel(false)) {
+            //  the attempt will not run, so will not release the timer itself
+            this.scheduledReconnect = null;
+            this.reconnectPending = false;
+
+            releaseTimer();
+        }
+    }
+
+    /**
+     * @return true if the shared timer thread is running
+     */
+    public static synchronized boolean isTimerRunning() {
+        return timer != null;
+    }
+}
@@ -15,17 +15,14 @@
 package com.nesscomputing.syslog4j.impl.net.tcp;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 
 import javax.net.SocketFactory;
 
 import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
-import com.nesscomputing.syslog4j.impl.AbstractSyslog;
-import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
-import com.nesscomputing.syslog4j.util.SyslogUtility;
 
 /**
 * TCPNetSyslogWriter is an implementation of Runnable that supports sending
@@ -34,6 +31,11 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 * <p>When used in "threaded" mode (see TCPNetSyslogConfig for the option),
 * a queuing mechanism is used (via LinkedList).</p>
 *
+* <p>Each frame is built in a reusable byte array and sent with a single
+* write to the socket's OutputStream; connection handling, batching and
+* retries are shared with the other TCP writers (see
+* AbstractTCPNetSyslogWriter).</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -41,27 +43,13 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: TCPNetSyslogWriter.java,v 1.20 2010/11/28 01:38:08 cvs Exp $
 */
-public class TCPNetSyslogWriter extends AbstractSyslogWriter {
-    protected TCPNetSyslog tcpNetSyslog = null;
-
-    protected Socket socket = null;
-
-    protected TCPNetSyslogConfigIF tcpNetSyslogConfig = null;
-
-    protected long lastSocketCreationTimeMs = 0;
+public class TCPNetSyslogWriter extends AbstractTCPNetSyslogWriter<Socket> {
+    protected byte[] frameBuffer = new byte[SyslogConstants.SYSLOG_BUFFER_SIZE];
 
     public TCPNetSyslogWriter() {
         //
     }
 
-    public void initialize(AbstractSyslog abstractSyslog) {
-        super.initialize(abstractSyslog);
-
-        this.tcpNetSyslog = (TCPNetSyslog) abstractSyslog;
-
-        this.tcpNetSyslogConfig = (TCPNetSyslogConfigIF) this.tcpNetSyslog.getConfig();
-    }
-
     protected SocketFactory obtainSocketFactory() {
         return SocketFactory.getDefault();
     }
@@ -69,7 +57,24 @@ public class TCPNetSyslogWriter extends AbstractSyslogWriter {
     protected Socket createSocket(InetAddress hostAddress, int port, boolean keepalive) throws IOException {
         SocketFactory socketFactory = obtainSocketFactory();
 
-        Socket newSocket = socketFactory.createSocket(hostAddress,port);
+        Socket newSocket = null;
+
+        int connectTimeout = this.tcpNetSyslogConfig.getConnectTimeout();
+
+        if (connectTimeout > 0) {
+            newSocket = socketFactory.createSocket();
+
+            try {
+                newSocket.connect(new InetSocketAddress(hostAddress,port),connectTimeout);
+
+            } catch (IOException ioe) {
+                newSocket.close();
+                throw ioe;
+            }
+
+        } else {
+            newSocket = socketFactory.createSocket(hostAddress,port);
+        }
 
         if (this.tcpNetSyslogConfig.isSoLinger()) {
             newSocket.setSoLinger(true,this.tcpNetSyslogConfig.getSoLingerSeconds());
@@ -86,155 +91,50 @@ public class TCPNetSyslogWriter extends AbstractSyslogWriter {
         return newSocket;
     }
 
-    protected Socket getSocket() throws SyslogRuntimeException {
-        if (this.socket != null && this.socket.isConnected()) {
-            int freshConnectionInterval = this.tcpNetSyslogConfig.getFreshConnectionInterval();
-
-            if (freshConnectionInterval > 0) {
-                long currentTimeMs = System.currentTimeMillis();
-
-                if ((currentTimeMs - lastSocketCreationTimeMs) >= freshConnectionInterval) {
-                    closeSocket(this.socket);
-                }
-
-            } else {
-                return this.socket;
-            }
-        }
-
-        if (this.socket == null) {
-            lastSocketCreationTimeMs = 0;
-
-            try {
-                InetAddress hostAddress = this.tcpNetSyslog.getHostAddress();
-
-                this.socket = createSocket(hostAddress,this.syslog.getConfig().getPort(),this.tcpNetSyslogConfig.isPersistentConnection());
-                lastSocketCreationTimeMs = System.currentTimeMillis();
-
-            } catch (IOException ioe) {
-                throw new SyslogRuntimeException(ioe);
-            }
-        }
-
-        return this.socket;
+    protected Socket createConnection(InetAddress hostAddress, int port, boolean keepalive) throws IOException {
+        return createSocket(hostAddress,port,keepalive);
     }
 
-    protected void closeSocket(Socket socketToClose) {
-        if (socketToClose == null) {
-            return;
-        }
+    protected Socket getSocket() throws SyslogRuntimeException {
+        return getConnection();
+    }
 
+    protected void disconnect(Socket socketToClose) throws IOException {
         try {
             socketToClose.close();
 
         } catch (IOException ioe) {
             if (!"Socket is closed".equalsIgnoreCase(ioe.getMessage())) {
-                throw new SyslogRuntimeException(ioe);
-            }
-
-        } finally {
-            if (socketToClose == this.socket) {
-                this.socket = null;
+                throw ioe;
             }
         }
     }
 
-    public void write(byte[] message) throws SyslogRuntimeException {
-        Socket currentSocket = null;
-
-        int attempts = 0;
-        while(attempts != -1 && attempts < (this.tcpNetSyslogConfig.getWriteRetries() + 1)) {
-            try {
-                currentSocket = getSocket();
-
-                if (currentSocket == null) {
-                       throw new SyslogRuntimeException("No socket available");
-                }
-
-                OutputStream os = currentSocket.getOutputStream();
-
-                if (this.tcpNetSyslogConfig.isSetBufferSize()) {
-                    currentSocket.setSendBufferSize(message.length);
-                }
-
-                os.write(message);
-
-                byte[] delimiterSequence = this.tcpNetSyslogConfig.getDelimiterSequence();
-                if (delimiterSequence != null && delimiterSequence.length > 0) {
-                    os.write(delimiterSequence);
-                }
-
-                this.syslog.setBackLogStatus(false);
-
-                attempts = -1;
-
-                if (!this.tcpNetSyslogConfig.isPersistentConnection()) {
-                       closeSocket(currentSocket);
-                }
-
-            } catch (IOException ioe) {
-                attempts++;
-                closeSocket(currentSocket);
-
-                if (attempts >= (this.tcpNetSyslogConfig.getWriteRetries() + 1)) {
-                    throw new SyslogRuntimeException(ioe);
-                }
-            }
-        }
+    protected boolean isConnected(Socket socketToCheck) {
+        return socketToCheck.isConnected();
     }
 
-    public synchronized void flush() throws SyslogRuntimeException {
-        if (this.socket == null) {
-            return;
-        }
-
-        if (this.syslogConfig.isThreaded()) {
-            this.shutdown();
-            this.syslog.createWriterThread(this);
-
-        } else {
-            closeSocket(this.socket);
-        }
+    protected boolean isClosed(Socket socketToCheck) {
+        return socketToCheck.isClosed();
     }
 
-    public void shutdown() throws SyslogRuntimeException {
-        this.shutdown = true;
-
-        synchronized(this) {
-            if (this.syslogConfig.isThreaded()) {
-                long timeStart = System.currentTimeMillis();
-                boolean done = false;
-
-                while(!done) {
-                    if (this.socket == null || this.socket.isClosed()) {
-                        done = true;
-
-                    } else {
-                        long now = System.currentTimeMillis();
-
-                        if (now > (timeStart + this.tcpNetSyslogConfig.getMaxShutdownWait())) {
-                            closeSocket(this.socket);
-                            this.thread.interrupt();
-                            done = true;
-                        }
-
-                        if (!done) {
-                            SyslogUtility.sleep(SyslogConstants.SHUTDOWN_INTERVAL);
-                        }
-                    }
-                }
+    protected void setSendBufferSize(Socket socketToSet, int size) throws IOException {
+        socketToSet.setSendBufferSize(size);
+    }
 
-            } else {
-                if (this.socket == null || this.socket.isClosed()) {
-                    return;
-                }
+    protected void appendToFrame(byte[] data, int start, int length, int offset) {
+        int newLength = offset + length;
 
-                closeSocket(this.socket);
-            }
+        if (newLength > this.frameBuffer.length) {
+            byte[] newFrameBuffer = new byte[Math.max(newLength,this.frameBuffer.length * 2)];
+            System.arraycopy(this.frameBuffer,0,newFrameBuffer,0,offset);
+            this.frameBuffer = newFrameBuffer;
         }
+
+        System.arraycopy(data,start,this.frameBuffer,offset,length);
     }
 
-    protected void runCompleted() {
-        closeSocket(this.socket);
+    protected void writeFrame(Socket socketToWrite, int length) throws IOException {
+        socketToWrite.getOutputStream().write(this.frameBuffer,0,length);
     }
 }
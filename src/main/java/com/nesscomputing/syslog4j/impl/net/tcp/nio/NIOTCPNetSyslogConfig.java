@@ -0,0 +1,57 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.tcp.nio;
+
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+
+/**
+* NIOTCPNetSyslogConfig is an extension of TCPNetSyslogConfig that selects the
+* NIO SocketChannel-based NIOTCPNetSyslogWriter.
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class NIOTCPNetSyslogConfig extends TCPNetSyslogConfig implements NIOTCPNetSyslogConfigIF {
+    public NIOTCPNetSyslogConfig() {
+        //
+    }
+
+    public NIOTCPNetSyslogConfig(SyslogFacility facility, String host, int port) {
+        super(facility, host, port);
+    }
+
+    public NIOTCPNetSyslogConfig(SyslogFacility facility, String host) {
+        super(facility, host);
+    }
+
+    public NIOTCPNetSyslogConfig(SyslogFacility facility) {
+        super(facility);
+    }
+
+    public NIOTCPNetSyslogConfig(String host, int port) {
+        super(host, port);
+    }
+
+    public NIOTCPNetSyslogConfig(String host) {
+        super(host);
+    }
+
+    public Class<? extends AbstractSyslogWriter> getSyslogWriterClass() {
+        return NIOTCPNetSyslogWriter.class;
+    }
+}
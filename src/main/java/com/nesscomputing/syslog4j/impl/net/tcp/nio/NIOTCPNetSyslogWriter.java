@@ -0,0 +1,171 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.tcp.nio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import com.nesscomputing.syslog4j.SyslogConstants;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.net.tcp.AbstractTCPNetSyslogWriter;
+
+/**
+* NIOTCPNetSyslogWriter is an implementation of Runnable that supports sending
+* TCP-based messages over a java.nio SocketChannel.
+*
+* <p>The header, message and delimiter sequence of each packet (or, in
+* threaded mode with maxBatchSize set, each batch of queued messages) are
+* copied straight into a reusable direct buffer and sent with a single write,
+* without first being concatenated into a new array.  A channel copies heap
+* buffers into a temporary direct buffer before writing them, so this one copy
+* is the least a write from the caller's arrays can cost.</p>
+*
+* <p>Connection handling, batching and retries, including the reconnect
+* backoff, are shared with TCPNetSyslogWriter (see
+* AbstractTCPNetSyslogWriter).</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class NIOTCPNetSyslogWriter extends AbstractTCPNetSyslogWriter<SocketChannel> {
+    protected ByteBuffer frameBuffer = ByteBuffer.allocateDirect(SyslogConstants.SYSLOG_BUFFER_SIZE);
+
+    public NIOTCPNetSyslogWriter() {
+        //
+    }
+
+    protected SocketChannel createConnection(InetAddress hostAddress, int port, boolean keepalive) throws IOException {
+        SocketChannel newChannel = SocketChannel.open();
+
+        try {
+            Socket socket = newChannel.socket();
+
+            if (this.tcpNetSyslogConfig.isSoLinger()) {
+                socket.setSoLinger(true,this.tcpNetSyslogConfig.getSoLingerSeconds());
+            }
+
+            if (this.tcpNetSyslogConfig.isKeepAlive()) {
+                socket.setKeepAlive(keepalive);
+            }
+
+            if (this.tcpNetSyslogConfig.isReuseAddress()) {
+                socket.setReuseAddress(true);
+            }
+
+            connect(newChannel,new InetSocketAddress(hostAddress,port),this.tcpNetSyslogConfig.getConnectTimeout());
+
+            return newChannel;
+
+        } catch (IOException ioe) {
+            newChannel.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Connects channel in non-blocking mode, waiting up to connectTimeout
+     * milliseconds in total (0 waits indefinitely), and leaves it in blocking mode.
+     */
+    protected void connect(SocketChannel channelToConnect, InetSocketAddress address, int connectTimeout) throws IOException {
+        channelToConnect.configureBlocking(false);
+
+        if (!channelToConnect.connect(address)) {
+            Selector selector = Selector.open();
+
+            try {
+                channelToConnect.register(selector,SelectionKey.OP_CONNECT);
+
+                long deadline = System.currentTimeMillis() + connectTimeout;
+
+                while(!channelToConnect.finishConnect()) {
+                    long timeout = 0;
+
+                    if (connectTimeout > 0) {
+                        timeout = deadline - System.currentTimeMillis();
+
+                        if (timeout <= 0) {
+                            throw new SocketTimeoutException("Connection to " + address + " timed out after " + connectTimeout + "ms");
+                        }
+                    }
+
+                    selector.select(timeout);
+                    selector.selectedKeys().clear();
+                }
+
+            } finally {
+                selector.close();
+            }
+        }
+
+        channelToConnect.configureBlocking(true);
+    }
+
+    protected SocketChannel getChannel() throws SyslogRuntimeException {
+        return getConnection();
+    }
+
+    protected void disconnect(SocketChannel channelToClose) throws IOException {
+        channelToClose.close();
+    }
+
+    protected boolean isConnected(SocketChannel channelToCheck) {
+        return channelToCheck.isConnected();
+    }
+
+    protected boolean isClosed(SocketChannel channelToCheck) {
+        return !channelToCheck.isOpen();
+    }
+
+    protected void setSendBufferSize(SocketChannel channelToSet, int size) throws IOException {
+        channelToSet.socket().setSendBufferSize(size);
+    }
+
+    protected void appendToFrame(byte[] data, int start, int length, int offset) {
+        int newLength = offset + length;
+
+        if (newLength > this.frameBuffer.capacity()) {
+            ByteBuffer newFrameBuffer = ByteBuffer.allocateDirect(Math.max(newLength,this.frameBuffer.capacity() * 2));
+
+            this.frameBuffer.clear();
+            this.frameBuffer.limit(offset);
+            newFrameBuffer.put(this.frameBuffer);
+
+            this.frameBuffer = newFrameBuffer;
+        }
+
+        this.frameBuffer.clear();
+        this.frameBuffer.position(offset);
+        this.frameBuffer.put(data,start,length);
+    }
+
+    protected void writeFrame(SocketChannel channelToWrite, int length) throws IOException {
+        ByteBuffer frame = this.frameBuffer.duplicate();
+
+        frame.clear();
+        frame.limit(length);
+
+        while(frame.hasRemaining()) {
+            channelToWrite.write(frame);
+        }
+    }
+}
@@ -20,12 +20,19 @@ import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
 import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslog;
 import com.nesscomputing.syslog4j.impl.pool.AbstractSyslogPoolFactory;
-import com.nesscomputing.syslog4j.impl.pool.generic.GenericSyslogPoolFactory;
+import com.nesscomputing.syslog4j.impl.pool.leasing.LeasingSyslogPoolFactory;
 
 /**
 * PooledTCPNetSyslog is an extension of TCPNetSyslog which provides support
 * for Apache Commons Pool.
 *
+* <p>Writers are pooled by a LeasingSyslogPoolFactory; override
+* createSyslogPoolFactory() to use a GenericSyslogPoolFactory (a commons-pool
+* GenericObjectPool) instead.</p>
+*
+* <p>Endpoints are not supported: all pooled writers connect to host, and
+* initialize() fails if endpoints are configured.</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -41,13 +48,17 @@ public class PooledTCPNetSyslog extends TCPNetSyslog {
     public void initialize() throws SyslogRuntimeException {
         super.initialize();
 
+        if (this.endpoints != null) {
+            throw new SyslogRuntimeException("endpoints are not supported by PooledTCPNetSyslog");
+        }
+
         this.poolFactory = createSyslogPoolFactory();
 
         this.poolFactory.initialize(this);
     }
 
     protected AbstractSyslogPoolFactory createSyslogPoolFactory() {
-        AbstractSyslogPoolFactory syslogPoolFactory = new GenericSyslogPoolFactory();
+        AbstractSyslogPoolFactory syslogPoolFactory = new LeasingSyslogPoolFactory();
 
         return syslogPoolFactory;
     }
@@ -14,21 +14,20 @@
  */
 package com.nesscomputing.syslog4j.impl.net.udp;
 
-import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.net.SocketException;
-
 import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.GatheringSyslogWriterIF;
 import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslog;
 
 /**
 * UDPNetSyslog is an extension of AbstractSyslog that provides support for
 * UDP/IP-based syslog clients.
 *
+* <p>Messages are sent by a UDPNetSyslogWriter, on a separate Thread when
+* the configuration is "threaded".</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -37,78 +36,71 @@ import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslog;
 * @version $Id: UDPNetSyslog.java,v 1.18 2010/10/27 06:18:10 cvs Exp $
 */
 public class UDPNetSyslog extends AbstractNetSyslog {
-    protected DatagramSocket socket = null;
-
-    public void initialize() throws SyslogRuntimeException {
-        super.initialize();
+    protected AbstractSyslogWriter writer = null;
 
-        createDatagramSocket(true);
+    public AbstractSyslogWriter getWriter() {
+        return getWriter(true);
     }
 
-    protected synchronized void createDatagramSocket(boolean initialize) {
-        try {
-            this.socket = new DatagramSocket();
+    public synchronized AbstractSyslogWriter getWriter(boolean create) {
+        if (this.writer != null || !create) {
+            return this.writer;
+        }
 
-        } catch (SocketException se) {
-            if (initialize) {
-                if (this.syslogConfig.isThrowExceptionOnInitialize()) {
-                    throw new SyslogRuntimeException(se);
-                }
+        this.writer = createWriter();
 
-            } else {
-                throw new SyslogRuntimeException(se);
-            }
+        if (this.netSyslogConfig.isThreaded()) {
+            createWriterThread(this.writer);
         }
 
-        if (this.socket == null) {
-            throw new SyslogRuntimeException("Cannot seem to get a Datagram socket");
-        }
+        return this.writer;
     }
 
     protected void write(SyslogLevel level, byte[] message) throws SyslogRuntimeException {
-        if (this.socket == null) {
-               createDatagramSocket(false);
-        }
+        AbstractSyslogWriter syslogWriter = getWriter();
 
-        InetAddress hostAddress = getHostAddress();
+        if (syslogWriter.hasThread()) {
+            syslogWriter.queue(level,message);
 
-        DatagramPacket packet = new DatagramPacket(
-            message,
-            message.length,
-            hostAddress,
-            this.syslogConfig.getPort()
-        );
+        } else {
+            synchronized(syslogWriter) {
+                syslogWriter.write(message);
+            }
+        }
+    }
 
-        int attempts = 0;
+    protected void writePacket(AbstractSyslogWriter syslogWriter, SyslogLevel level, SyslogMessageProcessorIF messageProcessor, byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) throws SyslogRuntimeException {
+        if (!isGatheringAllowed(messageProcessor)) {
+            super.writePacket(syslogWriter,level,messageProcessor,header,message,start,length,splitBeginText,splitEndText);
+            return;
+        }
 
-        while(attempts != -1 && attempts < (this.netSyslogConfig.getWriteRetries() + 1)) {
-            try {
-                this.socket.send(packet);
-                attempts = -1;
+        AbstractSyslogWriter udpWriter = getWriter();
 
-            } catch (IOException ioe) {
-                if (attempts == (this.netSyslogConfig.getWriteRetries() + 1)) {
-                    throw new SyslogRuntimeException(ioe);
-                }
+        if (!udpWriter.hasThread() && udpWriter instanceof GatheringSyslogWriterIF) {
+            synchronized(udpWriter) {
+                ((GatheringSyslogWriterIF) udpWriter).write(header,message,start,length,splitBeginText,splitEndText);
             }
+
+        } else {
+            write(level,createPacketData(messageProcessor,header,message,start,length,splitBeginText,splitEndText));
         }
     }
 
     public void flush() throws SyslogRuntimeException {
-        shutdown();
+        AbstractSyslogWriter syslogWriter = getWriter(false);
 
-        createDatagramSocket(true);
+        if (syslogWriter != null) {
+            syslogWriter.flush();
+        }
     }
 
     public void shutdown() throws SyslogRuntimeException {
-        if (this.socket != null) {
-            this.socket.close();
-            this.socket = null;
-        }
-    }
+        AbstractSyslogWriter syslogWriter = getWriter(false);
 
-    public AbstractSyslogWriter getWriter() {
-        return null;
+        if (syslogWriter != null) {
+            syslogWriter.shutdown();
+        }
     }
 
     public void returnWriter(AbstractSyslogWriter syslogWriter) {
@@ -14,8 +14,10 @@
  */
 package com.nesscomputing.syslog4j.impl.net.udp;
 
+import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.SyslogFacility;
 import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
 import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslogConfig;
 
 /**
@@ -29,7 +31,9 @@ import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslogConfig;
 * @author &lt;syslog4j@productivity.org&gt;
 * @version $Id: UDPNetSyslogConfig.java,v 1.6 2008/11/14 04:32:00 cvs Exp $
 */
-public class UDPNetSyslogConfig extends AbstractNetSyslogConfig {
+public class UDPNetSyslogConfig extends AbstractNetSyslogConfig implements UDPNetSyslogConfigIF {
+    protected int maxPacketSize = SyslogConstants.UDP_MAX_PACKET_SIZE_DEFAULT;
+
     public UDPNetSyslogConfig() {
         super();
     }
@@ -54,7 +58,19 @@ public class UDPNetSyslogConfig extends AbstractNetSyslogConfig {
         super(host);
     }
 
+    public int getMaxPacketSize() {
+        return this.maxPacketSize;
+    }
+
+    public void setMaxPacketSize(int maxPacketSize) {
+        this.maxPacketSize = maxPacketSize;
+    }
+
     public Class<? extends SyslogIF> getSyslogClass() {
         return UDPNetSyslog.class;
     }
+
+    public Class<? extends AbstractSyslogWriter> getSyslogWriterClass() {
+        return UDPNetSyslogWriter.class;
+    }
 }
@@ -0,0 +1,43 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.udp;
+
+import com.nesscomputing.syslog4j.impl.net.AbstractNetSyslogConfigIF;
+
+/**
+* UDPNetSyslogConfigIF is a configuration interface supporting UDP/IP-based
+* Syslog implementations.
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public interface UDPNetSyslogConfigIF extends AbstractNetSyslogConfigIF {
+    public int getMaxPacketSize();
+    /**
+     * In "threaded" mode, pack queued messages, separated by LF, into datagrams
+     * of up to maxPacketSize bytes.  Use the (default) value of 0 to send one
+     * message per datagram.
+     *
+     * <p>The receiving server must split packed datagrams back into messages
+     * (see UDPNetSyslogServerConfig.setSplitPackedMessages(..)).  Messages
+     * containing LF, such as stack traces, are sent in a datagram of their own.
+     * The threadWakeUp and threadLinger* options control
+     * how long the writer waits for messages to fill a datagram.</p>
+     *
+     * @param maxPacketSize
+     */
+    public void setMaxPacketSize(int maxPacketSize);
+}
@@ -0,0 +1,350 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.net.udp;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+
+import com.nesscomputing.syslog4j.SyslogConstants;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.GatheringSyslogWriterIF;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+/**
+* UDPNetSyslogWriter is an implementation of Runnable that supports sending
+* UDP-based messages within a separate Thread.
+*
+* <p>When used in "threaded" mode (see AbstractSyslogConfig for the option),
+* a queuing mechanism is used (via LinkedList, or a ring buffer).</p>
+*
+* <p>Datagrams are sent through a DatagramChannel connected once to the
+* destination address, from a reusable direct buffer.  The parts of each packet
+* (including each part of a split message) are copied straight into that
+* buffer, without first being concatenated into a new array.  When maxPacketSize
+* is set, queued messages are packed several to a datagram; multi-line messages
+* are still sent one to a datagram.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class UDPNetSyslogWriter extends AbstractSyslogWriter implements GatheringSyslogWriterIF {
+    protected UDPNetSyslog udpNetSyslog = null;
+
+    protected UDPNetSyslogConfigIF udpNetSyslogConfig = null;
+
+    protected DatagramChannel channel = null;
+
+    protected ByteBuffer sendBuffer = ByteBuffer.allocateDirect(SyslogConstants.SYSLOG_BUFFER_SIZE);
+
+    public UDPNetSyslogWriter() {
+        //
+    }
+
+    public void initialize(AbstractSyslog abstractSyslog) {
+        super.initialize(abstractSyslog);
+
+        this.udpNetSyslog = (UDPNetSyslog) abstractSyslog;
+
+        this.udpNetSyslogConfig = (UDPNetSyslogConfigIF) this.udpNetSyslog.getConfig();
+    }
+
+    protected DatagramChannel createChannel(InetAddress hostAddress, int port) throws IOException {
+        DatagramChannel newChannel = DatagramChannel.open();
+
+        try {
+            newChannel.connect(new InetSocketAddress(hostAddress,port));
+
+            return newChannel;
+
+        } catch (IOException ioe) {
+            newChannel.close();
+            throw ioe;
+        }
+    }
+
+    protected DatagramChannel getChannel() throws SyslogRuntimeException {
+        if (this.channel == null) {
+            try {
+                InetAddress hostAddress = this.udpNetSyslog.getHostAddress();
+
+                this.channel = createChannel(hostAddress,this.syslogConfig.getPort());
+
+            } catch (IOException ioe) {
+                throw new SyslogRuntimeException(ioe);
+            }
+        }
+
+        return this.channel;
+    }
+
+    protected void closeChannel(DatagramChannel channelToClose) {
+        if (channelToClose == null) {
+            return;
+        }
+
+        try {
+            channelToClose.close();
+
+        } catch (IOException ioe) {
+            throw new SyslogRuntimeException(ioe);
+
+        } finally {
+            if (channelToClose == this.channel) {
+                this.channel = null;
+            }
+        }
+    }
+
+    /**
+     * Clears sendBuffer, replacing it with a larger buffer if it cannot hold length bytes.
+     */
+    protected void prepareSendBuffer(int length) {
+        if (length > this.sendBuffer.capacity()) {
+            this.sendBuffer = ByteBuffer.allocateDirect(Math.max(length,this.sendBuffer.capacity() * 2));
+        }
+
+        this.sendBuffer.clear();
+    }
+
+    public void write(byte[] message) throws SyslogRuntimeException {
+        prepareSendBuffer(message.length);
+
+        this.sendBuffer.put(message);
+
+        send();
+    }
+
+    public void write(byte[] header, byte[] message, int start, int length, byte[] splitBeginText, byte[] splitEndText) throws SyslogRuntimeException {
+        int packetLength = length;
+
+        packetLength += header != null ? header.length : 0;
+        packetLength += splitBeginText != null ? splitBeginText.length : 0;
+        packetLength += splitEndText != null ? splitEndText.length : 0;
+
+        prepareSendBuffer(packetLength);
+
+        if (header != null) {
+            this.sendBuffer.put(header);
+        }
+
+        if (splitBeginText != null) {
+            this.sendBuffer.put(splitBeginText);
+        }
+
+        this.sendBuffer.put(message,start,length);
+
+        if (splitEndText != null) {
+            this.sendBuffer.put(splitEndText);
+        }
+
+        send();
+    }
+
+    protected void writeQueuedMessages(List<byte []> messages) {
+        int maxPacketSize = this.udpNetSyslogConfig.getMaxPacketSize();
+
+        if (maxPacketSize <= 0) {
+            super.writeQueuedMessages(messages);
+            return;
+        }
+
+        prepareSendBuffer(maxPacketSize);
+
+        int packetStart = 0;
+
+        for(int i=0; i<messages.size(); i++) {
+            byte[] message = messages.get(i);
+
+            boolean packable = message.length <= maxPacketSize && !isMultiLine(message);
+
+            int delimiterLength = this.sendBuffer.position() > 0 ? 1 : 0;
+
+            if (delimiterLength > 0 && (!packable || message.length + delimiterLength > maxPacketSize - this.sendBuffer.position())) {
+                if (!writePacket(messages,packetStart,i)) {
+                    return;
+                }
+
+                packetStart = i;
+
+                delimiterLength = 0;
+            }
+
+            if (!packable) {
+                if (!writeQueuedMessage(messages,i)) {
+                    return;
+                }
+
+                prepareSendBuffer(maxPacketSize);
+
+                packetStart = i + 1;
+                continue;
+            }
+
+            if (delimiterLength > 0) {
+                this.sendBuffer.put(SyslogConstants.UDP_PACKED_MESSAGE_DELIMITER);
+            }
+
+            this.sendBuffer.put(message);
+        }
+
+        if (this.sendBuffer.position() > 0) {
+            writePacket(messages,packetStart,messages.size());
+        }
+    }
+
+    /**
+     * @return true if message contains a line break other than a trailing one,
+     * and so cannot share a datagram with other messages
+     */
+    protected static boolean isMultiLine(byte[] message) {
+        for(int i=0; i<message.length - 1; i++) {
+            if (message[i] == SyslogConstants.UDP_PACKED_MESSAGE_DELIMITER) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return false if the remaining messages are held for retry (see backLogQueuedMessages(..))
+     */
+    protected boolean writeQueuedMessage(List<byte []> messages, int index) {
+        try {
+            write(messages.get(index));
+
+            this.syslog.setBackLogStatus(false);
+
+            return true;
+
+        } catch (SyslogRuntimeException sre) {
+            return !backLogQueuedMessages(messages,index,index + 1,sre);
+        }
+    }
+
+    /**
+     * Sends the messages packed into sendBuffer and clears it; on failure the
+     * messages from start (inclusive) to end (exclusive) are backlogged.
+     *
+     * @return false if the remaining messages are held for retry (see backLogQueuedMessages(..))
+     */
+    protected boolean writePacket(List<byte []> messages, int start, int end) {
+        try {
+            send();
+
+            this.syslog.setBackLogStatus(false);
+
+            return true;
+
+        } catch (SyslogRuntimeException sre) {
+            return !backLogQueuedMessages(messages,start,end,sre);
+
+        } finally {
+            this.sendBuffer.clear();
+        }
+    }
+
+    /**
+     * Sends the contents of sendBuffer as one datagram, retrying up to
+     * writeRetries times.
+     */
+    protected void send() throws SyslogRuntimeException {
+        this.sendBuffer.flip();
+
+        DatagramChannel currentChannel = null;
+
+        int attempts = 0;
+        while(attempts != -1 && attempts < (this.udpNetSyslogConfig.getWriteRetries() + 1)) {
+            try {
+                currentChannel = getChannel();
+
+                currentChannel.write(this.sendBuffer);
+
+                attempts = -1;
+
+            } catch (IOException ioe) {
+                //  includes PortUnreachableException, reported by a connected
+                //  channel when an earlier datagram was refused
+                attempts++;
+                closeChannel(currentChannel);
+
+                if (attempts >= (this.udpNetSyslogConfig.getWriteRetries() + 1)) {
+                    throw new SyslogRuntimeException(ioe);
+                }
+
+                this.sendBuffer.rewind();
+            }
+        }
+    }
+
+    public synchronized void flush() throws SyslogRuntimeException {
+        if (this.channel == null) {
+            return;
+        }
+
+        if (this.syslogConfig.isThreaded()) {
+            this.shutdown();
+            this.syslog.createWriterThread(this);
+
+        } else {
+            closeChannel(this.channel);
+        }
+    }
+
+    public void shutdown() throws SyslogRuntimeException {
+        this.shutdown = true;
+        wakeUp();
+
+        synchronized(this) {
+            if (this.syslogConfig.isThreaded()) {
+                long timeStart = System.currentTimeMillis();
+                boolean done = false;
+
+                while(!done) {
+                    if (this.channel == null || !this.channel.isOpen()) {
+                        done = true;
+
+                    } else {
+                        long now = System.currentTimeMillis();
+
+                        if (now > (timeStart + this.syslogConfig.getMaxShutdownWait())) {
+                            closeChannel(this.channel);
+                            this.thread.interrupt();
+                            done = true;
+                        }
+
+                        if (!done) {
+                            SyslogUtility.sleep(SyslogConstants.SHUTDOWN_INTERVAL);
+                        }
+                    }
+                }
+
+            } else {
+                closeChannel(this.channel);
+            }
+        }
+    }
+
+    protected void runCompleted() {
+        closeChannel(this.channel);
+    }
+}
@@ -0,0 +1,487 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.pool.leasing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool.BaseObjectPool;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+import com.nesscomputing.syslog4j.SyslogPoolConfigIF;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+
+/**
+* LeasingSyslogWriterPool is a writer pool built for the borrow/return of
+* every message, configured by the same SyslogPoolConfigIF settings as
+* GenericObjectPool.
+*
+* <p>Each thread first tries the writer it returned last, which it can take
+* back with a single compare-and-set and no contention in the common case.
+* Otherwise idle writers are taken from a lock-free free list.  Threads only
+* block (according to whenExhaustedAction and maxWait) when maxActive writers
+* are in use.</p>
+*
+* <p>When timeBetweenEvictionRunsMillis is set, a daemon timer evicts writers
+* idle for longer than minEvictableIdleTimeMillis (or softMinEvictableIdleTimeMillis
+* while more than minIdle are idle), tests idle writers if testWhileIdle is set,
+* and then tops the pool back up to minIdle.  numTestsPerEvictionRun limits
+* the number of writers examined per run; 0 examines all of them.  maxIdle is
+* enforced on return, without locking, so it may be briefly exceeded.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class LeasingSyslogWriterPool extends BaseObjectPool<AbstractSyslogWriter> {
+    protected static final int IDLE = 0;
+    protected static final int LEASED = 1;
+    protected static final int DESTROYED = 2;
+
+    protected static class Lease {
+        protected final AbstractSyslogWriter writer;
+
+        protected final AtomicInteger state = new AtomicInteger(LEASED);
+
+        //  true while the lease has an entry in freeList (at most one at a time)
+        protected final AtomicBoolean listed = new AtomicBoolean(false);
+
+        protected volatile long idleSinceMs = 0;
+
+        protected Lease(AbstractSyslogWriter writer) {
+            this.writer = writer;
+        }
+    }
+
+    protected final PoolableObjectFactory<AbstractSyslogWriter> factory;
+    protected final SyslogPoolConfigIF poolConfig;
+
+    protected final ConcurrentHashMap<AbstractSyslogWriter,Lease> leases = new ConcurrentHashMap<AbstractSyslogWriter,Lease>();
+    protected final ConcurrentLinkedQueue<Lease> freeList = new ConcurrentLinkedQueue<Lease>();
+    protected final ThreadLocal<Lease> lastLease = new ThreadLocal<Lease>();
+
+    protected final AtomicInteger numTotal = new AtomicInteger(0);
+    protected final AtomicInteger numIdle = new AtomicInteger(0);
+
+    protected final Object exhaustedLock = new Object();
+    protected final AtomicInteger numWaiters = new AtomicInteger(0);
+
+    protected Timer evictionTimer = null;
+
+    public LeasingSyslogWriterPool(PoolableObjectFactory<AbstractSyslogWriter> factory, SyslogPoolConfigIF poolConfig) {
+        this.factory = factory;
+        this.poolConfig = poolConfig;
+
+        long timeBetweenEvictionRunsMillis = poolConfig.getTimeBetweenEvictionRunsMillis();
+
+        if (timeBetweenEvictionRunsMillis > 0) {
+            this.evictionTimer = new Timer("LeasingSyslogWriterPool",true);
+            this.evictionTimer.schedule(new Evictor(),timeBetweenEvictionRunsMillis,timeBetweenEvictionRunsMillis);
+        }
+    }
+
+    public AbstractSyslogWriter borrowObject() throws Exception {
+        byte whenExhaustedAction = this.poolConfig.getWhenExhaustedAction();
+
+        long maxWait = this.poolConfig.getMaxWait();
+        long deadline = maxWait > 0 ? System.currentTimeMillis() + maxWait : Long.MAX_VALUE;
+
+        while(true) {
+            assertOpen();
+
+            boolean created = false;
+
+            Lease lease = acquireIdle();
+
+            if (lease == null) {
+                lease = create(whenExhaustedAction == GenericObjectPool.WHEN_EXHAUSTED_GROW);
+                created = lease != null;
+            }
+
+            if (lease != null) {
+                if (activate(lease,created)) {
+                    this.lastLease.set(lease);
+
+                    return lease.writer;
+                }
+
+                continue;
+            }
+
+            if (whenExhaustedAction == GenericObjectPool.WHEN_EXHAUSTED_FAIL) {
+                throw new NoSuchElementException("Pool exhausted");
+            }
+
+            awaitIdle(deadline);
+        }
+    }
+
+    /**
+     * Leases the writer this thread returned last if it is still idle,
+     * otherwise the first idle writer on the free list.
+     */
+    protected Lease acquireIdle() {
+        Lease lease = this.lastLease.get();
+
+        if (lease != null && lease.state.compareAndSet(IDLE,LEASED)) {
+            this.numIdle.decrementAndGet();
+
+            return lease;
+        }
+
+        while((lease = this.freeList.poll()) != null) {
+            lease.listed.set(false);
+
+            if (lease.state.compareAndSet(IDLE,LEASED)) {
+                this.numIdle.decrementAndGet();
+
+                return lease;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return a new leased writer, or null if maxActive writers exist and grow is false
+     */
+    protected Lease create(boolean grow) throws Exception {
+        int maxActive = this.poolConfig.getMaxActive();
+
+        while(true) {
+            int total = this.numTotal.get();
+
+            if (!grow && maxActive > 0 && total >= maxActive) {
+                return null;
+            }
+
+            if (this.numTotal.compareAndSet(total,total + 1)) {
+                break;
+            }
+        }
+
+        AbstractSyslogWriter writer = null;
+
+        try {
+            writer = this.factory.makeObject();
+
+        } catch (Exception e) {
+            this.numTotal.decrementAndGet();
+            signalIdle();
+
+            throw e;
+        }
+
+        Lease lease = new Lease(writer);
+
+        this.leases.put(writer,lease);
+
+        return lease;
+    }
+
+    /**
+     * Activates (and if testOnBorrow is set, validates) a newly leased writer,
+     * destroying it if that fails.
+     *
+     * @return false if the writer was destroyed and another should be leased
+     */
+    protected boolean activate(Lease lease, boolean created) throws Exception {
+        try {
+            this.factory.activateObject(lease.writer);
+
+        } catch (Exception e) {
+            destroy(lease);
+
+            throw e;
+        }
+
+        if (this.poolConfig.isTestOnBorrow() && !validate(lease)) {
+            destroy(lease);
+
+            if (created) {
+                throw new NoSuchElementException("Could not validate a new writer");
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    protected boolean validate(Lease lease) {
+        try {
+            return this.factory.validateObject(lease.writer);
+
+        } catch (RuntimeException re) {
+            return false;
+        }
+    }
+
+    protected void awaitIdle(long deadline) throws InterruptedException {
+        synchronized(this.exhaustedLock) {
+            this.numWaiters.incrementAndGet();
+
+            try {
+                //  checked after registering as a waiter, so that a writer
+                //  released in the meantime is not missed
+                if (this.numIdle.get() > 0 || this.poolConfig.getMaxActive() <= 0 || this.numTotal.get() < this.poolConfig.getMaxActive()) {
+                    return;
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    throw new NoSuchElementException("Timeout waiting for idle writer");
+                }
+
+                if (deadline == Long.MAX_VALUE) {
+                    this.exhaustedLock.wait();
+
+                } else {
+                    this.exhaustedLock.wait(remaining);
+                }
+
+            } finally {
+                this.numWaiters.decrementAndGet();
+            }
+        }
+    }
+
+    protected void signalIdle() {
+        if (this.numWaiters.get() > 0) {
+            synchronized(this.exhaustedLock) {
+                this.exhaustedLock.notifyAll();
+            }
+        }
+    }
+
+    public void returnObject(AbstractSyslogWriter writer) throws Exception {
+        Lease lease = this.lastLease.get();
+
+        if (lease == null || lease.writer != writer) {
+            lease = this.leases.get(writer);
+        }
+
+        if (lease == null || lease.state.get() != LEASED) {
+            return;
+        }
+
+        boolean valid = !this.poolConfig.isTestOnReturn() || validate(lease);
+
+        if (valid) {
+            try {
+                this.factory.passivateObject(writer);
+
+            } catch (Exception e) {
+                valid = false;
+            }
+        }
+
+        int maxIdle = this.poolConfig.getMaxIdle();
+
+        if (!valid || isClosed() || (maxIdle >= 0 && this.numIdle.get() >= maxIdle)) {
+            destroy(lease);
+            return;
+        }
+
+        this.lastLease.set(lease);
+
+        release(lease);
+    }
+
+    /**
+     * Makes a leased writer idle and lists it on the free list.
+     */
+    protected void release(Lease lease) {
+        lease.idleSinceMs = System.currentTimeMillis();
+
+        this.numIdle.incrementAndGet();
+        lease.state.set(IDLE);
+
+        if (lease.listed.compareAndSet(false,true)) {
+            this.freeList.offer(lease);
+        }
+
+        signalIdle();
+    }
+
+    /**
+     * Destroys a writer leased by (or just evicted by) the caller.
+     */
+    protected void destroy(Lease lease) {
+        if (lease.state.getAndSet(DESTROYED) == DESTROYED) {
+            return;
+        }
+
+        this.leases.remove(lease.writer);
+        this.numTotal.decrementAndGet();
+
+        if (this.lastLease.get() == lease) {
+            this.lastLease.remove();
+        }
+
+        try {
+            this.factory.destroyObject(lease.writer);
+
+        } catch (Exception e) {
+            //
+
+        } finally {
+            signalIdle();
+        }
+    }
+
+    public void invalidateObject(AbstractSyslogWriter writer) throws Exception {
+        Lease lease = this.leases.get(writer);
+
+        if (lease != null && lease.state.get() == LEASED) {
+            destroy(lease);
+        }
+    }
+
+    public void addObject() throws Exception {
+        assertOpen();
+
+        Lease lease = create(true);
+
+        this.factory.passivateObject(lease.writer);
+
+        release(lease);
+    }
+
+    public int getNumIdle() {
+        return Math.max(0,this.numIdle.get());
+    }
+
+    public int getNumActive() {
+        return Math.max(0,this.numTotal.get() - this.numIdle.get());
+    }
+
+    public void clear() throws Exception {
+        for(Lease lease: this.leases.values()) {
+            if (lease.state.compareAndSet(IDLE,LEASED)) {
+                this.numIdle.decrementAndGet();
+                destroy(lease);
+            }
+        }
+
+        List<Lease> listed = new ArrayList<Lease>();
+
+        Lease lease = null;
+        while((lease = this.freeList.poll()) != null) {
+            lease.listed.set(false);
+            listed.add(lease);
+        }
+
+        //  writers returned while clearing stay listed
+        for(Lease listedLease: listed) {
+            if (listedLease.state.get() == IDLE && listedLease.listed.compareAndSet(false,true)) {
+                this.freeList.offer(listedLease);
+            }
+        }
+    }
+
+    public void close() throws Exception {
+        super.close();
+
+        if (this.evictionTimer != null) {
+            this.evictionTimer.cancel();
+            this.evictionTimer = null;
+        }
+
+        clear();
+    }
+
+    /**
+     * Evicts or tests idle writers, then tops the pool up to minIdle.
+     */
+    public void evict() throws Exception {
+        long now = System.currentTimeMillis();
+
+        long minEvictableIdleTimeMillis = this.poolConfig.getMinEvictableIdleTimeMillis();
+        long softMinEvictableIdleTimeMillis = this.poolConfig.getSoftMinEvictableIdleTimeMillis();
+        int minIdle = this.poolConfig.getMinIdle();
+        int numTests = this.poolConfig.getNumTestsPerEvictionRun();
+
+        int tested = 0;
+
+        for(Lease lease: this.leases.values()) {
+            if (numTests > 0 && tested >= numTests) {
+                break;
+            }
+
+            if (lease.state.get() != IDLE) {
+                continue;
+            }
+
+            tested++;
+
+            long idleTimeMs = now - lease.idleSinceMs;
+
+            boolean evict = (minEvictableIdleTimeMillis > 0 && idleTimeMs > minEvictableIdleTimeMillis) ||
+                            (softMinEvictableIdleTimeMillis > 0 && idleTimeMs > softMinEvictableIdleTimeMillis && this.numIdle.get() > minIdle);
+
+            if (!evict && !this.poolConfig.isTestWhileIdle()) {
+                continue;
+            }
+
+            if (!lease.state.compareAndSet(IDLE,LEASED)) {
+                continue;
+            }
+
+            this.numIdle.decrementAndGet();
+
+            if (evict || !validate(lease)) {
+                destroy(lease);
+
+            } else {
+                long idleSinceMs = lease.idleSinceMs;
+                release(lease);
+                lease.idleSinceMs = idleSinceMs;
+            }
+        }
+
+        while(!isClosed() && this.numIdle.get() < minIdle) {
+            Lease lease = create(false);
+
+            if (lease == null) {
+                break;
+            }
+
+            this.factory.passivateObject(lease.writer);
+
+            release(lease);
+        }
+    }
+
+    protected class Evictor extends TimerTask {
+        public void run() {
+            try {
+                evict();
+
+            } catch (Exception e) {
+                //
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.List;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* BudgetedSyslogQueue wraps a SyslogQueueIF, refusing messages once the queued
+* bytes would exceed a SyslogQueueByteBudget (which may be shared with other
+* queues).
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class BudgetedSyslogQueue implements SyslogQueueIF {
+    protected final SyslogQueueIF queue;
+
+    protected final SyslogQueueByteBudget budget;
+
+    public BudgetedSyslogQueue(SyslogQueueIF queue, SyslogQueueByteBudget budget) {
+        this.queue = queue;
+        this.budget = budget;
+    }
+
+    public boolean offer(SyslogLevel level, byte[] message) {
+        if (!this.budget.tryAcquire(message.length)) {
+            return false;
+        }
+
+        if (!this.queue.offer(level,message)) {
+            this.budget.release(message.length);
+            return false;
+        }
+
+        return true;
+    }
+
+    protected byte[] released(byte[] message) {
+        if (message != null) {
+            this.budget.release(message.length);
+        }
+
+        return message;
+    }
+
+    public byte[] poll() {
+        return released(this.queue.poll());
+    }
+
+    public byte[] evict(SyslogLevel level, SyslogLevel evictLevel) {
+        return released(this.queue.evict(level,evictLevel));
+    }
+
+    public int drainTo(List<byte[]> messages, int maxMessages) {
+        int start = messages.size();
+
+        int count = this.queue.drainTo(messages,maxMessages);
+
+        long bytes = 0;
+
+        for(int i=start; i<start + count; i++) {
+            bytes += messages.get(i).length;
+        }
+
+        this.budget.release(bytes);
+
+        return count;
+    }
+
+    public int size() {
+        return this.queue.size();
+    }
+
+    public boolean isEmpty() {
+        return this.queue.isEmpty();
+    }
+
+    public int getCapacity() {
+        return this.queue.getCapacity();
+    }
+
+    public SyslogQueueByteBudget getBudget() {
+        return this.budget;
+    }
+}
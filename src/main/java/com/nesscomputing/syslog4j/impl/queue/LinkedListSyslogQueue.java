@@ -0,0 +1,131 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* LinkedListSyslogQueue is the default SyslogQueueIF implementation; it guards
+* a LinkedList with a single lock.
+*
+* <p>The level of each message is kept in a second list, so that evict(..)
+* can skip queued messages that are more severe than evictLevel.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class LinkedListSyslogQueue implements SyslogQueueIF {
+    protected final int capacity;
+
+    protected LinkedList<byte[]> queuedMessages = Lists.newLinkedList();
+
+    protected LinkedList<SyslogLevel> queuedLevels = Lists.newLinkedList();
+
+    /**
+     * @param capacity - maximum number of queued messages, or -1 for a queue of indefinite depth
+     */
+    public LinkedListSyslogQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public boolean offer(SyslogLevel level, byte[] message) {
+        synchronized(this) {
+            if (this.capacity == -1 || this.queuedMessages.size() < this.capacity) {
+                this.queuedMessages.add(message);
+                this.queuedLevels.add(level);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public synchronized byte[] poll() {
+        this.queuedLevels.poll();
+
+        return this.queuedMessages.poll();
+    }
+
+    public synchronized byte[] evict(SyslogLevel level, SyslogLevel evictLevel) {
+        if (evictLevel == null) {
+            return poll();
+        }
+
+        Iterator<byte[]> messages = this.queuedMessages.iterator();
+        Iterator<SyslogLevel> levels = this.queuedLevels.iterator();
+
+        while(levels.hasNext()) {
+            SyslogLevel queuedLevel = levels.next();
+            byte[] message = messages.next();
+
+            if (queuedLevel != null && queuedLevel.getValue() >= evictLevel.getValue()) {
+                levels.remove();
+                messages.remove();
+
+                return message;
+            }
+        }
+
+        return null;
+    }
+
+    public int drainTo(List<byte[]> messages, int maxMessages) {
+        LinkedList<byte[]> drainedMessages = null;
+
+        synchronized(this) {
+            if (this.queuedMessages.isEmpty()) {
+                return 0;
+            }
+
+            if (this.queuedMessages.size() > maxMessages) {
+                int count = 0;
+
+                while(count < maxMessages) {
+                    messages.add(this.queuedMessages.removeFirst());
+                    this.queuedLevels.removeFirst();
+                    count++;
+                }
+
+                return count;
+            }
+
+            drainedMessages = this.queuedMessages;
+            this.queuedMessages = Lists.newLinkedList();
+            this.queuedLevels = Lists.newLinkedList();
+        }
+
+        messages.addAll(drainedMessages);
+
+        return drainedMessages.size();
+    }
+
+    public synchronized int size() {
+        return this.queuedMessages.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.queuedMessages.isEmpty();
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+}
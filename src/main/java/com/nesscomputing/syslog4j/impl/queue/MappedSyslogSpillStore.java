@@ -0,0 +1,443 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+
+/**
+* MappedSyslogSpillStore is an append-only, on-disk FIFO of messages, kept in
+* a bounded set of fixed-size, memory-mapped segment files which are recycled
+* once read.
+*
+* <p>Each segment starts with its sequence number and read position, followed
+* by records of the form [int length][bytes], terminated by a zero length.  A
+* record is published by writing its length last, so segments left behind by
+* a previous process are replayed (in sequence order, from their read position)
+* when the store is opened again.</p>
+*
+* <p>Each store needs a directory of its own, and holds a lock on it (a lock
+* file, released by close()) so that a second store on the same directory,
+* in this or another process, fails rather than corrupting the segments.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class MappedSyslogSpillStore {
+    public static final String SEGMENT_PREFIX = "syslog4j-spill-";
+    public static final String SEGMENT_SUFFIX = ".seg";
+    public static final String LOCK_FILE = "syslog4j-spill.lock";
+
+    protected static final int SEQUENCE_OFFSET = 0;
+    protected static final int READ_POSITION_OFFSET = 8;
+    protected static final int HEADER_LENGTH = 12;
+
+    protected static class Segment {
+        protected final File file;
+        protected final MappedByteBuffer buffer;
+
+        protected long sequence;
+        protected int readPosition;
+        protected int writePosition;
+
+        protected Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        protected void reset(long newSequence) {
+            this.sequence = newSequence;
+            this.readPosition = HEADER_LENGTH;
+            this.writePosition = HEADER_LENGTH;
+
+            this.buffer.putInt(HEADER_LENGTH,0);
+            this.buffer.putInt(READ_POSITION_OFFSET,HEADER_LENGTH);
+            this.buffer.putLong(SEQUENCE_OFFSET,newSequence);
+        }
+
+        protected boolean isRead() {
+            return this.readPosition >= this.writePosition;
+        }
+    }
+
+    protected final File directory;
+    protected final int segmentSize;
+    protected final int maxSegments;
+
+    protected FileLock lock = null;
+
+    protected final LinkedList<Segment> segments = Lists.newLinkedList();
+    protected final LinkedList<Segment> freeSegments = Lists.newLinkedList();
+
+    protected int createdSegments = 0;
+    protected long nextSequence = 0;
+
+    protected volatile int count = 0;
+
+    /**
+     * @param directory - directory holding the segment files
+     * @param segmentSize - size of each segment file, in bytes
+     * @param maxSegments - maximum number of segment files
+     */
+    public MappedSyslogSpillStore(File directory, int segmentSize, int maxSegments) throws SyslogRuntimeException {
+        this(directory,segmentSize,maxSegments,null);
+    }
+
+    protected MappedSyslogSpillStore(File directory, int segmentSize, int maxSegments, FileLock lock) throws SyslogRuntimeException {
+        if (segmentSize <= HEADER_LENGTH + 8) {
+            throw new IllegalArgumentException("segmentSize is too small");
+        }
+
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments must be greater than 0");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+
+        this.lock = lock != null ? lock : lock(directory);
+
+        if (this.lock == null) {
+            throw new SyslogRuntimeException("Spill directory " + directory + " is in use");
+        }
+
+        boolean opened = false;
+
+        try {
+            open();
+            opened = true;
+
+        } finally {
+            if (!opened) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * @return a store on the given directory, or null if the directory is in
+     * use by another store
+     */
+    public static MappedSyslogSpillStore openIfUnused(File directory, int segmentSize, int maxSegments) throws SyslogRuntimeException {
+        FileLock lock = lock(directory);
+
+        if (lock == null) {
+            return null;
+        }
+
+        boolean opened = false;
+
+        try {
+            MappedSyslogSpillStore store = new MappedSyslogSpillStore(directory,segmentSize,maxSegments,lock);
+            opened = true;
+
+            return store;
+
+        } finally {
+            if (!opened) {
+                release(lock);
+            }
+        }
+    }
+
+    /**
+     * @return the lock on the given directory, created if necessary, or null
+     * if the directory is locked by another store
+     */
+    protected static FileLock lock(File directory) throws SyslogRuntimeException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new SyslogRuntimeException("Could not create spill directory " + directory);
+        }
+
+        FileChannel channel = null;
+        FileLock lock = null;
+
+        try {
+            channel = new RandomAccessFile(new File(directory,LOCK_FILE),"rw").getChannel();
+
+            try {
+                lock = channel.tryLock();
+
+            } catch (OverlappingFileLockException ofle) {
+                //  held by another store in this process
+            }
+
+            return lock;
+
+        } catch (IOException ioe) {
+            throw new SyslogRuntimeException(ioe);
+
+        } finally {
+            if (lock == null && channel != null) {
+                try {
+                    channel.close();
+
+                } catch (IOException ioe) {
+                    //
+                }
+            }
+        }
+    }
+
+    protected static void release(FileLock lock) {
+        try {
+            //  closing the channel also releases the lock
+            lock.channel().close();
+
+        } catch (IOException ioe) {
+            //
+        }
+    }
+
+    protected File getSegmentFile(int index) {
+        return new File(this.directory,SEGMENT_PREFIX + index + SEGMENT_SUFFIX);
+    }
+
+    protected Segment mapSegment(File file) throws SyslogRuntimeException {
+        RandomAccessFile randomAccessFile = null;
+
+        try {
+            randomAccessFile = new RandomAccessFile(file,"rw");
+
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE,0,this.segmentSize);
+
+            return new Segment(file,buffer);
+
+        } catch (IOException ioe) {
+            throw new SyslogRuntimeException(ioe);
+
+        } finally {
+            //  the mapping remains valid after the channel is closed
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+
+                } catch (IOException ioe) {
+                    //
+                }
+            }
+        }
+    }
+
+    protected void open() throws SyslogRuntimeException {
+        List<Segment> unread = Lists.newArrayList();
+
+        while(this.createdSegments < this.maxSegments && getSegmentFile(this.createdSegments).isFile()) {
+            Segment segment = mapSegment(getSegmentFile(this.createdSegments));
+            this.createdSegments++;
+
+            segment.sequence = segment.buffer.getLong(SEQUENCE_OFFSET);
+            segment.readPosition = Math.max(segment.buffer.getInt(READ_POSITION_OFFSET),HEADER_LENGTH);
+            segment.writePosition = HEADER_LENGTH;
+
+            int length = segment.buffer.getInt(segment.writePosition);
+
+            while(length > 0 && segment.writePosition + 8 + length <= this.segmentSize) {
+                if (segment.writePosition >= segment.readPosition) {
+                    this.count++;
+                }
+
+                segment.writePosition += 4 + length;
+                length = segment.buffer.getInt(segment.writePosition);
+            }
+
+            this.nextSequence = Math.max(this.nextSequence,segment.sequence + 1);
+
+            if (segment.isRead()) {
+                this.freeSegments.add(segment);
+
+            } else {
+                unread.add(segment);
+            }
+        }
+
+        Collections.sort(unread,new Comparator<Segment>() {
+            public int compare(Segment s1, Segment s2) {
+                return s1.sequence < s2.sequence ? -1 : (s1.sequence > s2.sequence ? 1 : 0);
+            }
+        });
+
+        this.segments.addAll(unread);
+    }
+
+    /**
+     * @return a recycled or new segment, or null if maxSegments are in use
+     */
+    protected Segment allocateSegment() throws SyslogRuntimeException {
+        Segment segment = this.freeSegments.poll();
+
+        if (segment == null) {
+            if (this.createdSegments >= this.maxSegments) {
+                return null;
+            }
+
+            segment = mapSegment(getSegmentFile(this.createdSegments));
+            this.createdSegments++;
+        }
+
+        segment.reset(this.nextSequence++);
+
+        return segment;
+    }
+
+    /**
+     * @return false if the message does not fit in the store
+     */
+    public synchronized boolean append(byte[] message) throws SyslogRuntimeException {
+        int recordLength = 4 + message.length;
+
+        if (HEADER_LENGTH + recordLength + 4 > this.segmentSize) {
+            return false;
+        }
+
+        Segment segment = this.segments.peekLast();
+
+        if (segment == null || segment.writePosition + recordLength + 4 > this.segmentSize) {
+            segment = allocateSegment();
+
+            if (segment == null) {
+                return false;
+            }
+
+            this.segments.add(segment);
+        }
+
+        int position = segment.writePosition;
+
+        segment.buffer.putInt(position + recordLength,0);
+
+        segment.buffer.position(position + 4);
+        segment.buffer.put(message);
+
+        segment.buffer.putInt(position,message.length);
+
+        segment.writePosition += recordLength;
+        this.count++;
+
+        return true;
+    }
+
+    /**
+     * @return the oldest message, or null if the store is empty
+     */
+    public synchronized byte[] read() {
+        Segment segment = this.segments.peekFirst();
+
+        if (segment == null || segment.isRead()) {
+            return null;
+        }
+
+        int length = segment.buffer.getInt(segment.readPosition);
+
+        byte[] message = new byte[length];
+
+        segment.buffer.position(segment.readPosition + 4);
+        segment.buffer.get(message);
+
+        segment.readPosition += 4 + length;
+        segment.buffer.putInt(READ_POSITION_OFFSET,segment.readPosition);
+        this.count--;
+
+        if (segment.isRead()) {
+            this.segments.removeFirst();
+
+            if (this.segments.isEmpty()) {
+                //  keep appending to the last segment rather than recycling it
+                segment.reset(segment.sequence);
+                this.segments.add(segment);
+
+            } else {
+                this.freeSegments.add(segment);
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Moves up to maxMessages messages into the given list, oldest first.
+     *
+     * @return number of messages moved
+     */
+    public synchronized int drainTo(List<byte[]> messages, int maxMessages) {
+        int moved = 0;
+
+        while(moved < maxMessages) {
+            byte[] message = read();
+
+            if (message == null) {
+                break;
+            }
+
+            messages.add(message);
+            moved++;
+        }
+
+        return moved;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Writes changes to the segment files through to disk.
+     */
+    public synchronized void force() {
+        for(Segment segment : this.segments) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Releases the lock on the directory.  The store must not be used once
+     * it is closed.
+     */
+    public synchronized void close() {
+        if (this.lock != null) {
+            release(this.lock);
+            this.lock = null;
+        }
+    }
+
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * @return the disk space the store may use, in bytes
+     */
+    public long getMaxBytes() {
+        return (long) this.segmentSize * this.maxSegments;
+    }
+}
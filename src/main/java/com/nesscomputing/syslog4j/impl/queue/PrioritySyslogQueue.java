@@ -0,0 +1,149 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.List;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* PrioritySyslogQueue is a SyslogQueueIF implementation with a separate lane
+* (itself a SyslogQueueIF) for each SyslogLevel, so that each level has its own
+* capacity and severe messages are not held up behind, or dropped along with,
+* a backlog of DEBUG messages.
+*
+* <p>Without weights, lanes are drained strictly in order of severity.  With
+* weights, each drain takes up to weights[level] messages from each lane in
+* turn, most severe first, until the lanes are empty.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class PrioritySyslogQueue implements SyslogQueueIF {
+    public static final int[] DEFAULT_WEIGHTS = { 64, 32, 16, 8, 4, 2, 1, 1 };
+
+    protected final SyslogQueueIF[] lanes;
+
+    protected final int[] weights;
+
+    /**
+     * @param lanes - one queue for each SyslogLevel, indexed by SyslogLevel.getValue()
+     * @param weights - messages taken from each lane per round, or null to drain strictly by severity
+     */
+    public PrioritySyslogQueue(SyslogQueueIF[] lanes, int[] weights) {
+        if (lanes.length != SyslogLevel.values().length) {
+            throw new IllegalArgumentException("a lane is required for each SyslogLevel");
+        }
+
+        if (weights != null && weights.length != lanes.length) {
+            throw new IllegalArgumentException("a weight is required for each lane");
+        }
+
+        this.lanes = lanes;
+        this.weights = weights;
+    }
+
+    protected SyslogQueueIF getLane(SyslogLevel level) {
+        if (level == null) {
+            return this.lanes[this.lanes.length - 1];
+        }
+
+        return this.lanes[level.getValue()];
+    }
+
+    public boolean offer(SyslogLevel level, byte[] message) {
+        return getLane(level).offer(level,message);
+    }
+
+    public byte[] poll() {
+        for(int i=0; i<this.lanes.length; i++) {
+            byte[] message = this.lanes[i].poll();
+
+            if (message != null) {
+                return message;
+            }
+        }
+
+        return null;
+    }
+
+    public byte[] evict(SyslogLevel level, SyslogLevel evictLevel) {
+        return getLane(level).evict(level,evictLevel);
+    }
+
+    public int drainTo(List<byte[]> messages, int maxMessages) {
+        int count = 0;
+
+        if (this.weights == null) {
+            for(int i=0; i<this.lanes.length && count < maxMessages; i++) {
+                count += this.lanes[i].drainTo(messages,maxMessages - count);
+            }
+
+            return count;
+        }
+
+        int drained = -1;
+
+        while(drained != 0 && count < maxMessages) {
+            drained = 0;
+
+            for(int i=0; i<this.lanes.length && count < maxMessages; i++) {
+                int moved = this.lanes[i].drainTo(messages,Math.min(this.weights[i],maxMessages - count));
+
+                drained += moved;
+                count += moved;
+            }
+        }
+
+        return count;
+    }
+
+    public int size() {
+        int size = 0;
+
+        for(int i=0; i<this.lanes.length; i++) {
+            size += this.lanes[i].size();
+        }
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for(int i=0; i<this.lanes.length; i++) {
+            if (!this.lanes[i].isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getCapacity() {
+        int capacity = 0;
+
+        for(int i=0; i<this.lanes.length; i++) {
+            int laneCapacity = this.lanes[i].getCapacity();
+
+            if (laneCapacity == -1) {
+                return -1;
+            }
+
+            capacity += laneCapacity;
+        }
+
+        return capacity;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* RingBufferSyslogQueue is a pre-allocated, bounded, lock-free SyslogQueueIF
+* implementation supporting multiple producers and multiple consumers (the
+* writer thread, and overflow policies evicting the oldest message).
+*
+* <p>Each slot carries a sequence number; producers claim a slot with a single
+* compare-and-set on the tail counter and publish the message by advancing the
+* slot's sequence, and consumers likewise claim a slot with a compare-and-set on
+* the head counter, so neither offer(..) nor poll() takes a lock or allocates.
+* A slot for position p is free when its sequence is 2p and full when it is
+* 2p+1, which keeps the two states distinct even for a capacity of 1.</p>
+*
+* <p>Only the oldest message can be removed, so evict(..) evicts nothing
+* while the oldest message is more severe than evictLevel.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class RingBufferSyslogQueue implements SyslogQueueIF {
+    protected final int capacity;
+
+    protected final AtomicReferenceArray<byte[]> slots;
+    protected final AtomicReferenceArray<SyslogLevel> levels;
+    protected final AtomicLongArray sequences;
+
+    protected final AtomicLong tail = new AtomicLong(0);
+    protected final AtomicLong head = new AtomicLong(0);
+
+    public RingBufferSyslogQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+
+        this.capacity = capacity;
+
+        this.slots = new AtomicReferenceArray<byte[]>(capacity);
+        this.levels = new AtomicReferenceArray<SyslogLevel>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+
+        for(int i=0; i<capacity; i++) {
+            this.sequences.set(i,2L * i);
+        }
+    }
+
+    public boolean offer(SyslogLevel level, byte[] message) {
+        while(true) {
+            long position = this.tail.get();
+            int index = (int) (position % this.capacity);
+
+            long difference = this.sequences.get(index) - 2 * position;
+
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position,position + 1)) {
+                    this.slots.lazySet(index,message);
+                    this.levels.lazySet(index,level);
+                    this.sequences.set(index,2 * position + 1);
+
+                    return true;
+                }
+
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    public byte[] poll() {
+        return poll(null);
+    }
+
+    /**
+     * @param evictLevel - most severe level that may be removed, or null for any level
+     * @return the oldest message, or null if the queue is empty or the oldest message is more severe than evictLevel
+     */
+    protected byte[] poll(SyslogLevel evictLevel) {
+        while(true) {
+            long position = this.head.get();
+            int index = (int) (position % this.capacity);
+
+            long difference = this.sequences.get(index) - (2 * position + 1);
+
+            if (difference == 0) {
+                if (evictLevel != null) {
+                    SyslogLevel queuedLevel = this.levels.get(index);
+
+                    if (queuedLevel == null || queuedLevel.getValue() < evictLevel.getValue()) {
+                        return null;
+                    }
+                }
+
+                if (this.head.compareAndSet(position,position + 1)) {
+                    byte[] message = this.slots.get(index);
+                    this.slots.lazySet(index,null);
+                    this.levels.lazySet(index,null);
+
+                    this.sequences.set(index,2 * (position + this.capacity));
+
+                    return message;
+                }
+
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    public byte[] evict(SyslogLevel level, SyslogLevel evictLevel) {
+        return poll(evictLevel);
+    }
+
+    public int drainTo(List<byte[]> messages, int maxMessages) {
+        int count = 0;
+
+        while(count < maxMessages) {
+            byte[] message = poll();
+
+            if (message == null) {
+                break;
+            }
+
+            messages.add(message);
+            count++;
+        }
+
+        return count;
+    }
+
+    public int size() {
+        long size = this.tail.get() - this.head.get();
+
+        if (size < 0) {
+            return 0;
+        }
+
+        return (int) Math.min(size,this.capacity);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* SpillingSyslogQueue wraps an in-memory SyslogQueueIF, appending messages to
+* a MappedSyslogSpillStore once the in-memory queue is full.
+*
+* <p>While the store holds messages, new messages are also appended to it, so
+* messages are drained in the order they were queued: first any messages
+* returned by the writer for retry (see retry(..)), then the in-memory queue,
+* then the store, readBatchSize messages at a time.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class SpillingSyslogQueue implements SyslogQueueIF {
+    protected final SyslogQueueIF queue;
+
+    protected final MappedSyslogSpillStore store;
+
+    protected final int readBatchSize;
+
+    protected final LinkedList<byte[]> retryMessages = Lists.newLinkedList();
+
+    public SpillingSyslogQueue(SyslogQueueIF queue, MappedSyslogSpillStore store, int readBatchSize) {
+        this.queue = queue;
+        this.store = store;
+        this.readBatchSize = readBatchSize;
+    }
+
+    public boolean offer(SyslogLevel level, byte[] message) {
+        if (this.store.isEmpty() && this.queue.offer(level,message)) {
+            return true;
+        }
+
+        return this.store.append(message);
+    }
+
+    /**
+     * Returns messages that the writer failed to send; they are drained again
+     * ahead of all queued messages.
+     */
+    public void retry(List<byte[]> messages) {
+        synchronized(this.retryMessages) {
+            this.retryMessages.addAll(messages);
+        }
+    }
+
+    public boolean hasRetryMessages() {
+        synchronized(this.retryMessages) {
+            return !this.retryMessages.isEmpty();
+        }
+    }
+
+    /**
+     * Appends the messages held for retry and in memory to the store, so they
+     * survive the process.  Messages already in the store remain ahead of them.
+     *
+     * @param unspilled - receives messages that did not fit in the store
+     */
+    public void spillAll(List<byte[]> unspilled) {
+        List<byte[]> messages = Lists.newArrayList();
+
+        synchronized(this.retryMessages) {
+            messages.addAll(this.retryMessages);
+            this.retryMessages.clear();
+        }
+
+        this.queue.drainTo(messages,Integer.MAX_VALUE);
+
+        for(byte[] message : messages) {
+            if (!this.store.append(message)) {
+                unspilled.add(message);
+            }
+        }
+
+        this.store.force();
+    }
+
+    public byte[] poll() {
+        synchronized(this.retryMessages) {
+            if (!this.retryMessages.isEmpty()) {
+                return this.retryMessages.removeFirst();
+            }
+        }
+
+        byte[] message = this.queue.poll();
+
+        if (message == null) {
+            message = this.store.read();
+        }
+
+        return message;
+    }
+
+    public byte[] evict(SyslogLevel level, SyslogLevel evictLevel) {
+        return this.queue.evict(level,evictLevel);
+    }
+
+    public int drainTo(List<byte[]> messages, int maxMessages) {
+        int count = 0;
+
+        synchronized(this.retryMessages) {
+            while(count < maxMessages && !this.retryMessages.isEmpty()) {
+                messages.add(this.retryMessages.removeFirst());
+                count++;
+            }
+        }
+
+        count += this.queue.drainTo(messages,maxMessages - count);
+
+        if (count < maxMessages && this.queue.isEmpty()) {
+            count += this.store.drainTo(messages,Math.min(maxMessages - count,this.readBatchSize));
+        }
+
+        return count;
+    }
+
+    public int size() {
+        synchronized(this.retryMessages) {
+            return this.retryMessages.size() + this.queue.size() + this.store.size();
+        }
+    }
+
+    public boolean isEmpty() {
+        return !hasRetryMessages() && this.queue.isEmpty() && this.store.isEmpty();
+    }
+
+    public int getCapacity() {
+        return this.queue.getCapacity();
+    }
+
+    public MappedSyslogSpillStore getStore() {
+        return this.store;
+    }
+}
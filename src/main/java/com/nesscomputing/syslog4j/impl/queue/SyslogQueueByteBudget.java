@@ -0,0 +1,91 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* SyslogQueueByteBudget limits the total size, in bytes, of the messages held
+* by the "threaded" mode queues sharing it.
+*
+* <p>By default each SyslogIF instance with a maxQueueBytes setting has its own
+* budget, shared by all of its writers.  A single budget may instead be set on
+* the configuration of several instances, e.g. getGlobalInstance() to bound the
+* queues of the whole JVM.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class SyslogQueueByteBudget {
+    private static final SyslogQueueByteBudget GLOBAL_INSTANCE = new SyslogQueueByteBudget(-1);
+
+    protected volatile long maxBytes;
+
+    protected final AtomicLong usedBytes = new AtomicLong(0);
+
+    /**
+     * @param maxBytes - maximum number of queued bytes, or -1 for no limit
+     */
+    public SyslogQueueByteBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the budget shared by the whole JVM; its limit is set with setMaxBytes(..)
+     */
+    public static SyslogQueueByteBudget getGlobalInstance() {
+        return GLOBAL_INSTANCE;
+    }
+
+    /**
+     * Reserves bytes for a message about to be queued.
+     *
+     * @return false if the message would exceed the budget
+     */
+    public boolean tryAcquire(int bytes) {
+        while(true) {
+            long used = this.usedBytes.get();
+            long limit = this.maxBytes;
+
+            if (limit >= 0 && used + bytes > limit) {
+                return false;
+            }
+
+            if (this.usedBytes.compareAndSet(used,used + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns bytes reserved by tryAcquire(..) once a message leaves the queue.
+     */
+    public void release(long bytes) {
+        this.usedBytes.addAndGet(-bytes);
+    }
+
+    public long getUsedBytes() {
+        return this.usedBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+}
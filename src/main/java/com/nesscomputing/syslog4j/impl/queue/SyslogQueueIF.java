@@ -0,0 +1,76 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import java.util.List;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+
+/**
+* SyslogQueueIF provides a common interface for the queues used by
+* AbstractSyslogWriter when running in "threaded" mode.
+*
+* <p>Implementations must allow any number of threads to call offer(..) and
+* poll() and evict(..) concurrently; drainTo(..) is only called by the writer
+* thread.  Callers other than the writer thread use evict(..) to make room for
+* a new message (see SyslogQueueOverflowPolicyIF).</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public interface SyslogQueueIF {
+    /**
+     * @param level - message level
+     * @param message - message (in byte[] form)
+     * @return true if the message was queued, false if the queue is full
+     */
+    public boolean offer(SyslogLevel level, byte[] message);
+
+    /**
+     * @return the next queued message, or null if the queue is empty
+     */
+    public byte[] poll();
+
+    /**
+     * Removes a queued message to make room for a message of the given level.
+     * FIFO queues evict their oldest message at evictLevel or below (i.e. of
+     * the same or lesser severity); a queue that cannot reach such a message
+     * without removing a more severe one may evict nothing.
+     *
+     * @param level - level of the message to be queued
+     * @param evictLevel - most severe level that may be evicted, or null to evict messages of any level
+     * @return the evicted message, or null if there is none to evict
+     */
+    public byte[] evict(SyslogLevel level, SyslogLevel evictLevel);
+
+    /**
+     * Moves up to maxMessages queued messages into the given list.
+     *
+     * @param messages - list receiving the messages
+     * @param maxMessages - maximum number of messages to move
+     * @return number of messages moved
+     */
+    public int drainTo(List<byte[]> messages, int maxMessages);
+
+    public int size();
+
+    public boolean isEmpty();
+
+    /**
+     * @return the maximum number of messages this queue can hold, or -1 if unbounded
+     */
+    public int getCapacity();
+}
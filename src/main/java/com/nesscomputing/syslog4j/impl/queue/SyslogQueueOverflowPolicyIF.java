@@ -0,0 +1,62 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+
+/**
+* SyslogQueueOverflowPolicyIF decides what happens to a message when the
+* "threaded" mode queue of an AbstractSyslogWriter is full (see
+* AbstractSyslogConfigIF.setQueueOverflowPolicy(..)).
+*
+* <p>Implementations are shared by all writers of a Syslog instance and must
+* be thread-safe.  overflow(..) runs on the logging thread, so implementations
+* should keep it cheap.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*
+* @see com.nesscomputing.syslog4j.impl.queue.overflow.BackLogSyslogQueueOverflowPolicy
+*/
+public interface SyslogQueueOverflowPolicyIF {
+    /**
+     * Called when the queue of syslogWriter has refused message.
+     *
+     * @param syslogWriter - writer owning the full queue
+     * @param level - message level
+     * @param message - message (in byte[] form)
+     * @return true if the message was eventually queued, false if it was dropped
+     */
+    public boolean overflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message);
+
+    /**
+     * Called by the writer thread each time it has drained and written queued messages.
+     *
+     * @param syslogWriter - writer whose queue was drained
+     */
+    public void drained(AbstractSyslogWriter syslogWriter);
+
+    /**
+     * @return the number of times overflow(..) has been called
+     */
+    public long getOverflowCount();
+
+    /**
+     * @return the number of messages dropped, whether refused or evicted from the queue
+     */
+    public long getDroppedCount();
+}
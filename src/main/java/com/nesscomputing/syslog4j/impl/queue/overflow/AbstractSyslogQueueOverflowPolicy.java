@@ -0,0 +1,103 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue.overflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.queue.BudgetedSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueIF;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueOverflowPolicyIF;
+
+/**
+* AbstractSyslogQueueOverflowPolicy provides the counters common to all
+* SyslogQueueOverflowPolicyIF implementations.
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public abstract class AbstractSyslogQueueOverflowPolicy implements SyslogQueueOverflowPolicyIF {
+    protected final AtomicLong overflowCount = new AtomicLong(0);
+    protected final AtomicLong droppedCount = new AtomicLong(0);
+
+    public boolean overflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        this.overflowCount.incrementAndGet();
+
+        return handleOverflow(syslogWriter,level,message);
+    }
+
+    protected abstract boolean handleOverflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message);
+
+    /**
+     * Called for each message dropped by this policy.
+     */
+    protected void dropped(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        this.droppedCount.incrementAndGet();
+    }
+
+    /**
+     * Queues message after evicting queued messages (see SyslogQueueIF.evict(..)) as needed.
+     *
+     * @param evictLevel - most severe level that may be evicted, or null to evict messages of any level
+     * @return false if message could not be queued (e.g. no queued message may be evicted)
+     */
+    protected boolean evictAndOffer(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message, SyslogLevel evictLevel) {
+        while(true) {
+            byte[] evicted = syslogWriter.getQueue().evict(level,evictLevel);
+
+            if (evicted != null) {
+                //  evict(..) does not return the level of the evicted message
+                dropped(syslogWriter,null,evicted);
+            }
+
+            if (syslogWriter.getQueue().offer(level,message)) {
+                return true;
+            }
+
+            if (evicted == null) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return a description of the limit that the writer's queue reached
+     */
+    protected String getOverflowReason(AbstractSyslogWriter syslogWriter) {
+        SyslogQueueIF queue = syslogWriter.getQueue();
+
+        String reason = "MaxQueueSize (" + queue.getCapacity() + ")";
+
+        if (queue instanceof BudgetedSyslogQueue) {
+            reason += " or MaxQueueBytes (" + ((BudgetedSyslogQueue) queue).getBudget().getMaxBytes() + ")";
+        }
+
+        return reason + " reached";
+    }
+
+    public void drained(AbstractSyslogWriter syslogWriter) {
+        //
+    }
+
+    public long getOverflowCount() {
+        return this.overflowCount.get();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue.overflow;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+/**
+* BackLogSyslogQueueOverflowPolicy is the default SyslogQueueOverflowPolicyIF
+* implementation; it drops the new message and hands it to the configured
+* backLog handlers.
+*
+* <p>Unlike the other policies this decodes each dropped message back into a
+* String, on the logging thread.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class BackLogSyslogQueueOverflowPolicy extends AbstractSyslogQueueOverflowPolicy {
+    protected boolean handleOverflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        dropped(syslogWriter,level,message);
+
+        syslogWriter.getSyslog().backLogPacket(level,SyslogUtility.newString(syslogWriter.getSyslog().getConfig(),message),getOverflowReason(syslogWriter));
+
+        return false;
+    }
+}
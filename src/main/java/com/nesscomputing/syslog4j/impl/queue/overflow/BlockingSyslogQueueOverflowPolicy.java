@@ -0,0 +1,65 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue.overflow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+
+/**
+* BlockingSyslogQueueOverflowPolicy makes the logging thread wait for up to
+* timeout milliseconds for room in the queue, and drops (and counts) the
+* message if none becomes available.
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class BlockingSyslogQueueOverflowPolicy extends AbstractSyslogQueueOverflowPolicy {
+    public static final long RETRY_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    protected final long timeout;
+
+    /**
+     * @param timeout - maximum time to wait, in milliseconds
+     */
+    public BlockingSyslogQueueOverflowPolicy(long timeout) {
+        this.timeout = timeout;
+    }
+
+    protected boolean handleOverflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeout);
+
+        syslogWriter.wakeUp();
+
+        while(System.nanoTime() - deadline < 0 && syslogWriter.hasThread()) {
+            LockSupport.parkNanos(this,RETRY_INTERVAL_NANOS);
+
+            if (syslogWriter.getQueue().offer(level,message)) {
+                return true;
+            }
+        }
+
+        dropped(syslogWriter,level,message);
+
+        return false;
+    }
+
+    public long getTimeout() {
+        return this.timeout;
+    }
+}
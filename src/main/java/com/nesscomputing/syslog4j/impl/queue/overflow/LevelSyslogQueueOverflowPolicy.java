@@ -0,0 +1,82 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue.overflow;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+
+/**
+* LevelSyslogQueueOverflowPolicy sheds low-severity messages first: messages
+* at shedLevel or below (e.g. INFO and DEBUG) are dropped when the queue is
+* full, while more severe messages evict the oldest queued message at
+* shedLevel or below to make room for themselves.  A severe message is only
+* dropped when no such message can be evicted (see SyslogQueueIF.evict(..));
+* queued messages more severe than shedLevel are never evicted.
+*
+* <p>Dropped messages are also counted per level; messages evicted from the
+* queue are only included in getDroppedCount(), as evict(..) does not return
+* their level.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class LevelSyslogQueueOverflowPolicy extends AbstractSyslogQueueOverflowPolicy {
+    protected final SyslogLevel shedLevel;
+
+    protected final AtomicLongArray droppedCounts = new AtomicLongArray(SyslogLevel.values().length);
+
+    public LevelSyslogQueueOverflowPolicy() {
+        this(SyslogLevel.INFO);
+    }
+
+    /**
+     * @param shedLevel - most severe level that is dropped rather than evicting queued messages
+     */
+    public LevelSyslogQueueOverflowPolicy(SyslogLevel shedLevel) {
+        this.shedLevel = shedLevel;
+    }
+
+    protected boolean handleOverflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        if ((level == null || level.getValue() < this.shedLevel.getValue()) && evictAndOffer(syslogWriter,level,message,this.shedLevel)) {
+            return true;
+        }
+
+        dropped(syslogWriter,level,message);
+
+        return false;
+    }
+
+    protected void dropped(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        super.dropped(syslogWriter,level,message);
+
+        if (level != null) {
+            this.droppedCounts.incrementAndGet(level.ordinal());
+        }
+    }
+
+    public SyslogLevel getShedLevel() {
+        return this.shedLevel;
+    }
+
+    /**
+     * @return the number of messages of the given level refused by a full queue
+     */
+    public long getDroppedCount(SyslogLevel level) {
+        return this.droppedCounts.get(level.ordinal());
+    }
+}
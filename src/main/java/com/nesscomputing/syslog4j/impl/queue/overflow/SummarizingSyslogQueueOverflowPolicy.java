@@ -0,0 +1,105 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.impl.queue.overflow;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.MapMaker;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueIF;
+
+/**
+* SummarizingSyslogQueueOverflowPolicy drops (and counts) each message
+* refused by a full queue, and once the pressure subsides (the writer thread
+* has drained the queue to half its capacity or less) logs a single
+* "N messages dropped" message at summaryLevel.
+*
+* <p>Unreported drops are counted per writer, so each summary covers only
+* the writer whose queue overflowed.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public class SummarizingSyslogQueueOverflowPolicy extends AbstractSyslogQueueOverflowPolicy {
+    protected final SyslogLevel summaryLevel;
+
+    protected final ConcurrentMap<AbstractSyslogWriter,AtomicLong> unreportedCounts = new MapMaker().weakKeys().makeMap();
+
+    public SummarizingSyslogQueueOverflowPolicy() {
+        this(SyslogLevel.WARN);
+    }
+
+    public SummarizingSyslogQueueOverflowPolicy(SyslogLevel summaryLevel) {
+        this.summaryLevel = summaryLevel;
+    }
+
+    protected boolean handleOverflow(AbstractSyslogWriter syslogWriter, SyslogLevel level, byte[] message) {
+        dropped(syslogWriter,level,message);
+
+        AtomicLong unreportedCount = this.unreportedCounts.get(syslogWriter);
+
+        if (unreportedCount == null) {
+            AtomicLong newCount = new AtomicLong(0);
+
+            unreportedCount = this.unreportedCounts.putIfAbsent(syslogWriter,newCount);
+
+            if (unreportedCount == null) {
+                unreportedCount = newCount;
+            }
+        }
+
+        unreportedCount.incrementAndGet();
+
+        return false;
+    }
+
+    public void drained(AbstractSyslogWriter syslogWriter) {
+        AtomicLong unreportedCount = this.unreportedCounts.get(syslogWriter);
+
+        if (unreportedCount == null || unreportedCount.get() == 0 || !isRelieved(syslogWriter.getQueue())) {
+            return;
+        }
+
+        long count = unreportedCount.getAndSet(0);
+
+        if (count > 0) {
+            summarize(syslogWriter,count);
+        }
+    }
+
+    /**
+     * @return true if queue is empty or at most half full
+     */
+    protected boolean isRelieved(SyslogQueueIF queue) {
+        int capacity = queue.getCapacity();
+
+        return queue.isEmpty() || (capacity != -1 && queue.size() <= capacity / 2);
+    }
+
+    protected void summarize(AbstractSyslogWriter syslogWriter, long count) {
+        syslogWriter.getSyslog().log(this.summaryLevel,createSummary(syslogWriter,count));
+    }
+
+    protected String createSummary(AbstractSyslogWriter syslogWriter, long count) {
+        return count + " messages dropped: " + getOverflowReason(syslogWriter);
+    }
+
+    public SyslogLevel getSummaryLevel() {
+        return this.summaryLevel;
+    }
+}
@@ -20,6 +20,7 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 
 import org.apache.log4j.Logger;
 
@@ -32,6 +33,9 @@ import com.nesscomputing.syslog4j.util.SyslogUtility;
 /**
 * UDPNetSyslogServer provides a simple non-threaded UDP/IP server implementation.
 *
+* <p>Datagrams holding several LF-delimited messages can be split into separate
+* events (see UDPNetSyslogServerConfig.setSplitPackedMessages(..)).</p>
+*
 * <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
 * of the LGPL license is available in the META-INF folder in all
 * distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
@@ -89,7 +93,15 @@ public class UDPNetSyslogServer extends AbstractSyslogServer {
             return;
         }
 
-        byte[] receiveData = new byte[SyslogConstants.SYSLOG_BUFFER_SIZE];
+        int maxPacketSize = SyslogConstants.SYSLOG_BUFFER_SIZE;
+        boolean splitPackedMessages = false;
+
+        if (this.syslogServerConfig instanceof UDPNetSyslogServerConfig) {
+            maxPacketSize = ((UDPNetSyslogServerConfig) this.syslogServerConfig).getMaxPacketSize();
+            splitPackedMessages = ((UDPNetSyslogServerConfig) this.syslogServerConfig).isSplitPackedMessages();
+        }
+
+        byte[] receiveData = new byte[maxPacketSize];
 
         handleInitialize(this);
 
@@ -101,9 +113,14 @@ public class UDPNetSyslogServer extends AbstractSyslogServer {
 
                 this.ds.receive(dp);
 
-                SyslogServerEventIF event = createEvent(this.getConfig(),receiveData,dp.getLength(),dp.getAddress());
+                if (splitPackedMessages) {
+                    handlePackedEvents(dp,receiveData,dp.getLength());
 
-                handleEvent(null,this,dp,event);
+                } else {
+                    SyslogServerEventIF event = createEvent(this.getConfig(),receiveData,dp.getLength(),dp.getAddress());
+
+                    handleEvent(null,this,dp,event);
+                }
 
             } catch (SocketException se) {
                 int i = se.getMessage() == null ? -1 : se.getMessage().toLowerCase().indexOf("socket closed");
@@ -119,6 +136,42 @@ public class UDPNetSyslogServer extends AbstractSyslogServer {
         handleDestroy(this);
     }
 
+    /**
+     * Creates and handles one event for each LF-delimited message in the
+     * first length bytes of receiveData.  Only an LF followed by "&lt;" (or by
+     * the end of the datagram) ends a message, so lines that continue a
+     * multi-line message are kept with it.
+     */
+    protected void handlePackedEvents(DatagramPacket dp, byte[] receiveData, int length) {
+        int start = 0;
+
+        while(start < length) {
+            int end = start;
+
+            while(end < length && !isPackedMessageEnd(receiveData,end,length)) {
+                end++;
+            }
+
+            if (end > start) {
+                byte[] messageData = Arrays.copyOfRange(receiveData,start,end);
+
+                SyslogServerEventIF event = createEvent(this.getConfig(),messageData,messageData.length,dp.getAddress());
+
+                handleEvent(null,this,dp,event);
+            }
+
+            start = end + 1;
+        }
+    }
+
+    protected static boolean isPackedMessageEnd(byte[] receiveData, int index, int length) {
+        if (receiveData[index] != SyslogConstants.UDP_PACKED_MESSAGE_DELIMITER) {
+            return false;
+        }
+
+        return index + 1 == length || receiveData[index + 1] == '<';
+    }
+
     @Override
     public int getActualPort(){
         return this.ds.getLocalPort();
@@ -14,6 +14,7 @@
  */
 package com.nesscomputing.syslog4j.server.impl.net.udp;
 
+import com.nesscomputing.syslog4j.SyslogConstants;
 import com.nesscomputing.syslog4j.server.SyslogServerIF;
 import com.nesscomputing.syslog4j.server.impl.net.AbstractNetSyslogServerConfig;
 
@@ -28,6 +29,10 @@ import com.nesscomputing.syslog4j.server.impl.net.AbstractNetSyslogServerConfig;
 * @version $Id: UDPNetSyslogServerConfig.java,v 1.6 2010/10/28 05:10:57 cvs Exp $
 */
 public class UDPNetSyslogServerConfig extends AbstractNetSyslogServerConfig {
+    protected boolean splitPackedMessages = SyslogConstants.SERVER_UDP_SPLIT_PACKED_MESSAGES_DEFAULT;
+
+    protected int maxPacketSize = SyslogConstants.SERVER_UDP_MAX_PACKET_SIZE_DEFAULT;
+
     public UDPNetSyslogServerConfig() {
         //
     }
@@ -45,6 +50,36 @@ public class UDPNetSyslogServerConfig extends AbstractNetSyslogServerConfig {
         this.port = port;
     }
 
+    public boolean isSplitPackedMessages() {
+        return this.splitPackedMessages;
+    }
+
+    /**
+     * When true, each received datagram is split into separate events at each
+     * LF that is followed by the "&lt;" starting the next message's priority,
+     * matching clients that pack several messages into one datagram (see
+     * UDPNetSyslogConfigIF.setMaxPacketSize(..)).  Continuation lines of a
+     * multi-line message stay in its event.  Empty lines are ignored.
+     *
+     * @param splitPackedMessages
+     */
+    public void setSplitPackedMessages(boolean splitPackedMessages) {
+        this.splitPackedMessages = splitPackedMessages;
+    }
+
+    public int getMaxPacketSize() {
+        return this.maxPacketSize;
+    }
+
+    /**
+     * Sets the size of the receive buffer; longer datagrams are truncated.
+     *
+     * @param maxPacketSize
+     */
+    public void setMaxPacketSize(int maxPacketSize) {
+        this.maxPacketSize = maxPacketSize;
+    }
+
     public Class<? extends SyslogServerIF> getSyslogServerClass() {
         return UDPNetSyslogServer.class;
     }
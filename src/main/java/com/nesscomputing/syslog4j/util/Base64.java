@@ -742,6 +742,55 @@ public class Base64
     }   // end encodeBytes
 
 
+    /**
+     * Returns the number of bytes in the Base64 notation of <var>len</var>
+     * bytes, without line breaks.
+     *
+     * @param len Length of data to convert
+     * @return the encoded length
+     */
+    public static int encodedLength( int len )
+    {
+        return ( len + 2 ) / 3 * 4;
+    }   // end encodedLength
+
+
+    /**
+     * Encodes a byte array into Base64 notation, writing the result to
+     * <var>destination</var> instead of creating a String.  Lines are never
+     * broken and the data is never GZip-compressed; only the alphabet is
+     * taken from <var>options</var>.
+     * This method does not check to make sure <var>destination</var> can hold
+     * <tt>encodedLength( len )</tt> bytes from <var>destOffset</var>.
+     *
+     * @param source The data to convert
+     * @param off Offset in array where conversion should begin
+     * @param len Length of data to convert
+     * @param destination the array to hold the conversion
+     * @param destOffset the index where output will be put
+     * @param options alphabet type is pulled from this (standard, url-safe, ordered)
+     * @return the number of bytes written
+     */
+    public static int encodeBytes( byte[] source, int off, int len, byte[] destination, int destOffset, int options )
+    {
+        int d = 0;
+        int e = destOffset;
+        int len2 = len - 2;
+        for( ; d < len2; d+=3, e+=4 )
+        {
+            encode3to4( source, d+off, 3, destination, e, options );
+        }   // end for: each piece of array
+
+        if( d < len )
+        {
+            encode3to4( source, d+off, len - d, destination, e, options );
+            e += 4;
+        }   // end if: some padding needed
+
+        return e - destOffset;
+    }   // end encodeBytes
+
+
 
 
 
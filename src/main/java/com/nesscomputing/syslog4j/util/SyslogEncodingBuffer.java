@@ -0,0 +1,331 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import com.google.common.base.Charsets;
+import com.nesscomputing.syslog4j.SyslogCharSetIF;
+import com.nesscomputing.syslog4j.SyslogConstants;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+
+/**
+* SyslogEncodingBuffer encodes Strings into a reusable, growable byte array,
+* avoiding the array allocated by String.getBytes(..) when the encoded bytes
+* are only needed for a short time (e.g. to be copied into a packet or fed
+* to a digest).
+*
+* <p>US-ASCII, ISO-8859-1 and UTF-8 are encoded directly; other character
+* sets use a CharsetEncoder cached per thread.  Output is identical to
+* String.getBytes(..), including the replacement of unmappable characters.</p>
+*
+* <p>The buffer may also be built up with append(..) and insert(..), as byte
+* message modifiers (see SyslogByteMessageModifierIF) do.</p>
+*
+* <p>Each thread owns one buffer, obtained with acquire() and given back with
+* release(); a nested acquire() on the same thread returns a new, unshared
+* buffer.  The contents are only valid until release() is called, so callers
+* that need to keep the bytes must use toByteArray().</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public final class SyslogEncodingBuffer {
+    /**
+     * Buffers grown beyond this size are discarded on release() rather than
+     * being kept by the thread.
+     */
+    public static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<SyslogEncodingBuffer> THREAD_BUFFER = new ThreadLocal<SyslogEncodingBuffer>() {
+        @Override
+        protected SyslogEncodingBuffer initialValue() {
+            return new SyslogEncodingBuffer();
+        }
+    };
+
+    private byte[] buffer = new byte[SyslogConstants.SYSLOG_BUFFER_SIZE];
+    private int length = 0;
+
+    private boolean acquired = false;
+
+    private CharsetEncoder encoder = null;
+
+    private SyslogEncodingBuffer() {
+        //
+    }
+
+    public static SyslogEncodingBuffer acquire() {
+        SyslogEncodingBuffer encodingBuffer = THREAD_BUFFER.get();
+
+        if (encodingBuffer.acquired) {
+            encodingBuffer = new SyslogEncodingBuffer();
+        }
+
+        encodingBuffer.acquired = true;
+
+        return encodingBuffer;
+    }
+
+    public void release() {
+        this.acquired = false;
+        this.length = 0;
+
+        if (this.buffer.length > MAX_RETAINED_SIZE) {
+            this.buffer = new byte[SyslogConstants.SYSLOG_BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * @return Returns the internal array; only the first getLength() bytes are valid
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[this.length];
+        System.arraycopy(this.buffer,0,bytes,0,this.length);
+
+        return bytes;
+    }
+
+    /**
+     * @return Returns the contents decoded from charSet
+     */
+    public String toString(Charset charSet) {
+        return new String(this.buffer,0,this.length,charSet);
+    }
+
+    public int encode(SyslogCharSetIF syslogCharSet, String data) {
+        return encode(syslogCharSet.getCharSet(),data);
+    }
+
+    /**
+     * Replaces the contents of this buffer with data encoded in charSet.
+     *
+     * @return Returns the number of bytes encoded
+     */
+    public int encode(Charset charSet, String data) {
+        this.length = 0;
+
+        return append(charSet,data);
+    }
+
+    /**
+     * Appends data encoded in charSet.
+     *
+     * @return Returns the number of bytes appended
+     */
+    public int append(Charset charSet, String data) {
+        int start = this.length;
+
+        if (Charsets.UTF_8.equals(charSet)) {
+            encodeUTF8(data);
+
+        } else if (Charsets.US_ASCII.equals(charSet)) {
+            encodeSingleByte(data,0x80);
+
+        } else if (Charsets.ISO_8859_1.equals(charSet)) {
+            encodeSingleByte(data,0x100);
+
+        } else {
+            encodeCharset(charSet,data);
+        }
+
+        return this.length - start;
+    }
+
+    /**
+     * Appends data in Base64 notation, without line breaks, encoded in charSet.
+     * For UTF-8, US-ASCII and ISO-8859-1 the notation is written straight into
+     * the buffer.
+     *
+     * @return Returns the number of bytes appended
+     */
+    public int appendBase64(Charset charSet, byte[] data, int offset, int dataLength) {
+        if (!Charsets.UTF_8.equals(charSet) && !Charsets.US_ASCII.equals(charSet) && !Charsets.ISO_8859_1.equals(charSet)) {
+            return append(charSet,Base64.encodeBytes(data,offset,dataLength,Base64.DONT_BREAK_LINES));
+        }
+
+        ensureCapacity(this.length + Base64.encodedLength(dataLength));
+
+        int encodedLength = Base64.encodeBytes(data,offset,dataLength,this.buffer,this.length,Base64.NO_OPTIONS);
+        this.length += encodedLength;
+
+        return encodedLength;
+    }
+
+    public void append(byte[] data) {
+        append(data,0,data.length);
+    }
+
+    public void append(byte[] data, int offset, int dataLength) {
+        ensureCapacity(this.length + dataLength);
+
+        System.arraycopy(data,offset,this.buffer,this.length,dataLength);
+        this.length += dataLength;
+    }
+
+    /**
+     * Inserts data at offset, moving the bytes after it along.
+     */
+    public void insert(int offset, byte[] data) {
+        if (offset < 0 || offset > this.length) {
+            throw new IndexOutOfBoundsException(Integer.toString(offset));
+        }
+
+        ensureCapacity(this.length + data.length);
+
+        System.arraycopy(this.buffer,offset,this.buffer,offset + data.length,this.length - offset);
+        System.arraycopy(data,0,this.buffer,offset,data.length);
+        this.length += data.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.buffer.length) {
+            byte[] newBuffer = new byte[Math.max(capacity,this.buffer.length * 2)];
+            System.arraycopy(this.buffer,0,newBuffer,0,this.length);
+            this.buffer = newBuffer;
+        }
+    }
+
+    private void encodeSingleByte(String data, int limit) {
+        int dataLength = data.length();
+
+        ensureCapacity(this.length + dataLength);
+
+        byte[] b = this.buffer;
+        int pos = this.length;
+
+        for(int i=0; i<dataLength; i++) {
+            char c = data.charAt(i);
+
+            if (c < limit) {
+                b[pos++] = (byte) c;
+
+            } else {
+                b[pos++] = '?';
+
+                //  a valid surrogate pair is a single unmappable character
+                if (Character.isHighSurrogate(c) && i + 1 < dataLength && Character.isLowSurrogate(data.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+
+        this.length = pos;
+    }
+
+    private void encodeUTF8(String data) {
+        int dataLength = data.length();
+
+        ensureCapacity(this.length + dataLength * 3);
+
+        byte[] b = this.buffer;
+        int pos = this.length;
+
+        for(int i=0; i<dataLength; i++) {
+            char c = data.charAt(i);
+
+            if (c < 0x80) {
+                b[pos++] = (byte) c;
+
+            } else if (c < 0x800) {
+                b[pos++] = (byte) (0xC0 | (c >> 6));
+                b[pos++] = (byte) (0x80 | (c & 0x3F));
+
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < dataLength && Character.isLowSurrogate(data.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c,data.charAt(++i));
+
+                    b[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    b[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    b[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    b[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+
+                } else {
+                    b[pos++] = '?';
+                }
+
+            } else {
+                b[pos++] = (byte) (0xE0 | (c >> 12));
+                b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        this.length = pos;
+    }
+
+    private void encodeCharset(Charset charSet, String data) {
+        CharsetEncoder charsetEncoder = this.encoder;
+
+        if (charsetEncoder == null || !charsetEncoder.charset().equals(charSet)) {
+            charsetEncoder = charSet.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.encoder = charsetEncoder;
+        }
+
+        charsetEncoder.reset();
+
+        ensureCapacity(this.length + (int) (data.length() * (double) charsetEncoder.averageBytesPerChar()) + 16);
+
+        CharBuffer in = CharBuffer.wrap(data);
+        ByteBuffer out = ByteBuffer.wrap(this.buffer);
+        out.position(this.length);
+
+        try {
+            boolean flushing = false;
+
+            while(true) {
+                CoderResult result = flushing ? charsetEncoder.flush(out) : charsetEncoder.encode(in,out,true);
+
+                if (result.isOverflow()) {
+                    this.length = out.position();
+                    ensureCapacity(this.buffer.length * 2);
+
+                    out = ByteBuffer.wrap(this.buffer);
+                    out.position(this.length);
+
+                } else if (result.isUnderflow()) {
+                    if (flushing) {
+                        break;
+                    }
+
+                    flushing = true;
+
+                } else {
+                    result.throwException();
+                }
+            }
+
+        } catch (CharacterCodingException cce) {
+            throw new SyslogRuntimeException(cce);
+        }
+
+        this.length = out.position();
+    }
+}
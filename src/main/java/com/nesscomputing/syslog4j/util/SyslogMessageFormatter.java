@@ -0,0 +1,126 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.util;
+
+import java.util.Arrays;
+
+/**
+* SyslogMessageFormatter renders message templates for
+* SyslogIF.log(level,template,arguments..).  Each "{}" in the template is
+* replaced by the next argument, in order; "{}" without a matching argument
+* is left as it is, and surplus arguments are ignored.  Arrays are rendered
+* with Arrays.deepToString(..), other arguments with String.valueOf(..).
+*
+* <p>Templates are rendered into a StringBuilder kept by each thread, so that
+* only the resulting String is allocated.  A template formatted while another
+* is being rendered on the same thread (by an argument's toString()) is
+* rendered into a new, unshared builder.</p>
+*
+* <p>Syslog4j is licensed under the Lesser GNU Public License v2.1.  A copy
+* of the LGPL license is available in the META-INF folder in all
+* distributions of Syslog4j and in the base directory of the "doc" ZIP.</p>
+*/
+public final class SyslogMessageFormatter {
+    public static final String PLACEHOLDER = "{}";
+
+    /**
+     * Builders grown beyond this size are discarded rather than being kept by
+     * the thread.
+     */
+    public static final int MAX_RETAINED_SIZE = 16 * 1024;
+
+    private static final class ThreadBuilder {
+        private StringBuilder builder = new StringBuilder(256);
+        private boolean acquired = false;
+    }
+
+    private static final ThreadLocal<ThreadBuilder> THREAD_BUILDER = new ThreadLocal<ThreadBuilder>() {
+        @Override
+        protected ThreadBuilder initialValue() {
+            return new ThreadBuilder();
+        }
+    };
+
+    private SyslogMessageFormatter() {
+        //
+    }
+
+    public static String format(String template, Object... arguments) {
+        if (template == null || arguments == null || arguments.length == 0) {
+            return template;
+        }
+
+        int placeholder = template.indexOf(PLACEHOLDER);
+
+        if (placeholder < 0) {
+            return template;
+        }
+
+        ThreadBuilder threadBuilder = THREAD_BUILDER.get();
+
+        if (threadBuilder.acquired) {
+            return format(new StringBuilder(template.length() + 16 * arguments.length),template,placeholder,arguments);
+        }
+
+        threadBuilder.acquired = true;
+
+        try {
+            return format(threadBuilder.builder,template,placeholder,arguments);
+
+        } finally {
+            threadBuilder.acquired = false;
+
+            if (threadBuilder.builder.capacity() > MAX_RETAINED_SIZE) {
+                threadBuilder.builder = new StringBuilder(256);
+
+            } else {
+                threadBuilder.builder.setLength(0);
+            }
+        }
+    }
+
+    private static String format(StringBuilder builder, String template, int firstPlaceholder, Object[] arguments) {
+        int placeholder = firstPlaceholder;
+        int pos = 0;
+        int argument = 0;
+
+        while(placeholder >= 0 && argument < arguments.length) {
+            builder.append(template,pos,placeholder);
+            appendArgument(builder,arguments[argument++]);
+
+            pos = placeholder + PLACEHOLDER.length();
+            placeholder = template.indexOf(PLACEHOLDER,pos);
+        }
+
+        builder.append(template,pos,template.length());
+
+        return builder.toString();
+    }
+
+    private static void appendArgument(StringBuilder builder, Object argument) {
+        if (argument instanceof Object[]) {
+            builder.append(Arrays.deepToString((Object[]) argument));
+
+        } else if (argument != null && argument.getClass().isArray()) {
+            //  a primitive array, rendered as the only element of an Object[]
+            String rendered = Arrays.deepToString(new Object[] { argument });
+
+            builder.append(rendered,1,rendered.length() - 1);
+
+        } else {
+            builder.append(String.valueOf(argument));
+        }
+    }
+}
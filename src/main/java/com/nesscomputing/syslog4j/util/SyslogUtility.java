@@ -19,6 +19,7 @@ import static com.nesscomputing.syslog4j.SyslogConstants.SEND_LOCAL_NAME_DEFAULT
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import com.google.common.base.Charsets;
 import com.nesscomputing.syslog4j.SyslogCharSetIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
 /**
@@ -74,6 +75,35 @@ public final class SyslogUtility {
         return data.getBytes(syslogCharSet.getCharSet());
     }
 
+    /**
+     * Shortens a slice of encoded data so that it does not end in the middle
+     * of a character.  Only UTF-8 is checked; for other character sets, or if
+     * the slice holds no complete character, length is returned unchanged.
+     *
+     * @return Returns the largest length not greater than the given length at
+     * which the slice ends on a character boundary
+     */
+    public static int getCharacterBoundary(SyslogCharSetIF syslogCharSet, byte[] dataBytes, int start, int length) {
+        int end = start + length;
+
+        if (end >= dataBytes.length || !Charsets.UTF_8.equals(syslogCharSet.getCharSet())) {
+            return length;
+        }
+
+        //  a UTF-8 sequence is at most 4 bytes, so at most 3 continuation bytes are skipped
+        int boundary = end;
+
+        while(boundary > start && end - boundary < 3 && (dataBytes[boundary] & 0xC0) == 0x80) {
+            boundary--;
+        }
+
+        if (boundary == start || (dataBytes[boundary] & 0xC0) == 0x80) {
+            return length;
+        }
+
+        return boundary - start;
+    }
+
     public static String newString(SyslogCharSetIF syslogCharSet, byte[] dataBytes) {
         String data = newString(syslogCharSet,dataBytes,dataBytes.length);
 
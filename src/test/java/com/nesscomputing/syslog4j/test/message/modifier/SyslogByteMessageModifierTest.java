@@ -0,0 +1,157 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.message.modifier;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.impl.message.modifier.checksum.ChecksumSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.escape.HTMLEntityEscapeSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.hash.HashSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.mac.MacSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.sequential.SequentialSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.text.PrefixSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.text.StringCaseSyslogMessageModifier;
+import com.nesscomputing.syslog4j.impl.message.modifier.text.SuffixSyslogMessageModifier;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslog;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslogConfig;
+
+public class SyslogByteMessageModifierTest extends TestCase {
+    protected static final String MAC_KEY = "+v2mHoOx6QGLqYFa/Tx0J7BkXSK4HEVMtGHtG66vQ54=";
+
+    protected static final String[] MESSAGES = {
+        "plain ASCII message",
+        "<b>escaped</b> & \u00e9\u00e8 \u20ac \u4e2d\u6587",
+        "Pair \ud83d\ude00 end"
+    };
+
+    protected SplitSyslogConfig config = null;
+    protected SplitSyslog syslog = null;
+
+    public void setUp() {
+        this.config = new SplitSyslogConfig();
+        this.config.setIdent("bytes");
+        this.config.setSendLocalTimestamp(false);
+        this.config.setSendLocalName(false);
+
+        this.syslog = (SplitSyslog) Syslog.createInstance("byteModifier",this.config);
+    }
+
+    public void tearDown() {
+        Syslog.destroyInstance("byteModifier");
+    }
+
+    protected List<SyslogMessageModifierIF> createChain() {
+        List<SyslogMessageModifierIF> chain = Lists.newArrayList();
+
+        chain.add(HTMLEntityEscapeSyslogMessageModifier.createDefault());
+        chain.add(new PrefixSyslogMessageModifier("[prefix]"));
+        chain.add(StringCaseSyslogMessageModifier.UPPER);
+        chain.add(HashSyslogMessageModifier.createSHA1());
+        chain.add(SequentialSyslogMessageModifier.createDefault());
+        chain.add(new SuffixSyslogMessageModifier("[suffix]","|"));
+        chain.add(StringCaseSyslogMessageModifier.LOWER);
+        chain.add(ChecksumSyslogMessageModifier.createCRC32());
+        chain.add(MacSyslogMessageModifier.createHmacSHA256(MAC_KEY));
+
+        return chain;
+    }
+
+    protected String modify(List<SyslogMessageModifierIF> chain, String message) {
+        String _message = message;
+
+        for(SyslogMessageModifierIF messageModifier : chain) {
+            _message = messageModifier.modify(this.syslog,SyslogFacility.user,SyslogLevel.INFO,_message);
+        }
+
+        return _message;
+    }
+
+    protected String lastMessage() {
+        List<String> messages = this.syslog.getLastMessages();
+
+        return messages.get(messages.size() - 1);
+    }
+
+    protected void assertChain(boolean includeIdent) {
+        this.config.setIncludeIdentInMessageModifier(includeIdent);
+
+        List<SyslogMessageModifierIF> expectedChain = createChain();
+
+        this.config.removeAllMessageModifiers();
+
+        for(SyslogMessageModifierIF messageModifier : createChain()) {
+            this.config.addMessageModifier(messageModifier);
+        }
+
+        for(String message : MESSAGES) {
+            this.syslog.info(message);
+
+            String expected = includeIdent ? modify(expectedChain,"bytes: " + message) : "bytes: " + modify(expectedChain,message);
+
+            //  the recorded message is decoded from the header and message bytes
+            Charset charSet = this.config.getCharSet();
+
+            byte[] h = "<14>".getBytes(charSet);
+            byte[] m = expected.getBytes(charSet);
+
+            byte[] packet = Arrays.copyOf(h,h.length + m.length);
+            System.arraycopy(m,0,packet,h.length,m.length);
+
+            assertEquals(new String(packet,charSet),lastMessage());
+        }
+    }
+
+    public void testChainMatchesStringModifiers() {
+        assertChain(false);
+        assertChain(true);
+    }
+
+    public void testChainMatchesStringModifiersInSingleByteCharSet() {
+        this.config.setCharSet(Charset.forName("ISO-8859-1"));
+
+        assertChain(false);
+        assertChain(true);
+    }
+
+    public void testChainMatchesStringModifiersWithByteOrderMark() {
+        this.config.setCharSet(Charset.forName("UTF-16"));
+
+        assertChain(false);
+        assertChain(true);
+    }
+
+    public void testChecksumOfMultiByteMessage() {
+        ChecksumSyslogMessageModifier checksum = ChecksumSyslogMessageModifier.createCRC32();
+
+        String message = "\u00e9\u00e8 \u4e2d\u6587";
+
+        String modified = checksum.modify(this.syslog,SyslogFacility.user,SyslogLevel.INFO,message);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(message.getBytes(this.config.getCharSet()));
+
+        assertEquals(message + " {" + Long.toHexString(crc32.getValue()).toUpperCase() + "}",modified);
+    }
+}
@@ -14,6 +14,7 @@
  */
 package com.nesscomputing.syslog4j.test.message.modifier;
 
+import java.security.MessageDigest;
 import java.util.Arrays;
 
 import junit.framework.TestCase;
@@ -149,6 +150,38 @@ public class SyslogMessageModifierVerifyTest extends TestCase {
         assertFalse(modifier.verify(null));
     }
 
+    public void testHashDigestReuse() throws Exception {
+        final SyslogIF syslog = Syslog.getInstance("tcp");
+
+        final HashSyslogMessageModifier modifier = HashSyslogMessageModifier.createMD5();
+
+        final String message = "md5 hash Test 1212 ABAB";
+
+        assertEquals(message + " {fqfK2PYV76Wv9yNQjLoVeg==}",modifier.modify(syslog,SyslogFacility.kern,SyslogLevel.EMERGENCY,message));
+        assertEquals(message + " {fqfK2PYV76Wv9yNQjLoVeg==}",modifier.modify(syslog,SyslogFacility.kern,SyslogLevel.EMERGENCY,message));
+
+        final String[] modifiedMessage = new String[1];
+
+        Thread thread = new Thread() {
+            public void run() {
+                modifiedMessage[0] = modifier.modify(syslog,SyslogFacility.kern,SyslogLevel.EMERGENCY,message);
+            }
+        };
+
+        thread.start();
+        thread.join();
+
+        assertEquals(message + " {fqfK2PYV76Wv9yNQjLoVeg==}",modifiedMessage[0]);
+
+        modifier.getConfig().setHashAlgorithm("SHA1");
+
+        String sha1 = Base64.encodeBytes(MessageDigest.getInstance("SHA1").digest(message.getBytes("UTF-8")),Base64.DONT_BREAK_LINES);
+
+        assertEquals(message + " {" + sha1 + "}",modifier.modify(syslog,SyslogFacility.kern,SyslogLevel.EMERGENCY,message));
+        assertTrue(modifier.verify(message,sha1));
+        assertFalse(modifier.verify(message,"fqfK2PYV76Wv9yNQjLoVeg=="));
+    }
+
     public void testMacVerify() {
         SyslogIF syslog = Syslog.getInstance("udp");
 
@@ -15,9 +15,19 @@
 package com.nesscomputing.syslog4j.test.message.processor;
 
 
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
 import com.nesscomputing.syslog4j.AbstractBaseTest;
+import com.nesscomputing.syslog4j.SyslogConstants;
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogLevel;
 import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
+import com.nesscomputing.syslog4j.impl.message.processor.SyslogHeaderCache;
 import com.nesscomputing.syslog4j.impl.message.processor.SyslogMessageProcessor;
+import com.nesscomputing.syslog4j.impl.net.udp.UDPNetSyslogConfig;
 
 public class SyslogMessageProcessorTest extends AbstractBaseTest {
     protected static final SyslogMessageProcessorIF syslogMessageProcessor = new SyslogMessageProcessor();
@@ -58,4 +68,48 @@ public class SyslogMessageProcessorTest extends AbstractBaseTest {
         d = syslogMessageProcessor.createPacketData(h,m,8,6,"..".getBytes(),"..".getBytes());
         LOG.info(new String(d));
     }
+
+    public void testCachedLocalTimestamp() {
+        SyslogHeaderCache headerCache = new SyslogHeaderCache();
+        SimpleDateFormat dateFormat = new SimpleDateFormat(SyslogConstants.SYSLOG_DATEFORMAT,Locale.ENGLISH);
+
+        Calendar calendar = Calendar.getInstance(Locale.ENGLISH);
+        calendar.set(2011,Calendar.JANUARY,5,7,3,9);
+
+        byte[] timestamp = new byte[SyslogHeaderCache.LOCAL_TIMESTAMP_LENGTH];
+
+        for(int i=0; i<200; i++) {
+            long timeMs = calendar.getTimeInMillis();
+
+            String expected = dateFormat.format(new Date(timeMs));
+            if (expected.charAt(4) == '0') {
+                expected = expected.substring(0,4) + " " + expected.substring(5);
+            }
+
+            headerCache.writeLocalTimestamp(timestamp,0,timeMs);
+            assertEquals(expected,new String(timestamp));
+
+            calendar.add(Calendar.SECOND,(i % 2 == 0) ? 7 : 86400 * 3 + 3601);
+        }
+    }
+
+    public void testCreateSyslogHeaderBytes() {
+        SyslogMessageProcessor messageProcessor = new SyslogMessageProcessor();
+        UDPNetSyslogConfig config = new UDPNetSyslogConfig();
+
+        for(SyslogFacility facility : SyslogFacility.values()) {
+            for(SyslogLevel level : SyslogLevel.values()) {
+                String header = messageProcessor.createSyslogHeader(facility,level,"host",null,false,true);
+                byte[] headerBytes = messageProcessor.createSyslogHeaderBytes(config,facility,level,"host",null,false,true);
+
+                assertEquals(header,new String(headerBytes));
+            }
+        }
+
+        String header = messageProcessor.createSyslogHeader(SyslogFacility.user,SyslogLevel.INFO,null,null,true,false);
+        byte[] headerBytes = messageProcessor.createSyslogHeaderBytes(config,SyslogFacility.user,SyslogLevel.INFO,null,null,true,false);
+
+        assertEquals(header.length(),headerBytes.length);
+        assertTrue(new String(headerBytes).startsWith("<14>"));
+    }
 }
@@ -16,7 +16,14 @@ package com.nesscomputing.syslog4j.test.message.processor.structured;
 
 import junit.framework.TestCase;
 
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.ISODateTimeFormat;
+
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.message.processor.structured.StructuredSyslogHeaderCache;
 import com.nesscomputing.syslog4j.impl.message.processor.structured.StructuredSyslogMessageProcessor;
+import com.nesscomputing.syslog4j.impl.net.udp.UDPNetSyslogConfig;
 
 public class StructuredSyslogMessageProcessorTest extends TestCase {
     public void testCreatingDefaultAndParameters() {
@@ -36,4 +43,61 @@ public class StructuredSyslogMessageProcessorTest extends TestCase {
         StructuredSyslogMessageProcessor.setDefault(origMessageProcessor);
         assertEquals(origMessageProcessor,StructuredSyslogMessageProcessor.getDefault());
     }
+
+    public void testCachedTimestamp() {
+        DateTimeZone origZone = DateTimeZone.getDefault();
+
+        String[] zones = { "UTC", "Asia/Kolkata", "America/Los_Angeles", "Australia/Lord_Howe" };
+
+        try {
+            for(String zone : zones) {
+                DateTimeZone.setDefault(DateTimeZone.forID(zone));
+
+                StructuredSyslogHeaderCache headerCache = new StructuredSyslogHeaderCache();
+
+                long timeMs = 1300000000123L;
+
+                for(int i=0; i<500; i++) {
+                    byte[] template = headerCache.getTimestampTemplate(timeMs);
+                    byte[] timestamp = new byte[template.length];
+
+                    StructuredSyslogHeaderCache.writeTimestamp(timestamp,0,template,timeMs);
+
+                    assertEquals(ISODateTimeFormat.dateTime().print(timeMs),new String(timestamp));
+
+                    timeMs += (i % 2 == 0) ? 457 : 86400000L * 11 + 3600321;
+                }
+            }
+
+        } finally {
+            DateTimeZone.setDefault(origZone);
+        }
+    }
+
+    public void testCachedHeader() {
+        StructuredSyslogMessageProcessor messageProcessor = new StructuredSyslogMessageProcessor("app1");
+        UDPNetSyslogConfig config = new UDPNetSyslogConfig();
+
+        String[] uncached = new String(messageProcessor.createSyslogHeaderBytes(config,SyslogFacility.local0,SyslogLevel.WARN,"host",null,true,true)).split(" ");
+
+        messageProcessor.setCachedHeader(true);
+
+        for(int i=0; i<2; i++) {
+            String[] cached = new String(messageProcessor.createSyslogHeaderBytes(config,SyslogFacility.local0,SyslogLevel.WARN,"host",null,true,true)).split(" ");
+
+            assertEquals(uncached.length,cached.length);
+            assertEquals(uncached[1].length(),cached[1].length());
+
+            for(int j=0; j<cached.length; j++) {
+                if (j != 1) {
+                    assertEquals(uncached[j],cached[j]);
+                }
+            }
+        }
+
+        assertEquals("<132>1",uncached[0]);
+        assertEquals("host",uncached[2]);
+        assertEquals("app1",uncached[3]);
+        assertEquals("-",uncached[4]);
+    }
 }
@@ -45,7 +45,6 @@ import com.nesscomputing.syslog4j.SyslogMessageIF;
 import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
 import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
 import com.nesscomputing.syslog4j.SyslogRuntimeException;
-import com.nesscomputing.syslog4j.impl.AbstractSyslog;
 import com.nesscomputing.syslog4j.impl.AbstractSyslogConfig;
 import com.nesscomputing.syslog4j.impl.AbstractSyslogConfigIF;
 import com.nesscomputing.syslog4j.impl.backlog.NullSyslogBackLogHandler;
@@ -255,6 +254,14 @@ public class SyslogParameterTest extends TestCase {
             //
         }
 
+        public SyslogLevel getThreshold() {
+            return null;
+        }
+
+        public void setThreshold(SyslogLevel threshold) {
+            //
+        }
+
         public void setTruncateMessage(boolean truncateMessage) {
             //
         }
@@ -599,6 +606,10 @@ public class SyslogParameterTest extends TestCase {
         config.setMaxMessageLength(99);
         assertEquals(99,config.getMaxMessageLength());
 
+        assertEquals(SyslogConstants.THRESHOLD_DEFAULT,config.getThreshold());
+        config.setThreshold(SyslogLevel.WARN);
+        assertEquals(SyslogLevel.WARN,config.getThreshold());
+
         assertEquals(SyslogFacility.auth,config.getFacility());
         config.setFacility(SyslogFacility.local1);
         assertEquals(SyslogFacility.local1,config.getFacility());
@@ -1255,6 +1266,10 @@ public class SyslogParameterTest extends TestCase {
         assertEquals(SyslogConstants.MAX_SHUTDOWN_WAIT_DEFAULT,config.getMaxShutdownWait());
         assertEquals(SyslogConstants.MAX_MESSAGE_LENGTH_DEFAULT,config.getMaxMessageLength());
 
+        assertEquals(SyslogConstants.THRESHOLD_DEFAULT,config.getThreshold());
+        config.setThreshold(SyslogLevel.INFO);
+        assertEquals(SyslogLevel.INFO,config.getThreshold());
+
         assertEquals(Charsets.UTF_8, config.getCharSet());
         assertEquals(SyslogFacility.DEFAULT, config.getFacility());
         assertEquals(SyslogConstants.SYSLOG_HOST_DEFAULT,config.getHost());
@@ -1309,12 +1324,12 @@ public class SyslogParameterTest extends TestCase {
     }
 
     public void testUDPNetSyslog() {
-        AbstractSyslog syslog = new UDPNetSyslog();
+        UDPNetSyslog syslog = new UDPNetSyslog();
 
         // NO-OP - okay
         syslog.returnWriter(null);
 
-        assertNull(syslog.getWriter());
+        assertNull(syslog.getWriter(false));
     }
 
     public void testStructuredSyslogMessage() {
@@ -0,0 +1,123 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.misc;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.impl.message.modifier.text.PrefixSyslogMessageModifier;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslog;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslogConfig;
+
+public class SyslogSendPlanTest extends TestCase {
+    protected SplitSyslogConfig config = null;
+    protected SplitSyslog syslog = null;
+
+    public void setUp() {
+        this.config = new SplitSyslogConfig();
+        this.config.setIdent("plan");
+        this.config.setSendLocalTimestamp(false);
+        this.config.setSendLocalName(false);
+
+        this.syslog = (SplitSyslog) Syslog.createInstance("sendPlan",this.config);
+    }
+
+    public void tearDown() {
+        Syslog.destroyInstance("sendPlan");
+    }
+
+    protected String lastMessage() {
+        List<String> messages = this.syslog.getLastMessages();
+
+        return messages.get(messages.size() - 1);
+    }
+
+    public void testConfigChanges() {
+        this.syslog.info("first");
+        assertEquals("<14>plan: first",lastMessage());
+
+        this.config.setIdent("changed");
+        this.syslog.info("second");
+        assertEquals("<14>changed: second",lastMessage());
+
+        this.config.setFacility(SyslogFacility.local0);
+        this.syslog.info("third");
+        assertEquals("<134>changed: third",lastMessage());
+
+        this.config.setIdent(null);
+        this.syslog.info("fourth");
+        assertEquals("<134>fourth",lastMessage());
+
+        this.config.setMaxMessageLength(10);
+        this.config.setTruncateMessage(true);
+        this.syslog.info("truncated message");
+        assertEquals("<134>trunc",lastMessage());
+    }
+
+    public void testMessageModifierChanges() {
+        this.syslog.info("first");
+        assertEquals("<14>plan: first",lastMessage());
+
+        this.config.addMessageModifier(new PrefixSyslogMessageModifier("[added]"));
+        this.syslog.info("second");
+        assertEquals("<14>plan: [added] second",lastMessage());
+
+        //  changed directly, without going through the configuration
+        this.config.getMessageModifiers().add(new SyslogMessageModifierIF() {
+            public String modify(SyslogIF syslogIF, SyslogFacility facility, SyslogLevel level, String message) {
+                return message + " [direct]";
+            }
+
+            public boolean verify(String message) {
+                return true;
+            }
+        });
+        this.syslog.info("third");
+        assertEquals("<14>plan: [added] third [direct]",lastMessage());
+
+        this.config.removeAllMessageModifiers();
+        this.syslog.info("fourth");
+        assertEquals("<14>plan: fourth",lastMessage());
+    }
+
+    public void testConfigChangedWhileLogging() {
+        this.config.addMessageModifier(new SyslogMessageModifierIF() {
+            public String modify(SyslogIF syslogIF, SyslogFacility facility, SyslogLevel level, String message) {
+                SyslogSendPlanTest.this.config.setFacility(SyslogFacility.local0);
+                SyslogSendPlanTest.this.config.setMaxMessageLength(10);
+                SyslogSendPlanTest.this.config.setTruncateMessage(true);
+
+                return message;
+            }
+
+            public boolean verify(String message) {
+                return true;
+            }
+        });
+
+        //  the whole message is sent with the settings in place when it was logged
+        this.syslog.info("changed while logging");
+        assertEquals("<14>plan: changed while logging",lastMessage());
+
+        this.syslog.info("next message");
+        assertEquals("<134>plan:",lastMessage());
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.misc;
+
+import junit.framework.TestCase;
+
+import com.google.common.base.Supplier;
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageIF;
+import com.nesscomputing.syslog4j.impl.multiple.MultipleSyslogConfig;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslog;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslogConfig;
+
+public class SyslogThresholdTest extends TestCase {
+    public static class CountingSyslogMessage implements SyslogMessageIF {
+        public int created = 0;
+
+        public String createMessage() {
+            this.created++;
+            return "counted";
+        }
+
+        public String getProcId() {
+            return null;
+        }
+    }
+
+    protected SplitSyslog createSplitSyslog(String protocol, SyslogLevel threshold) {
+        SplitSyslogConfig config = new SplitSyslogConfig();
+        config.setThreshold(threshold);
+
+        return (SplitSyslog) Syslog.createInstance(protocol,config);
+    }
+
+    public void tearDown() {
+        String[] protocols = new String[] { "thresholdMultiple", "threshold1", "threshold2" };
+
+        for(int i=0; i<protocols.length; i++) {
+            if (Syslog.exists(protocols[i])) {
+                Syslog.destroyInstance(protocols[i]);
+            }
+        }
+    }
+
+    public void testThreshold() {
+        SplitSyslog syslog = createSplitSyslog("threshold1",SyslogLevel.INFO);
+
+        assertTrue(syslog.isEnabled(SyslogLevel.ERROR));
+        assertTrue(syslog.isEnabled(SyslogLevel.INFO));
+        assertFalse(syslog.isEnabled(SyslogLevel.DEBUG));
+
+        CountingSyslogMessage message = new CountingSyslogMessage();
+
+        syslog.debug("dropped");
+        syslog.debug(message);
+        assertEquals(0,syslog.getLastMessages().size());
+        assertEquals(0,message.created);
+
+        syslog.info("kept");
+        syslog.info(message);
+        assertEquals(2,syslog.getLastMessages().size());
+        assertEquals(1,message.created);
+
+        syslog.getConfig().setThreshold(null);
+        assertTrue(syslog.isEnabled(SyslogLevel.DEBUG));
+    }
+
+    public void testLazyMessages() {
+        SplitSyslog syslog = createSplitSyslog("threshold1",SyslogLevel.INFO);
+
+        final int[] supplied = new int[1];
+
+        Supplier<String> supplier = new Supplier<String>() {
+            public String get() {
+                supplied[0]++;
+                return "supplied";
+            }
+        };
+
+        syslog.log(SyslogLevel.DEBUG,supplier);
+        syslog.log(SyslogLevel.DEBUG,"dropped {}",supplier);
+        assertEquals(0,supplied[0]);
+        assertEquals(0,syslog.getLastMessages().size());
+
+        syslog.log(SyslogLevel.INFO,supplier);
+        syslog.log(SyslogLevel.INFO,"template {} {}","one",2);
+        assertEquals(1,supplied[0]);
+        assertEquals(2,syslog.getLastMessages().size());
+        assertTrue(syslog.getLastMessages().get(0).endsWith("supplied"));
+        assertTrue(syslog.getLastMessages().get(1).endsWith("template one 2"));
+    }
+
+    public void testMultipleThreshold() {
+        SplitSyslog syslog1 = createSplitSyslog("threshold1",SyslogLevel.INFO);
+        SplitSyslog syslog2 = createSplitSyslog("threshold2",SyslogLevel.ERROR);
+
+        MultipleSyslogConfig multipleConfig = new MultipleSyslogConfig(new String[] { "threshold1", "threshold2" });
+        SyslogIF multiple = Syslog.createInstance("thresholdMultiple",multipleConfig);
+
+        assertTrue(multiple.isEnabled(SyslogLevel.INFO));
+        assertFalse(multiple.isEnabled(SyslogLevel.DEBUG));
+
+        multiple.debug("dropped");
+        multiple.info("info");
+        multiple.error("error");
+
+        assertEquals(2,syslog1.getLastMessages().size());
+        assertEquals(1,syslog2.getLastMessages().size());
+        assertTrue(syslog2.getLastMessages().get(0).endsWith("error"));
+
+        multipleConfig.setThreshold(SyslogLevel.WARN);
+        assertFalse(multiple.isEnabled(SyslogLevel.INFO));
+
+        multiple.info("dropped");
+        multiple.log(SyslogLevel.INFO,"dropped {}","template");
+        assertEquals(2,syslog1.getLastMessages().size());
+
+        multiple.log(SyslogLevel.ERROR,"error {}","template");
+        assertEquals(3,syslog1.getLastMessages().size());
+        assertEquals(2,syslog2.getLastMessages().size());
+        assertTrue(syslog2.getLastMessages().get(1).endsWith("error template"));
+    }
+}
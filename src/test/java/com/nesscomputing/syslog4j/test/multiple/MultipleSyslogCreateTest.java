@@ -21,6 +21,7 @@ import java.nio.charset.Charset;
 import junit.framework.TestCase;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
 import com.nesscomputing.syslog4j.Syslog;
 import com.nesscomputing.syslog4j.SyslogBackLogHandlerIF;
 import com.nesscomputing.syslog4j.SyslogConfigIF;
@@ -35,6 +36,7 @@ import com.nesscomputing.syslog4j.SyslogRuntimeException;
 import com.nesscomputing.syslog4j.impl.message.processor.SyslogMessageProcessor;
 import com.nesscomputing.syslog4j.impl.message.processor.structured.StructuredSyslogMessageProcessor;
 import com.nesscomputing.syslog4j.impl.multiple.MultipleSyslogConfig;
+import com.nesscomputing.syslog4j.util.SyslogMessageFormatter;
 
 public class MultipleSyslogCreateTest extends TestCase {
     public static class FakeSyslog implements SyslogIF {
@@ -67,6 +69,8 @@ public class MultipleSyslogCreateTest extends TestCase {
         public void emergency(String message) { this.total += 16384; }
         public void emergency(SyslogMessageIF message) { this.total += 32768; }
 
+        public boolean isEnabled(SyslogLevel level) { return true; }
+
         public void backLog(SyslogLevel level, String message, Throwable reasonThrowable) { }
         public void backLog(SyslogLevel level, String message, String reason) { }
 
@@ -109,6 +113,14 @@ public class MultipleSyslogCreateTest extends TestCase {
             if (SyslogLevel.EMERGENCY == level) { emergency(message); }
         }
 
+        public void log(SyslogLevel level, Supplier<String> message) {
+            log(level,message.get());
+        }
+
+        public void log(SyslogLevel level, String template, Object... arguments) {
+            log(level,SyslogMessageFormatter.format(template,arguments));
+        }
+
         public void shutdown() throws SyslogRuntimeException { }
     }
 
@@ -187,6 +199,10 @@ public class MultipleSyslogCreateTest extends TestCase {
 
         public void setMaxMessageLength(int maxMessageLength) { }
 
+        public SyslogLevel getThreshold() { return SyslogConstants.THRESHOLD_DEFAULT; }
+
+        public void setThreshold(SyslogLevel threshold) { }
+
         public boolean isUseStructuredData() { return USE_STRUCTURED_DATA_DEFAULT; }
 
         public void setUseStructuredData(boolean useStructuredData) { }
@@ -0,0 +1,207 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.multiple;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogFacility;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogMessageModifierIF;
+import com.nesscomputing.syslog4j.SyslogMessageProcessorIF;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.SyslogSendPlan;
+import com.nesscomputing.syslog4j.impl.multiple.MultipleSyslogConfig;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslog;
+import com.nesscomputing.syslog4j.test.split.base.SplitSyslogConfig;
+
+public class MultipleSyslogSharedRenderingTest extends TestCase {
+    public static class CountingMessageModifier implements SyslogMessageModifierIF {
+        public int count = 0;
+
+        public String modify(SyslogIF syslog, SyslogFacility facility, SyslogLevel level, String message) {
+            this.count++;
+            return message + " [" + this.count + "]";
+        }
+
+        public boolean verify(String message) {
+            return true;
+        }
+    }
+
+    /**
+     * Sends messages from log(..) rather than through write(level, byte[]),
+     * as UnixSyslog does.
+     */
+    public static class SelfLoggingSyslog extends AbstractSyslog {
+        public List<String> messages = Lists.newArrayList();
+
+        protected void initialize() throws SyslogRuntimeException {
+            //
+        }
+
+        protected void log(SyslogSendPlan plan, SyslogMessageProcessorIF messageProcessor, SyslogLevel level, String localProcId, String message) {
+            this.messages.add(message);
+        }
+
+        protected void write(SyslogLevel level, byte[] message) throws SyslogRuntimeException {
+            // NO-OP
+        }
+
+        public void flush() throws SyslogRuntimeException {
+            //
+        }
+
+        public void shutdown() {
+            //
+        }
+
+        public AbstractSyslogWriter getWriter() {
+            return null;
+        }
+
+        public void returnWriter(AbstractSyslogWriter syslogWriter) {
+            //
+        }
+    }
+
+    public static class SelfLoggingSyslogConfig extends SplitSyslogConfig {
+        public Class<? extends SyslogIF> getSyslogClass() {
+            return SelfLoggingSyslog.class;
+        }
+    }
+
+    protected CountingMessageModifier modifier = null;
+
+    protected SplitSyslog createSplitSyslog(String protocol, String ident) {
+        SplitSyslogConfig config = new SplitSyslogConfig();
+        config.setIdent(ident);
+        config.setSendLocalTimestamp(false);
+        config.setSendLocalName(false);
+        config.addMessageModifier(this.modifier);
+
+        return (SplitSyslog) Syslog.createInstance(protocol,config);
+    }
+
+    public void setUp() {
+        this.modifier = new CountingMessageModifier();
+    }
+
+    public void tearDown() {
+        String[] protocols = new String[] { "sharedMultiple", "shared1", "shared2", "shared3" };
+
+        for(int i=0; i<protocols.length; i++) {
+            if (Syslog.exists(protocols[i])) {
+                Syslog.destroyInstance(protocols[i]);
+            }
+        }
+    }
+
+    public void testSharedRendering() {
+        SplitSyslog syslog1 = createSplitSyslog("shared1","ident");
+        SplitSyslog syslog2 = createSplitSyslog("shared2","ident");
+        SplitSyslog syslog3 = createSplitSyslog("shared3","other");
+
+        SyslogIF multiple = Syslog.createInstance("sharedMultiple",new MultipleSyslogConfig(new String[] { "shared1", "shared2", "shared3" }));
+
+        multiple.info("message");
+
+        //  shared1 and shared2 share one rendering; shared3 renders its own
+        assertEquals(2,this.modifier.count);
+
+        assertEquals(1,syslog1.getLastMessages().size());
+        assertEquals(syslog1.getLastMessages(),syslog2.getLastMessages());
+        assertTrue(syslog1.getLastMessages().get(0).endsWith("ident: message [1]"));
+
+        assertEquals(1,syslog3.getLastMessages().size());
+        assertTrue(syslog3.getLastMessages().get(0).endsWith("other: message [2]"));
+    }
+
+    public void testSelfLoggingNotShared() {
+        SplitSyslog syslog1 = createSplitSyslog("shared1","ident");
+
+        SelfLoggingSyslogConfig config = new SelfLoggingSyslogConfig();
+        config.setIdent("ident");
+        config.setSendLocalTimestamp(false);
+        config.setSendLocalName(false);
+        config.addMessageModifier(this.modifier);
+
+        SelfLoggingSyslog syslog2 = (SelfLoggingSyslog) Syslog.createInstance("shared2",config);
+
+        assertFalse(syslog1.isRenderingCompatible(syslog2));
+        assertFalse(syslog2.isRenderingCompatible(syslog1));
+
+        SyslogIF multiple = Syslog.createInstance("sharedMultiple",new MultipleSyslogConfig(new String[] { "shared2", "shared1" }));
+
+        multiple.info("message");
+
+        assertEquals(1,syslog1.getLastMessages().size());
+
+        //  logged through its own log(..) rather than handed packets it would drop
+        assertEquals(1,syslog2.messages.size());
+        assertEquals("message",syslog2.messages.get(0));
+    }
+
+    public void testChangedConfig() {
+        SplitSyslog syslog1 = createSplitSyslog("shared1","ident");
+        SplitSyslog syslog2 = createSplitSyslog("shared2","ident");
+
+        SyslogIF multiple = Syslog.createInstance("sharedMultiple",new MultipleSyslogConfig(new String[] { "shared1", "shared2" }));
+
+        multiple.info("first");
+
+        syslog2.getConfig().setIdent("changed");
+
+        multiple.info("second");
+
+        assertEquals(2,syslog1.getLastMessages().size());
+        assertTrue(syslog1.getLastMessages().get(1).endsWith("ident: second [2]"));
+
+        assertEquals(2,syslog2.getLastMessages().size());
+        assertTrue(syslog2.getLastMessages().get(1).endsWith("changed: second [3]"));
+    }
+
+    public void testReresolve() {
+        createSplitSyslog("shared1","ident");
+
+        MultipleSyslogConfig multipleConfig = new MultipleSyslogConfig(new String[] { "shared1" });
+        SyslogIF multiple = Syslog.createInstance("sharedMultiple",multipleConfig);
+
+        multiple.info("first");
+
+        SplitSyslog syslog2 = createSplitSyslog("shared2","ident");
+        multipleConfig.addProtocol("shared2");
+
+        multiple.info("second");
+
+        assertEquals(1,syslog2.getLastMessages().size());
+
+        Syslog.destroyInstance("shared2");
+        SplitSyslog recreated = createSplitSyslog("shared2","ident");
+
+        multiple.info("third");
+
+        //  shutting syslog2 down cleared its messages
+        assertEquals(0,syslog2.getLastMessages().size());
+        assertEquals(1,recreated.getLastMessages().size());
+        assertTrue(recreated.getLastMessages().get(0).endsWith("ident: third [3]"));
+    }
+}
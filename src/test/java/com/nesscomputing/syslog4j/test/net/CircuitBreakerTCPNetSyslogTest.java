@@ -0,0 +1,90 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.impl.backlog.NullSyslogBackLogHandler;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.test.net.MaxQueueSizeTest.BackLogCounter;
+import com.nesscomputing.syslog4j.test.net.SpillTCPNetSyslogTest.LineCollectingServer;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class CircuitBreakerTCPNetSyslogTest extends TestCase {
+    public void testCircuitBreaker() throws IOException {
+        int port = 7784;
+        int messagesToSend = 100;
+
+        BackLogCounter counter = new BackLogCounter();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(port);
+        syslogConfig.setThreaded(false);
+        syslogConfig.setUseCircuitBreaker(true);
+        syslogConfig.setCircuitBreakerInitialBackoff(50);
+        syslogConfig.setCircuitBreakerMaxBackoff(200);
+        syslogConfig.addBackLogHandler(counter);
+        syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
+
+        AbstractSyslog syslog = (AbstractSyslog) Syslog.createInstance("circuitBreakerTest",syslogConfig);
+
+        LineCollectingServer server = new LineCollectingServer(port);
+
+        try {
+            syslog.log(SyslogLevel.INFO,"test line 0");
+
+            assertTrue(syslog.isCircuitOpen());
+            assertEquals(1,counter.count);
+
+            for(int i=1; i<=messagesToSend; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            assertEquals(messagesToSend + 1,counter.count);
+            assertEquals(1,syslog.getCircuitBreaker().getOpenCount());
+
+            new Thread(server).start();
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while(syslog.isCircuitOpen() && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(20);
+            }
+
+            assertFalse(syslog.isCircuitOpen());
+
+            syslog.log(SyslogLevel.INFO,"test line " + (messagesToSend + 1));
+
+            deadline = System.currentTimeMillis() + 5000;
+
+            while(server.lines.isEmpty() && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(20);
+            }
+
+            assertEquals(1,server.lines.size());
+            assertTrue(server.lines.get(0).endsWith("test line " + (messagesToSend + 1)));
+            assertEquals(messagesToSend + 1,counter.count);
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server.shutdown();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.backlog.NullSyslogBackLogHandler;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslog;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfigIF;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogEndpoint;
+import com.nesscomputing.syslog4j.impl.net.tcp.pool.PooledTCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.test.net.MaxQueueSizeTest.BackLogCounter;
+import com.nesscomputing.syslog4j.test.net.SpillTCPNetSyslogTest.LineCollectingServer;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class EndpointTCPNetSyslogTest extends TestCase {
+    protected static LineCollectingServer startServer(int port) {
+        LineCollectingServer server = new LineCollectingServer(port);
+
+        new Thread(server).start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while(server.serverSocket == null && System.currentTimeMillis() < deadline) {
+            SyslogUtility.sleep(10);
+        }
+
+        return server;
+    }
+
+    protected static void awaitLines(int count, LineCollectingServer... servers) {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while(System.currentTimeMillis() < deadline) {
+            int lines = 0;
+
+            for(LineCollectingServer server: servers) {
+                lines += server.lines.size();
+            }
+
+            if (lines >= count) {
+                return;
+            }
+
+            SyslogUtility.sleep(20);
+        }
+    }
+
+    public void testEndpointParsing() {
+        TCPNetSyslogEndpoint endpoint = TCPNetSyslogEndpoint.parse("collector1",514,true);
+        assertEquals("collector1",endpoint.getHost());
+        assertEquals(514,endpoint.getPort());
+
+        endpoint = TCPNetSyslogEndpoint.parse(" collector2:1514 ",514,true);
+        assertEquals("collector2",endpoint.getHost());
+        assertEquals(1514,endpoint.getPort());
+
+        endpoint = TCPNetSyslogEndpoint.parse("[::1]:1514",514,true);
+        assertEquals("::1",endpoint.getHost());
+        assertEquals(1514,endpoint.getPort());
+
+        endpoint = TCPNetSyslogEndpoint.parse("::1",514,true);
+        assertEquals("::1",endpoint.getHost());
+        assertEquals(514,endpoint.getPort());
+    }
+
+    public void testRoundRobin() throws IOException {
+        LineCollectingServer server1 = startServer(7786);
+        LineCollectingServer server2 = startServer(7787);
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setThreaded(false);
+        syslogConfig.addEndpoint("127.0.0.1:7786");
+        syslogConfig.addEndpoint("127.0.0.1:7787");
+
+        SyslogIF syslog = Syslog.createInstance("endpointRoundRobinTest",syslogConfig);
+
+        try {
+            for(int i=0; i<10; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            awaitLines(10,server1,server2);
+
+            assertEquals(5,server1.lines.size());
+            assertEquals(5,server2.lines.size());
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server1.shutdown();
+            server2.shutdown();
+        }
+    }
+
+    public void testFailover() throws IOException {
+        LineCollectingServer server = startServer(7786);
+
+        BackLogCounter counter = new BackLogCounter();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setThreaded(false);
+        syslogConfig.setEndpointStrategy(TCPNetSyslogConfigIF.ENDPOINT_STRATEGY_FAILOVER);
+        syslogConfig.setEndpointRetryInterval(60000);
+        syslogConfig.setUseCircuitBreaker(true);
+        syslogConfig.addEndpoint("127.0.0.1:7788");
+        syslogConfig.addEndpoint("127.0.0.1:7786");
+        syslogConfig.addBackLogHandler(counter);
+        syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
+
+        TCPNetSyslog syslog = (TCPNetSyslog) Syslog.createInstance("endpointFailoverTest",syslogConfig);
+
+        try {
+            for(int i=0; i<10; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            awaitLines(10,server);
+
+            assertEquals(0,counter.count);
+            assertEquals(10,server.lines.size());
+            assertTrue(server.lines.get(0).endsWith("test line 0"));
+
+            assertFalse(syslog.getEndpoints()[0].isAvailable(System.currentTimeMillis()));
+            assertTrue(syslog.getEndpoints()[1].isAvailable(System.currentTimeMillis()));
+            assertFalse(syslog.isCircuitOpen());
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server.shutdown();
+        }
+    }
+
+    public void testSplitMessageSentToOneEndpoint() throws IOException {
+        LineCollectingServer server1 = startServer(7789);
+        LineCollectingServer server2 = startServer(7790);
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setThreaded(false);
+        syslogConfig.setMaxMessageLength(200);
+        syslogConfig.addEndpoint("127.0.0.1:7789");
+        syslogConfig.addEndpoint("127.0.0.1:7790");
+
+        SyslogIF syslog = Syslog.createInstance("endpointSplitTest",syslogConfig);
+
+        try {
+            syslog.log(SyslogLevel.INFO,StringUtils.repeat('a',500));
+            syslog.log(SyslogLevel.INFO,StringUtils.repeat('b',500));
+
+            awaitLines(6,server1,server2);
+            SyslogUtility.sleep(100);
+
+            assertTrue(server1.lines.size() >= 3);
+            assertEquals(server1.lines.size(),server2.lines.size());
+
+            for(int i=0; i<server1.lines.size(); i++) {
+                assertTrue(StringUtils.removeEnd(server1.lines.get(i),"...").endsWith("a"));
+                assertTrue(StringUtils.removeEnd(server2.lines.get(i),"...").endsWith("b"));
+                assertEquals(i < server1.lines.size() - 1,server1.lines.get(i).endsWith("..."));
+            }
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server1.shutdown();
+            server2.shutdown();
+        }
+    }
+
+    public void testFailoverThreaded() throws IOException {
+        LineCollectingServer server = startServer(7789);
+
+        BackLogCounter counter = new BackLogCounter();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setThreaded(true);
+        syslogConfig.setThreadLoopInterval(10);
+        syslogConfig.setEndpointStrategy(TCPNetSyslogConfigIF.ENDPOINT_STRATEGY_FAILOVER);
+        syslogConfig.setEndpointRetryInterval(60000);
+        syslogConfig.addEndpoint("127.0.0.1:7791");
+        syslogConfig.addEndpoint("127.0.0.1:7789");
+        syslogConfig.addBackLogHandler(counter);
+        syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
+
+        TCPNetSyslog syslog = (TCPNetSyslog) Syslog.createInstance("endpointFailoverThreadedTest",syslogConfig);
+
+        try {
+            for(int i=0; i<10; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            awaitLines(10,server);
+
+            assertEquals(0,counter.count);
+            assertEquals(10,server.lines.size());
+            assertFalse(syslog.getEndpoints()[0].isAvailable(System.currentTimeMillis()));
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server.shutdown();
+        }
+    }
+
+    public void testPooledRejectsEndpoints() {
+        PooledTCPNetSyslogConfig syslogConfig = new PooledTCPNetSyslogConfig();
+        syslogConfig.addEndpoint("127.0.0.1:7789");
+
+        try {
+            Syslog.createInstance("endpointPooledTest",syslogConfig);
+            fail();
+
+        } catch (SyslogRuntimeException sre) {
+            assertFalse(Syslog.exists("endpointPooledTest"));
+        }
+    }
+
+    public void testLeastQueuedThreaded() throws IOException {
+        LineCollectingServer server1 = startServer(7786);
+        LineCollectingServer server2 = startServer(7787);
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setThreaded(true);
+        syslogConfig.setThreadLoopInterval(10);
+        syslogConfig.setEndpointStrategy(TCPNetSyslogConfigIF.ENDPOINT_STRATEGY_LEAST_QUEUED);
+        syslogConfig.addEndpoint("127.0.0.1:7786");
+        syslogConfig.addEndpoint("127.0.0.1:7787");
+
+        SyslogIF syslog = Syslog.createInstance("endpointLeastQueuedTest",syslogConfig);
+
+        try {
+            for(int i=0; i<100; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            awaitLines(100,server1,server2);
+
+            assertEquals(100,server1.lines.size() + server2.lines.size());
+            assertTrue(server1.lines.size() > 0);
+            assertTrue(server2.lines.size() > 0);
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server1.shutdown();
+            server2.shutdown();
+        }
+    }
+}
@@ -119,10 +119,21 @@ public class MaxQueueSizeTest extends TestCase {
     }
 
     public void testMaxQueueSize() {
+        sendAndCount(7777,false,false);
+    }
+
+    public void testMaxQueueSizeRingBuffer() {
+        sendAndCount(7778,true,false);
+    }
+
+    public void testMaxQueueSizePriorityQueue() {
+        sendAndCount(7779,true,true);
+    }
+
+    protected void sendAndCount(int port, boolean useRingBufferQueue, boolean usePriorityQueue) {
         int catchCount = 5;
         int maxQueueSize = 5;
         int messagesToSend = 15;
-        int port = 7777;
 
         FakeSyslogServer server = new FakeSyslogServer(port,catchCount);
         Thread thread = new Thread(server);
@@ -134,10 +145,12 @@ public class MaxQueueSizeTest extends TestCase {
         syslogConfig.setPort(port);
         assertEquals(syslogConfig.getMaxQueueSize(),SyslogConstants.MAX_QUEUE_SIZE_DEFAULT);
         syslogConfig.setMaxQueueSize(maxQueueSize);
+        syslogConfig.setUseRingBufferQueue(useRingBufferQueue);
+        syslogConfig.setUsePriorityQueue(usePriorityQueue);
         syslogConfig.addBackLogHandler(counter);
         syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
 
-        SyslogIF syslog = Syslog.createInstance("maxQueueSizeTest",syslogConfig);
+        SyslogIF syslog = Syslog.createInstance("maxQueueSizeTest_" + port,syslogConfig);
 
         for(int i=1; i<=messagesToSend; i++) {
             syslog.log(SyslogLevel.INFO,"test line " + i);
@@ -0,0 +1,94 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.AbstractNetSyslog4jTest;
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.impl.net.udp.UDPNetSyslogConfig;
+import com.nesscomputing.syslog4j.server.SyslogServer;
+import com.nesscomputing.syslog4j.server.impl.net.udp.UDPNetSyslogServerConfig;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class PackedUDPNetSyslog4jTest extends AbstractNetSyslog4jTest {
+    public static final String instanceName = "udp-packed";
+
+    public void setUp() {
+        if (!Syslog.exists(instanceName)) {
+            UDPNetSyslogConfig config = new UDPNetSyslogConfig();
+            config.setMaxPacketSize(1400);
+            config.setThreadWakeUp(true);
+            config.setThreadLingerTime(20);
+
+            Syslog.createInstance(instanceName,config);
+        }
+
+        if (!SyslogServer.exists(instanceName)) {
+            UDPNetSyslogServerConfig serverConfig = new UDPNetSyslogServerConfig();
+            serverConfig.setSplitPackedMessages(true);
+            serverConfig.setMaxPacketSize(1400);
+
+            SyslogServer.createInstance(instanceName,serverConfig);
+        }
+
+        super.setUp();
+    }
+
+    protected int getMessageCount() {
+        return 100;
+    }
+
+    protected String getClientProtocol() {
+        return instanceName;
+    }
+
+    protected String getServerProtocol() {
+        return instanceName;
+    }
+
+    public void testSendReceive() {
+        super._testSendReceive(true,true);
+    }
+
+    public void testPCIMessages() {
+        super._testSendReceivePCIMessages(true,true);
+    }
+
+    public void testMultiLineMessages() {
+        List<String> events = Lists.newArrayList();
+
+        SyslogIF syslog = getSyslog(getClientProtocol());
+
+        for(int i=0; i<getMessageCount(); i++) {
+            String message = "[TEST] " + i + " / " + System.currentTimeMillis();
+
+            if (i % 3 == 0) {
+                message += "\n\tat Frame.line(Frame.java:" + i + ")\n\tat Frame.main(Frame.java:1)";
+            }
+
+            syslog.info(message);
+            events.add(message);
+        }
+
+        SyslogUtility.sleep(200);
+
+        syslog.flush();
+
+        verifySendReceive(events,true,true);
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import junit.framework.TestCase;
+
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.backlog.NullSyslogBackLogHandler;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslog;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogReconnectScheduler;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogWriter;
+import com.nesscomputing.syslog4j.test.net.MaxQueueSizeTest.BackLogCounter;
+import com.nesscomputing.syslog4j.test.net.SpillTCPNetSyslogTest.LineCollectingServer;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class ReconnectTCPNetSyslogTest extends TestCase {
+    public void testBackoff() {
+        TCPNetSyslogReconnectScheduler scheduler = new TCPNetSyslogReconnectScheduler(100,400,-1);
+
+        assertTrue(scheduler.isConnectDue());
+
+        long[] maxBackoffs = { 100, 200, 400, 400, 400 };
+
+        for(int i=0; i<maxBackoffs.length; i++) {
+            long delay = scheduler.connectFailed();
+
+            assertTrue(delay >= maxBackoffs[i] / 2);
+            assertTrue(delay <= maxBackoffs[i]);
+            assertFalse(scheduler.isConnectDue());
+        }
+
+        assertEquals(maxBackoffs.length,scheduler.getFailures());
+
+        scheduler.connected();
+
+        assertTrue(scheduler.isConnectDue());
+        assertEquals(0,scheduler.getFailures());
+        assertFalse(scheduler.isConnectionStale());
+    }
+
+    public void testBackoffDisabled() {
+        TCPNetSyslogReconnectScheduler scheduler = new TCPNetSyslogReconnectScheduler(0,400,50);
+
+        assertEquals(0,scheduler.connectFailed());
+        assertTrue(scheduler.isConnectDue());
+
+        scheduler.connected();
+        assertFalse(scheduler.isConnectionStale());
+
+        SyslogUtility.sleep(100);
+        assertTrue(scheduler.isConnectionStale());
+    }
+
+    public void testCancel() {
+        TCPNetSyslogReconnectScheduler scheduler = new TCPNetSyslogReconnectScheduler(1000,1000,-1);
+
+        scheduler.connectFailed();
+        scheduler.scheduleReconnect(new Callable<Object>() {
+            public Object call() throws IOException {
+                throw new IOException("down");
+            }
+        });
+
+        assertTrue(scheduler.isReconnectPending());
+        assertTrue(TCPNetSyslogReconnectScheduler.isTimerRunning());
+
+        scheduler.cancel();
+
+        assertFalse(scheduler.isReconnectPending());
+        assertFalse(TCPNetSyslogReconnectScheduler.isTimerRunning());
+
+        // a successful connect allows reconnects again
+        scheduler.connected();
+        scheduler.connectFailed();
+        scheduler.scheduleReconnect(new Callable<Object>() {
+            public Object call() {
+                return null;
+            }
+        });
+
+        assertTrue(scheduler.isReconnectPending());
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while(scheduler.isReconnectPending() && System.currentTimeMillis() < deadline) {
+            SyslogUtility.sleep(20);
+        }
+
+        assertEquals(0,scheduler.getFailures());
+        assertFalse(TCPNetSyslogReconnectScheduler.isTimerRunning());
+    }
+
+    public void testThreadedBacklogsWhileDown() {
+        int messagesToSend = 20;
+
+        BackLogCounter counter = new BackLogCounter();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(7786);
+        syslogConfig.setThreadLoopInterval(50);
+        syslogConfig.setReconnectInitialBackoff(2000);
+        syslogConfig.setReconnectMaxBackoff(2000);
+        syslogConfig.addBackLogHandler(counter);
+        syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
+
+        TCPNetSyslog syslog = (TCPNetSyslog) Syslog.createInstance("reconnectThreadedTest",syslogConfig);
+
+        try {
+            for(int i=1; i<=messagesToSend; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            //  the messages drained with the first failed connect do not each
+            //  wait out the backoff
+            long deadline = System.currentTimeMillis() + 1000;
+
+            while(counter.count < messagesToSend && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(20);
+            }
+
+            assertEquals(messagesToSend,counter.count);
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+        }
+    }
+
+    public void testReconnectOnTimer() throws IOException {
+        int port = 7785;
+        int messagesToSend = 100;
+
+        BackLogCounter counter = new BackLogCounter();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(port);
+        syslogConfig.setThreaded(false);
+        syslogConfig.setConnectTimeout(1000);
+        syslogConfig.setReconnectInitialBackoff(50);
+        syslogConfig.setReconnectMaxBackoff(200);
+        syslogConfig.addBackLogHandler(counter);
+        syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
+
+        TCPNetSyslog syslog = (TCPNetSyslog) Syslog.createInstance("reconnectTest",syslogConfig);
+
+        LineCollectingServer server = new LineCollectingServer(port);
+
+        try {
+            syslog.log(SyslogLevel.INFO,"test line 0");
+
+            TCPNetSyslogReconnectScheduler scheduler = ((TCPNetSyslogWriter) syslog.getWriter()).getReconnectScheduler();
+
+            assertEquals(1,counter.count);
+            assertTrue(scheduler.getFailures() > 0);
+
+            //  while the reconnect is pending, messages fail fast instead of connecting
+            for(int i=1; i<=messagesToSend; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            assertEquals(messagesToSend + 1,counter.count);
+
+            new Thread(server).start();
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while(scheduler.getFailures() > 0 && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(20);
+            }
+
+            assertEquals(0,scheduler.getFailures());
+            assertFalse(scheduler.isReconnectPending());
+
+            syslog.log(SyslogLevel.INFO,"test line " + (messagesToSend + 1));
+
+            deadline = System.currentTimeMillis() + 5000;
+
+            while(server.lines.isEmpty() && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(20);
+            }
+
+            assertEquals(1,server.lines.size());
+            assertTrue(server.lines.get(0).endsWith("test line " + (messagesToSend + 1)));
+            assertEquals(messagesToSend + 1,counter.count);
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+            server.shutdown();
+        }
+    }
+}
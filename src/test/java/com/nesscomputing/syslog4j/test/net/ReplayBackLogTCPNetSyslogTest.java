@@ -0,0 +1,205 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.backlog.ReplayingSyslogBackLogHandler;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.test.net.SpillTCPNetSyslogTest.LineCollectingServer;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class ReplayBackLogTCPNetSyslogTest extends TestCase {
+    public static class RecordingReplayingSyslogBackLogHandler extends ReplayingSyslogBackLogHandler {
+        public final List<String> replayed = Collections.synchronizedList(Lists.<String>newArrayList());
+
+        protected boolean backLogOnEnd = true;
+
+        public RecordingReplayingSyslogBackLogHandler() {
+            super(64 * 1024,false,0);
+        }
+
+        protected synchronized boolean endReplay(boolean failed) {
+            if (this.backLogOnEnd) {
+                // backlogged after the replay thread found the buffer empty
+                this.backLogOnEnd = false;
+                log(null,SyslogLevel.INFO,"late line",null);
+            }
+
+            return super.endReplay(failed);
+        }
+
+        protected void replay(SyslogIF syslog, SyslogLevel level, String message, boolean packet) {
+            this.replayed.add(message);
+        }
+    }
+
+    public void testReplayThreaded() {
+        sendAndReplay(7782,true);
+    }
+
+    public void testReplayNonThreaded() {
+        sendAndReplay(7783,false);
+    }
+
+    public void testReplayMessageStartingWithPri() {
+        int port = 7784;
+
+        ReplayingSyslogBackLogHandler handler = new ReplayingSyslogBackLogHandler(64 * 1024,false,0);
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(port);
+        syslogConfig.setThreaded(false);
+        syslogConfig.addBackLogHandler(handler);
+
+        SyslogIF syslog = Syslog.createInstance("replayPriTest",syslogConfig);
+
+        try {
+            // backlogged before the header was added, so not a packet
+            syslog.log(SyslogLevel.INFO,"<13>test line");
+
+            assertEquals(1,handler.getBufferedCount());
+
+            LineCollectingServer server = new LineCollectingServer(port);
+            new Thread(server).start();
+
+            SyslogUtility.sleep(200);
+
+            syslog.log(SyslogLevel.INFO,"test line 2");
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while(server.lines.size() < 2 && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(50);
+            }
+
+            assertEquals(2,server.lines.size());
+
+            boolean replayed = false;
+
+            for(String line : server.lines) {
+                if (line.endsWith("<13>test line")) {
+                    assertTrue(line,line.indexOf("<13>test line") > 0);
+                    replayed = true;
+                }
+            }
+
+            assertTrue(replayed);
+
+            assertEquals(1,handler.getReplayedCount());
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+        }
+    }
+
+    public void testReplayMessageBufferedWhileReplayEnds() {
+        RecordingReplayingSyslogBackLogHandler handler = new RecordingReplayingSyslogBackLogHandler();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(7785);
+        syslogConfig.setThreaded(false);
+
+        SyslogIF syslog = Syslog.createInstance("replayEndTest",syslogConfig);
+
+        try {
+            handler.log(syslog,SyslogLevel.INFO,"test line",null);
+            handler.up(syslog);
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while(handler.replayed.size() < 2 && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(50);
+            }
+
+            assertEquals(Lists.newArrayList("test line","late line"),handler.replayed);
+            assertEquals(0,handler.getBufferedCount());
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+        }
+    }
+
+    protected void sendAndReplay(int port, boolean threaded) {
+        int messagesToSend = 20;
+
+        ReplayingSyslogBackLogHandler handler = new ReplayingSyslogBackLogHandler(64 * 1024,threaded,100);
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(port);
+        syslogConfig.setThreaded(threaded);
+        syslogConfig.setThreadLoopInterval(50);
+        syslogConfig.addBackLogHandler(handler);
+
+        SyslogIF syslog = Syslog.createInstance("replayTest_" + port,syslogConfig);
+
+        try {
+            for(int i=1; i<=messagesToSend; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            SyslogUtility.sleep(500);
+
+            assertEquals(messagesToSend,handler.getBufferedCount());
+
+            LineCollectingServer server = new LineCollectingServer(port);
+            new Thread(server).start();
+
+            SyslogUtility.sleep(200);
+
+            syslog.log(SyslogLevel.INFO,"test line " + (messagesToSend + 1));
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while(server.lines.size() < messagesToSend + 1 && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(50);
+            }
+
+            assertEquals(0,handler.getBufferedCount());
+            assertEquals(messagesToSend,handler.getReplayedCount());
+            assertEquals(0,handler.getDroppedCount());
+
+            List<String> received = Lists.newArrayList();
+
+            for(String line : server.lines) {
+                // replayed packets are sent as they were, with a single header
+                assertEquals(line,line.indexOf('<'),line.lastIndexOf('<'));
+
+                received.add(line.substring(line.indexOf("test line ")));
+            }
+
+            List<String> expected = Lists.newArrayList();
+
+            for(int i=1; i<=messagesToSend + 1; i++) {
+                expected.add("test line " + i);
+            }
+
+            Collections.sort(received);
+            Collections.sort(expected);
+
+            assertEquals(expected,received);
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+        }
+    }
+}
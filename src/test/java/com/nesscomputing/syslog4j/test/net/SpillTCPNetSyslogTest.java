@@ -0,0 +1,187 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.AbstractSyslog;
+import com.nesscomputing.syslog4j.impl.backlog.NullSyslogBackLogHandler;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogWriter;
+import com.nesscomputing.syslog4j.impl.queue.MappedSyslogSpillStore;
+import com.nesscomputing.syslog4j.impl.queue.SpillingSyslogQueue;
+import com.nesscomputing.syslog4j.test.net.MaxQueueSizeTest.BackLogCounter;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class SpillTCPNetSyslogTest extends TestCase {
+    public static class LineCollectingServer implements Runnable {
+        public final int port;
+
+        public final List<String> lines = Lists.newCopyOnWriteArrayList();
+
+        public LineCollectingServer(int port) {
+            this.port = port;
+        }
+
+        protected ServerSocket serverSocket = null;
+
+        public void run() {
+            try {
+                this.serverSocket = new ServerSocket(this.port);
+
+                while(!this.serverSocket.isClosed()) {
+                    Socket socket = this.serverSocket.accept();
+
+                    BufferedReader br = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+                    String line = br.readLine();
+                    while(line != null) {
+                        this.lines.add(line);
+                        line = br.readLine();
+                    }
+
+                    socket.close();
+                }
+
+            } catch (IOException ioe) {
+                if (this.serverSocket == null || !this.serverSocket.isClosed()) {
+                    throw new RuntimeException(ioe);
+                }
+            }
+        }
+
+        public void shutdown() throws IOException {
+            if (this.serverSocket != null) {
+                this.serverSocket.close();
+            }
+        }
+    }
+
+    protected static void delete(File file) {
+        File[] files = file.listFiles();
+
+        if (files != null) {
+            for(File child : files) {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    public void testSpillUntilServerAvailable() throws IOException {
+        int port = 7781;
+        int messagesToSend = 50;
+
+        File directory = File.createTempFile("syslog4j-spill",".test");
+        directory.delete();
+
+        BackLogCounter counter = new BackLogCounter();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(port);
+        syslogConfig.setMaxQueueSize(5);
+        syslogConfig.setThreadLoopInterval(50);
+        syslogConfig.setSpillDirectory(directory.getAbsolutePath());
+        syslogConfig.setSpillSegmentSize(1024);
+        syslogConfig.addBackLogHandler(counter);
+        syslogConfig.addBackLogHandler(NullSyslogBackLogHandler.INSTANCE);
+
+        SyslogIF syslog = Syslog.createInstance("spillTest",syslogConfig);
+
+        try {
+            for(int i=1; i<=messagesToSend; i++) {
+                syslog.log(SyslogLevel.INFO,"test line " + i);
+            }
+
+            SyslogUtility.sleep(200);
+
+            LineCollectingServer server = new LineCollectingServer(port);
+            new Thread(server).start();
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while(server.lines.size() < messagesToSend && System.currentTimeMillis() < deadline) {
+                SyslogUtility.sleep(50);
+            }
+
+            assertEquals(0,counter.count);
+            assertEquals(messagesToSend,server.lines.size());
+
+            for(int i=0; i<messagesToSend; i++) {
+                assertTrue(server.lines.get(i),server.lines.get(i).endsWith("test line " + (i + 1)));
+            }
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+
+            delete(directory);
+        }
+    }
+
+    public void testWritersSharingConfig() throws IOException {
+        File directory = File.createTempFile("syslog4j-spill",".test");
+        directory.delete();
+
+        TCPNetSyslogConfig syslogConfig = new TCPNetSyslogConfig();
+        syslogConfig.setPort(7782);
+        syslogConfig.setSpillDirectory(directory.getAbsolutePath());
+        syslogConfig.setSpillSegmentSize(1024);
+
+        SyslogIF syslog = Syslog.createInstance("spillSharingTest",syslogConfig);
+
+        try {
+            TCPNetSyslogWriter writer1 = new TCPNetSyslogWriter();
+            writer1.initialize((AbstractSyslog) syslog);
+
+            TCPNetSyslogWriter writer2 = new TCPNetSyslogWriter();
+            writer2.initialize((AbstractSyslog) syslog);
+
+            MappedSyslogSpillStore store1 = ((SpillingSyslogQueue) writer1.getQueue()).getStore();
+            MappedSyslogSpillStore store2 = ((SpillingSyslogQueue) writer2.getQueue()).getStore();
+
+            assertFalse(store1.getDirectory().equals(store2.getDirectory()));
+
+            try {
+                new MappedSyslogSpillStore(store1.getDirectory(),1024,1);
+                fail("spill directory is in use");
+
+            } catch (SyslogRuntimeException sre) {
+                //
+            }
+
+            store1.close();
+            store2.close();
+
+        } finally {
+            Syslog.destroyInstance(syslog);
+
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.net;
+
+import java.net.SocketAddress;
+
+import junit.framework.TestCase;
+
+import com.nesscomputing.syslog4j.Syslog;
+import com.nesscomputing.syslog4j.SyslogIF;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogConfigIF;
+import com.nesscomputing.syslog4j.server.SyslogServer;
+import com.nesscomputing.syslog4j.server.SyslogServerEventIF;
+import com.nesscomputing.syslog4j.server.SyslogServerIF;
+import com.nesscomputing.syslog4j.server.SyslogServerSessionlessEventHandlerIF;
+import com.nesscomputing.syslog4j.server.impl.net.tcp.TCPNetSyslogServerConfig;
+import com.nesscomputing.syslog4j.server.impl.net.tcp.TCPNetSyslogServerConfigIF;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class ThreadWakeUpTest extends TestCase {
+    public class Counter implements SyslogServerSessionlessEventHandlerIF {
+        public volatile int counter = 0;
+
+        public void initialize(SyslogServerIF syslogServer) {
+            //
+        }
+
+        public void event(SyslogServerIF syslogServer, SocketAddress socketAddress, SyslogServerEventIF event) {
+            counter++;
+        }
+
+        public void exception(SyslogServerIF syslogServer, SocketAddress socketAddress, Exception exception) {
+            //
+        }
+
+        public void destroy(SyslogServerIF syslogServer) {
+            //
+        }
+    }
+
+    public void testThreadWakeUp() {
+        Counter c = new Counter();
+
+        TCPNetSyslogServerConfigIF serverConfig = new TCPNetSyslogServerConfig(38889);
+        serverConfig.addEventHandler(c);
+
+        SyslogServer.createThreadedInstance("tcp_wakeup",serverConfig);
+        SyslogUtility.sleep(100);
+
+        TCPNetSyslogConfigIF config = new TCPNetSyslogConfig();
+        config.setPort(38889);
+        config.setThreadLoopInterval(10000);
+        config.setThreadWakeUp(true);
+        config.setThreadLingerTime(1);
+
+        SyslogIF syslog = Syslog.createInstance("tcp_wakeup",config);
+
+        // prime the connection, then wait for the writer thread to go idle
+        syslog.info("prime");
+        SyslogUtility.sleep(500);
+
+        for(int i=0; i<5; i++) {
+            syslog.info("test" + i);
+        }
+
+        // well within the 10 second loop interval
+        SyslogUtility.sleep(500);
+
+        int count = c.counter;
+
+        Syslog.destroyInstance("tcp_wakeup");
+        SyslogServer.destroyInstance("tcp_wakeup");
+
+        assertEquals(6,count);
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.pool;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.net.tcp.TCPNetSyslogWriter;
+import com.nesscomputing.syslog4j.impl.net.tcp.pool.PooledTCPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.pool.leasing.LeasingSyslogWriterPool;
+import com.nesscomputing.syslog4j.util.SyslogUtility;
+
+public class LeasingSyslogWriterPoolTest extends TestCase {
+    protected static class CountingFactory extends BasePoolableObjectFactory<AbstractSyslogWriter> {
+        public final AtomicInteger created = new AtomicInteger(0);
+        public final AtomicInteger destroyed = new AtomicInteger(0);
+
+        public AbstractSyslogWriter makeObject() throws Exception {
+            this.created.incrementAndGet();
+
+            return new TCPNetSyslogWriter();
+        }
+
+        public void destroyObject(AbstractSyslogWriter writer) throws Exception {
+            this.destroyed.incrementAndGet();
+        }
+    }
+
+    public void testThreadAffinity() throws Exception {
+        CountingFactory factory = new CountingFactory();
+
+        LeasingSyslogWriterPool pool = new LeasingSyslogWriterPool(factory,new PooledTCPNetSyslogConfig());
+
+        AbstractSyslogWriter first = pool.borrowObject();
+        AbstractSyslogWriter second = pool.borrowObject();
+
+        assertNotSame(first,second);
+        assertEquals(2,pool.getNumActive());
+
+        pool.returnObject(second);
+        pool.returnObject(first);
+
+        assertEquals(0,pool.getNumActive());
+        assertEquals(2,pool.getNumIdle());
+
+        for(int i=0; i<10; i++) {
+            AbstractSyslogWriter writer = pool.borrowObject();
+            assertSame(first,writer);
+            pool.returnObject(writer);
+        }
+
+        assertEquals(2,factory.created.get());
+
+        pool.close();
+
+        assertEquals(2,factory.destroyed.get());
+        assertEquals(0,pool.getNumIdle());
+    }
+
+    public void testExhaustedFail() throws Exception {
+        PooledTCPNetSyslogConfig config = new PooledTCPNetSyslogConfig();
+        config.setThreaded(false);
+        config.setMaxActive(1);
+        config.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_FAIL);
+
+        LeasingSyslogWriterPool pool = new LeasingSyslogWriterPool(new CountingFactory(),config);
+
+        AbstractSyslogWriter writer = pool.borrowObject();
+
+        try {
+            pool.borrowObject();
+            fail();
+
+        } catch (NoSuchElementException nsee) {
+            //
+        }
+
+        pool.returnObject(writer);
+
+        assertSame(writer,pool.borrowObject());
+    }
+
+    public void testExhaustedBlock() throws Exception {
+        PooledTCPNetSyslogConfig config = new PooledTCPNetSyslogConfig();
+        config.setThreaded(false);
+        config.setMaxActive(1);
+        config.setMaxWait(100);
+        config.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+
+        final LeasingSyslogWriterPool pool = new LeasingSyslogWriterPool(new CountingFactory(),config);
+
+        final AbstractSyslogWriter writer = pool.borrowObject();
+
+        long start = System.currentTimeMillis();
+
+        try {
+            pool.borrowObject();
+            fail();
+
+        } catch (NoSuchElementException nsee) {
+            assertTrue(System.currentTimeMillis() - start >= 100);
+        }
+
+        config.setMaxWait(5000);
+
+        new Thread() {
+            public void run() {
+                SyslogUtility.sleep(50);
+
+                try {
+                    pool.returnObject(writer);
+
+                } catch (Exception e) {
+                    //
+                }
+            }
+        }.start();
+
+        assertSame(writer,pool.borrowObject());
+    }
+
+    public void testMaxIdle() throws Exception {
+        CountingFactory factory = new CountingFactory();
+
+        PooledTCPNetSyslogConfig config = new PooledTCPNetSyslogConfig();
+        config.setThreaded(false);
+        config.setMaxActive(4);
+        config.setMaxIdle(1);
+
+        LeasingSyslogWriterPool pool = new LeasingSyslogWriterPool(factory,config);
+
+        AbstractSyslogWriter first = pool.borrowObject();
+        AbstractSyslogWriter second = pool.borrowObject();
+
+        pool.returnObject(first);
+        pool.returnObject(second);
+
+        assertEquals(1,pool.getNumIdle());
+        assertEquals(1,factory.destroyed.get());
+    }
+
+    public void testEviction() throws Exception {
+        CountingFactory factory = new CountingFactory();
+
+        PooledTCPNetSyslogConfig config = new PooledTCPNetSyslogConfig();
+        config.setThreaded(false);
+        config.setMinIdle(0);
+        config.setMinEvictableIdleTimeMillis(50);
+        config.setTimeBetweenEvictionRunsMillis(20);
+
+        LeasingSyslogWriterPool pool = new LeasingSyslogWriterPool(factory,config);
+
+        AbstractSyslogWriter writer = pool.borrowObject();
+        pool.returnObject(writer);
+
+        assertEquals(1,pool.getNumIdle());
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while(pool.getNumIdle() > 0 && System.currentTimeMillis() < deadline) {
+            SyslogUtility.sleep(20);
+        }
+
+        assertEquals(0,pool.getNumIdle());
+        assertEquals(1,factory.destroyed.get());
+
+        assertNotSame(writer,pool.borrowObject());
+
+        pool.close();
+    }
+}
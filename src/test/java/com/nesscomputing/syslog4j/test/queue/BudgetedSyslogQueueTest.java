@@ -0,0 +1,84 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.queue;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.net.udp.UDPNetSyslog;
+import com.nesscomputing.syslog4j.impl.net.udp.UDPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.queue.BudgetedSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.LinkedListSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.RingBufferSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueByteBudget;
+
+public class BudgetedSyslogQueueTest extends TestCase {
+    public void testSharedBudget() {
+        SyslogQueueByteBudget budget = new SyslogQueueByteBudget(100);
+
+        BudgetedSyslogQueue queue1 = new BudgetedSyslogQueue(new LinkedListSyslogQueue(-1),budget);
+        BudgetedSyslogQueue queue2 = new BudgetedSyslogQueue(new RingBufferSyslogQueue(10),budget);
+
+        assertTrue(queue1.offer(SyslogLevel.INFO,new byte[60]));
+        assertFalse(queue2.offer(SyslogLevel.INFO,new byte[50]));
+        assertTrue(queue2.offer(SyslogLevel.INFO,new byte[40]));
+        assertFalse(queue1.offer(SyslogLevel.INFO,new byte[1]));
+
+        assertEquals(100,budget.getUsedBytes());
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(1,queue1.drainTo(messages,Integer.MAX_VALUE));
+        assertEquals(40,budget.getUsedBytes());
+
+        assertEquals(40,queue2.evict(SyslogLevel.INFO,null).length);
+        assertEquals(0,budget.getUsedBytes());
+
+        assertNull(queue2.poll());
+        assertEquals(0,budget.getUsedBytes());
+    }
+
+    public void testCapacityRefusalReleasesBytes() {
+        SyslogQueueByteBudget budget = new SyslogQueueByteBudget(-1);
+
+        BudgetedSyslogQueue queue = new BudgetedSyslogQueue(new RingBufferSyslogQueue(1),budget);
+
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[10]));
+        assertFalse(queue.offer(SyslogLevel.INFO,new byte[10]));
+
+        assertEquals(10,budget.getUsedBytes());
+    }
+
+    public void testSyslogBudget() {
+        UDPNetSyslogConfig config = new UDPNetSyslogConfig();
+        assertNull(new UDPNetSyslog().getQueueByteBudget());
+
+        config.setMaxQueueBytes(1000);
+
+        UDPNetSyslog syslog = new UDPNetSyslog();
+        syslog.initialize("udp",config);
+
+        assertEquals(1000,syslog.getQueueByteBudget().getMaxBytes());
+
+        config.setQueueByteBudget(SyslogQueueByteBudget.getGlobalInstance());
+
+        syslog = new UDPNetSyslog();
+        syslog.initialize("udp",config);
+
+        assertSame(SyslogQueueByteBudget.getGlobalInstance(),syslog.getQueueByteBudget());
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.SyslogRuntimeException;
+import com.nesscomputing.syslog4j.impl.queue.LinkedListSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.MappedSyslogSpillStore;
+import com.nesscomputing.syslog4j.impl.queue.SpillingSyslogQueue;
+
+public class MappedSyslogSpillStoreTest extends TestCase {
+    protected File directory = null;
+
+    public void setUp() throws IOException {
+        this.directory = File.createTempFile("syslog4j-spill",".test");
+        this.directory.delete();
+    }
+
+    public void tearDown() {
+        File[] files = this.directory.listFiles();
+
+        if (files != null) {
+            for(File file : files) {
+                file.delete();
+            }
+        }
+
+        this.directory.delete();
+    }
+
+    protected byte[] message(int i) {
+        return ("message " + i).getBytes();
+    }
+
+    public void testAppendAndRead() {
+        MappedSyslogSpillStore store = new MappedSyslogSpillStore(this.directory,64,3);
+
+        assertTrue(store.isEmpty());
+
+        // each 9-byte record takes 13 bytes; 3 fit in a 64-byte segment
+        for(int i=0; i<9; i++) {
+            assertTrue(store.append(message(i)));
+        }
+
+        assertFalse(store.append(message(9)));
+        assertFalse(store.append(new byte[64]));
+
+        assertEquals(9,store.size());
+
+        for(int i=0; i<4; i++) {
+            assertEquals("message " + i,new String(store.read()));
+        }
+
+        // the first segment has been read and is recycled; the other file is the lock
+        assertTrue(store.append(message(9)));
+        assertEquals(4,this.directory.listFiles().length);
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(6,store.drainTo(messages,Integer.MAX_VALUE));
+
+        for(int i=0; i<messages.size(); i++) {
+            assertEquals("message " + (i + 4),new String(messages.get(i)));
+        }
+
+        assertNull(store.read());
+        assertTrue(store.isEmpty());
+    }
+
+    public void testReopen() {
+        MappedSyslogSpillStore store = new MappedSyslogSpillStore(this.directory,64,3);
+
+        for(int i=0; i<9; i++) {
+            store.append(message(i));
+        }
+
+        for(int i=0; i<4; i++) {
+            store.read();
+        }
+
+        store.append(message(9));
+        store.force();
+        store.close();
+
+        store = new MappedSyslogSpillStore(this.directory,64,3);
+
+        assertEquals(6,store.size());
+
+        for(int i=4; i<10; i++) {
+            assertEquals("message " + i,new String(store.read()));
+        }
+
+        assertTrue(store.isEmpty());
+    }
+
+    public void testInUse() {
+        MappedSyslogSpillStore store = new MappedSyslogSpillStore(this.directory,64,3);
+
+        try {
+            new MappedSyslogSpillStore(this.directory,64,3);
+            fail("directory is in use");
+
+        } catch (SyslogRuntimeException sre) {
+            //
+        }
+
+        assertNull(MappedSyslogSpillStore.openIfUnused(this.directory,64,3));
+
+        store.close();
+
+        store = MappedSyslogSpillStore.openIfUnused(this.directory,64,3);
+        assertNotNull(store);
+
+        store.close();
+    }
+
+    public void testSpillingQueueOrder() {
+        MappedSyslogSpillStore store = new MappedSyslogSpillStore(this.directory,1024,2);
+        SpillingSyslogQueue queue = new SpillingSyslogQueue(new LinkedListSyslogQueue(2),store,2);
+
+        for(int i=0; i<6; i++) {
+            assertTrue(queue.offer(SyslogLevel.INFO,message(i)));
+        }
+
+        assertEquals(4,store.size());
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(2,queue.drainTo(messages,2));
+
+        // the store holds messages, so new messages are spilled behind them
+        assertTrue(queue.offer(SyslogLevel.INFO,message(6)));
+        assertEquals(5,store.size());
+
+        queue.retry(messages);
+        messages.clear();
+
+        while(queue.drainTo(messages,Integer.MAX_VALUE) > 0) {
+            //
+        }
+
+        assertEquals(7,messages.size());
+
+        for(int i=0; i<messages.size(); i++) {
+            assertEquals("message " + i,new String(messages.get(i)));
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+}
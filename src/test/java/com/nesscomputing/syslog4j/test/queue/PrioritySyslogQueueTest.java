@@ -0,0 +1,220 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.queue;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogConstants;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.net.udp.UDPNetSyslogConfig;
+import com.nesscomputing.syslog4j.impl.queue.LinkedListSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.PrioritySyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueIF;
+import com.nesscomputing.syslog4j.impl.queue.overflow.DropNewestSyslogQueueOverflowPolicy;
+
+public class PrioritySyslogQueueTest extends TestCase {
+    public static class LaneSyslogWriter extends AbstractSyslogWriter {
+        public List<List<byte[]>> batches = Lists.newArrayList();
+
+        public LaneSyslogWriter() {
+            this(new UDPNetSyslogConfig());
+        }
+
+        public LaneSyslogWriter(UDPNetSyslogConfig config) {
+            config.setUsePriorityQueue(true);
+            config.setThreadLoopInterval(10);
+
+            this.syslogConfig = config;
+            this.queuedMessages = createQueue();
+            this.queueOverflowPolicy = new DropNewestSyslogQueueOverflowPolicy();
+        }
+
+        protected void writeQueuedMessages(List<byte[]> messages) {
+            if (this.batches.isEmpty()) {
+                // queued while the first batch is written
+                queue(SyslogLevel.EMERGENCY,new byte[] { 0 });
+            }
+
+            this.batches.add(Lists.newArrayList(messages));
+        }
+
+        public void write(byte[] message) {
+            //
+        }
+
+        public void flush() {
+            //
+        }
+
+        public void shutdown() {
+            this.shutdown = true;
+        }
+
+        protected void runCompleted() {
+            //
+        }
+    }
+
+    protected PrioritySyslogQueue createQueue(int laneCapacity, int[] weights) {
+        SyslogQueueIF[] lanes = new SyslogQueueIF[SyslogLevel.values().length];
+
+        for(int i=0; i<lanes.length; i++) {
+            lanes[i] = new LinkedListSyslogQueue(laneCapacity);
+        }
+
+        return new PrioritySyslogQueue(lanes,weights);
+    }
+
+    public void testStrict() {
+        PrioritySyslogQueue queue = createQueue(2,null);
+
+        assertTrue(queue.offer(SyslogLevel.DEBUG,new byte[] { 1 }));
+        assertTrue(queue.offer(SyslogLevel.DEBUG,new byte[] { 2 }));
+        assertFalse(queue.offer(SyslogLevel.DEBUG,new byte[] { 3 }));
+
+        // a full DEBUG lane does not affect other levels
+        assertTrue(queue.offer(SyslogLevel.CRITICAL,new byte[] { 4 }));
+        assertTrue(queue.offer(SyslogLevel.EMERGENCY,new byte[] { 5 }));
+
+        assertEquals(4,queue.size());
+        assertEquals(16,queue.getCapacity());
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(4,queue.drainTo(messages,Integer.MAX_VALUE));
+
+        assertEquals(5,messages.get(0)[0]);
+        assertEquals(4,messages.get(1)[0]);
+        assertEquals(1,messages.get(2)[0]);
+        assertEquals(2,messages.get(3)[0]);
+
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testWeighted() {
+        PrioritySyslogQueue queue = createQueue(-1,new int[] { 2, 1, 1, 1, 1, 1, 1, 1 });
+
+        for(int i=0; i<3; i++) {
+            queue.offer(SyslogLevel.DEBUG,new byte[] { 7 });
+            queue.offer(SyslogLevel.EMERGENCY,new byte[] { 0 });
+        }
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(6,queue.drainTo(messages,Integer.MAX_VALUE));
+
+        byte[] expected = { 0, 0, 7, 0, 7, 7 };
+
+        for(int i=0; i<expected.length; i++) {
+            assertEquals(expected[i],messages.get(i)[0]);
+        }
+
+        assertEquals(-1,queue.getCapacity());
+    }
+
+    public void testWriterSplitsMaxQueueSize() {
+        UDPNetSyslogConfig config = new UDPNetSyslogConfig();
+        config.setMaxQueueSize(20);
+
+        LaneSyslogWriter writer = new LaneSyslogWriter(config);
+
+        assertEquals(20,writer.getQueue().getCapacity());
+
+        // the remainder goes to the more severe lanes
+        for(int i=0; i<3; i++) {
+            assertTrue(writer.getQueue().offer(SyslogLevel.EMERGENCY,new byte[] { 0 }));
+            assertTrue(writer.getQueue().offer(SyslogLevel.ERROR,new byte[] { 3 }));
+        }
+
+        assertFalse(writer.getQueue().offer(SyslogLevel.EMERGENCY,new byte[] { 0 }));
+        assertFalse(writer.getQueue().offer(SyslogLevel.ERROR,new byte[] { 3 }));
+
+        for(int i=0; i<2; i++) {
+            assertTrue(writer.getQueue().offer(SyslogLevel.WARN,new byte[] { 4 }));
+        }
+
+        assertFalse(writer.getQueue().offer(SyslogLevel.WARN,new byte[] { 4 }));
+    }
+
+    public void testWriterLaneCapacitiesAndWeights() {
+        UDPNetSyslogConfig config = new UDPNetSyslogConfig();
+        config.setMaxQueueSize(8);
+        config.setPriorityQueueCapacities(new int[] { 1, 1, 1, 1, 1, 1, 1, -1 });
+        config.setPriorityQueueWeighted(true);
+        config.setPriorityQueueWeights(new int[] { 1, 1, 1, 1, 1, 1, 1, 2 });
+
+        LaneSyslogWriter writer = new LaneSyslogWriter(config);
+
+        assertEquals(-1,writer.getQueue().getCapacity());
+
+        for(int i=0; i<4; i++) {
+            assertTrue(writer.getQueue().offer(SyslogLevel.DEBUG,new byte[] { 7 }));
+        }
+
+        assertTrue(writer.getQueue().offer(SyslogLevel.EMERGENCY,new byte[] { 0 }));
+        assertFalse(writer.getQueue().offer(SyslogLevel.EMERGENCY,new byte[] { 0 }));
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(5,writer.getQueue().drainTo(messages,Integer.MAX_VALUE));
+
+        byte[] expected = { 0, 7, 7, 7, 7 };
+
+        for(int i=0; i<expected.length; i++) {
+            assertEquals(expected[i],messages.get(i)[0]);
+        }
+    }
+
+    public void testWriterBoundsBatches() {
+        LaneSyslogWriter writer = new LaneSyslogWriter();
+
+        int messages = SyslogConstants.PRIORITY_QUEUE_DRAIN_BATCH_SIZE * 2 + 1;
+
+        for(int i=0; i<messages; i++) {
+            writer.queue(SyslogLevel.DEBUG,new byte[] { 7 });
+        }
+
+        writer.shutdown();
+        writer.run();
+
+        assertEquals(SyslogConstants.PRIORITY_QUEUE_DRAIN_BATCH_SIZE,writer.batches.get(0).size());
+
+        // the EMERGENCY message is sent ahead of the rest of the DEBUG lane
+        assertEquals(0,writer.batches.get(1).get(0)[0]);
+
+        int written = 0;
+
+        for(List<byte[]> batch : writer.batches) {
+            written += batch.size();
+        }
+
+        assertEquals(messages + 1,written);
+        assertTrue(writer.getQueue().isEmpty());
+    }
+
+    public void testEvict() {
+        PrioritySyslogQueue queue = createQueue(2,null);
+
+        queue.offer(SyslogLevel.ERROR,new byte[] { 1 });
+        queue.offer(SyslogLevel.INFO,new byte[] { 2 });
+
+        assertEquals(2,queue.evict(SyslogLevel.INFO,null)[0]);
+        assertNull(queue.evict(SyslogLevel.INFO,null));
+
+        assertEquals(1,queue.poll()[0]);
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.queue;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.queue.RingBufferSyslogQueue;
+
+public class RingBufferSyslogQueueTest extends TestCase {
+    public void testCapacity() {
+        RingBufferSyslogQueue queue = new RingBufferSyslogQueue(3);
+
+        assertTrue(queue.isEmpty());
+
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[] { 1 }));
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[] { 2 }));
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[] { 3 }));
+        assertFalse(queue.offer(SyslogLevel.INFO,new byte[] { 4 }));
+
+        assertEquals(3,queue.size());
+
+        assertEquals(1,queue.poll()[0]);
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[] { 5 }));
+
+        List<byte[]> messages = Lists.newArrayList();
+        assertEquals(3,queue.drainTo(messages,Integer.MAX_VALUE));
+
+        assertEquals(2,messages.get(0)[0]);
+        assertEquals(3,messages.get(1)[0]);
+        assertEquals(5,messages.get(2)[0]);
+
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testCapacityOne() {
+        RingBufferSyslogQueue queue = new RingBufferSyslogQueue(1);
+
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[] { 1 }));
+        assertFalse(queue.offer(SyslogLevel.INFO,new byte[] { 2 }));
+        assertEquals(1,queue.size());
+
+        assertEquals(1,queue.poll()[0]);
+        assertNull(queue.poll());
+
+        assertTrue(queue.offer(SyslogLevel.INFO,new byte[] { 3 }));
+        assertFalse(queue.offer(SyslogLevel.INFO,new byte[] { 4 }));
+        assertEquals(3,queue.poll()[0]);
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testConcurrentProducers() throws Exception {
+        final int producers = 8;
+        final int messagesPerProducer = 10000;
+
+        final RingBufferSyslogQueue queue = new RingBufferSyslogQueue(64);
+
+        Thread[] threads = new Thread[producers];
+
+        for(int i=0; i<producers; i++) {
+            final byte producer = (byte) i;
+
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for(int j=0; j<messagesPerProducer; j++) {
+                        byte[] message = new byte[] { producer, (byte) (j & 0x7f) };
+
+                        while(!queue.offer(SyslogLevel.INFO,message)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        int[] lastSeen = new int[producers];
+        int received = 0;
+
+        while(received < producers * messagesPerProducer) {
+            byte[] message = queue.poll();
+
+            if (message == null) {
+                Thread.yield();
+                continue;
+            }
+
+            assertEquals("messages from one producer must stay in order",lastSeen[message[0]] & 0x7f,message[1]);
+            lastSeen[message[0]]++;
+            received++;
+        }
+
+        for(int i=0; i<producers; i++) {
+            threads[i].join();
+            assertEquals(messagesPerProducer,lastSeen[i]);
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+}
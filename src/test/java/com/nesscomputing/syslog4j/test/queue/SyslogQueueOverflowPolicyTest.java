@@ -0,0 +1,229 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.queue;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.Lists;
+import com.nesscomputing.syslog4j.SyslogLevel;
+import com.nesscomputing.syslog4j.impl.AbstractSyslogWriter;
+import com.nesscomputing.syslog4j.impl.queue.LinkedListSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.RingBufferSyslogQueue;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueIF;
+import com.nesscomputing.syslog4j.impl.queue.SyslogQueueOverflowPolicyIF;
+import com.nesscomputing.syslog4j.impl.queue.overflow.BlockingSyslogQueueOverflowPolicy;
+import com.nesscomputing.syslog4j.impl.queue.overflow.DropNewestSyslogQueueOverflowPolicy;
+import com.nesscomputing.syslog4j.impl.queue.overflow.DropOldestSyslogQueueOverflowPolicy;
+import com.nesscomputing.syslog4j.impl.queue.overflow.LevelSyslogQueueOverflowPolicy;
+import com.nesscomputing.syslog4j.impl.queue.overflow.SummarizingSyslogQueueOverflowPolicy;
+
+public class SyslogQueueOverflowPolicyTest extends TestCase {
+    public static class QueueingSyslogWriter extends AbstractSyslogWriter {
+        public QueueingSyslogWriter(int capacity, SyslogQueueOverflowPolicyIF policy) {
+            this(new RingBufferSyslogQueue(capacity),policy);
+        }
+
+        public QueueingSyslogWriter(SyslogQueueIF queue, SyslogQueueOverflowPolicyIF policy) {
+            this.queuedMessages = queue;
+            this.queueOverflowPolicy = policy;
+        }
+
+        public void write(byte[] message) {
+            //
+        }
+
+        public void flush() {
+            //
+        }
+
+        public void shutdown() {
+            //
+        }
+
+        protected void runCompleted() {
+            //
+        }
+    }
+
+    public static class RecordingSummarizingSyslogQueueOverflowPolicy extends SummarizingSyslogQueueOverflowPolicy {
+        public final List<String> summaries = Lists.newArrayList();
+
+        protected void summarize(AbstractSyslogWriter syslogWriter, long count) {
+            this.summaries.add(createSummary(syslogWriter,count));
+        }
+    }
+
+    protected List<byte[]> queue(QueueingSyslogWriter writer, SyslogLevel level, int messages) {
+        for(int i=1; i<=messages; i++) {
+            writer.queue(level,new byte[] { (byte) i });
+        }
+
+        List<byte[]> queued = Lists.newArrayList();
+        writer.getQueue().drainTo(queued,Integer.MAX_VALUE);
+
+        return queued;
+    }
+
+    public void testDropNewest() {
+        DropNewestSyslogQueueOverflowPolicy policy = new DropNewestSyslogQueueOverflowPolicy();
+
+        List<byte[]> queued = queue(new QueueingSyslogWriter(3,policy),SyslogLevel.INFO,5);
+
+        assertEquals(3,queued.size());
+        assertEquals(1,queued.get(0)[0]);
+        assertEquals(3,queued.get(2)[0]);
+
+        assertEquals(2,policy.getOverflowCount());
+        assertEquals(2,policy.getDroppedCount());
+    }
+
+    public void testDropOldest() {
+        DropOldestSyslogQueueOverflowPolicy policy = new DropOldestSyslogQueueOverflowPolicy();
+
+        List<byte[]> queued = queue(new QueueingSyslogWriter(3,policy),SyslogLevel.INFO,5);
+
+        assertEquals(3,queued.size());
+        assertEquals(3,queued.get(0)[0]);
+        assertEquals(5,queued.get(2)[0]);
+
+        assertEquals(2,policy.getOverflowCount());
+        assertEquals(2,policy.getDroppedCount());
+    }
+
+    public void testLevel() {
+        LevelSyslogQueueOverflowPolicy policy = new LevelSyslogQueueOverflowPolicy(SyslogLevel.INFO);
+
+        QueueingSyslogWriter writer = new QueueingSyslogWriter(3,policy);
+
+        for(int i=1; i<=3; i++) {
+            writer.queue(SyslogLevel.DEBUG,new byte[] { (byte) i });
+        }
+
+        writer.queue(SyslogLevel.INFO,new byte[] { 4 });
+        writer.queue(SyslogLevel.ERROR,new byte[] { 5 });
+
+        List<byte[]> queued = Lists.newArrayList();
+        writer.getQueue().drainTo(queued,Integer.MAX_VALUE);
+
+        assertEquals(3,queued.size());
+        assertEquals(2,queued.get(0)[0]);
+        assertEquals(5,queued.get(2)[0]);
+
+        assertEquals(2,policy.getDroppedCount());
+        assertEquals(1,policy.getDroppedCount(SyslogLevel.INFO));
+        assertEquals(0,policy.getDroppedCount(SyslogLevel.ERROR));
+    }
+
+    public void testLevelKeepsQueuedSevereMessages() {
+        LevelSyslogQueueOverflowPolicy policy = new LevelSyslogQueueOverflowPolicy(SyslogLevel.INFO);
+
+        QueueingSyslogWriter writer = new QueueingSyslogWriter(new LinkedListSyslogQueue(3),policy);
+
+        writer.queue(SyslogLevel.EMERGENCY,new byte[] { 1 });
+        writer.queue(SyslogLevel.DEBUG,new byte[] { 2 });
+        writer.queue(SyslogLevel.DEBUG,new byte[] { 3 });
+
+        writer.queue(SyslogLevel.WARN,new byte[] { 4 });
+        writer.queue(SyslogLevel.WARN,new byte[] { 5 });
+        writer.queue(SyslogLevel.ERROR,new byte[] { 6 });
+
+        List<byte[]> queued = Lists.newArrayList();
+        writer.getQueue().drainTo(queued,Integer.MAX_VALUE);
+
+        // the DEBUG messages are evicted, the EMERGENCY message is not
+        assertEquals(3,queued.size());
+        assertEquals(1,queued.get(0)[0]);
+        assertEquals(4,queued.get(1)[0]);
+        assertEquals(5,queued.get(2)[0]);
+
+        assertEquals(3,policy.getDroppedCount());
+        assertEquals(1,policy.getDroppedCount(SyslogLevel.ERROR));
+    }
+
+    public void testLevelKeepsOldestSevereMessage() {
+        LevelSyslogQueueOverflowPolicy policy = new LevelSyslogQueueOverflowPolicy(SyslogLevel.INFO);
+
+        QueueingSyslogWriter writer = new QueueingSyslogWriter(3,policy);
+
+        writer.queue(SyslogLevel.EMERGENCY,new byte[] { 1 });
+        writer.queue(SyslogLevel.DEBUG,new byte[] { 2 });
+        writer.queue(SyslogLevel.DEBUG,new byte[] { 3 });
+
+        writer.queue(SyslogLevel.WARN,new byte[] { 4 });
+
+        List<byte[]> queued = Lists.newArrayList();
+        writer.getQueue().drainTo(queued,Integer.MAX_VALUE);
+
+        // the ring buffer can only evict its oldest message, so the WARN message is dropped instead
+        assertEquals(3,queued.size());
+        assertEquals(1,queued.get(0)[0]);
+
+        assertEquals(1,policy.getDroppedCount());
+        assertEquals(1,policy.getDroppedCount(SyslogLevel.WARN));
+    }
+
+    public void testSummarizing() {
+        RecordingSummarizingSyslogQueueOverflowPolicy policy = new RecordingSummarizingSyslogQueueOverflowPolicy();
+
+        QueueingSyslogWriter writer = new QueueingSyslogWriter(4,policy);
+        QueueingSyslogWriter otherWriter = new QueueingSyslogWriter(8,policy);
+
+        for(int i=1; i<=6; i++) {
+            writer.queue(SyslogLevel.INFO,new byte[] { (byte) i });
+        }
+
+        for(int i=1; i<=9; i++) {
+            otherWriter.queue(SyslogLevel.INFO,new byte[] { (byte) i });
+        }
+
+        List<byte[]> drained = Lists.newArrayList();
+
+        // still overflowing
+        writer.getQueue().drainTo(drained,1);
+        policy.drained(writer);
+        assertTrue(policy.summaries.isEmpty());
+
+        writer.getQueue().drainTo(drained,1);
+        policy.drained(writer);
+        assertEquals(1,policy.summaries.size());
+        assertTrue(policy.summaries.get(0).startsWith("2 messages dropped: MaxQueueSize (4)"));
+
+        writer.getQueue().drainTo(drained,Integer.MAX_VALUE);
+        policy.drained(writer);
+        assertEquals(1,policy.summaries.size());
+
+        otherWriter.getQueue().drainTo(drained,Integer.MAX_VALUE);
+        policy.drained(otherWriter);
+        assertEquals(2,policy.summaries.size());
+        assertTrue(policy.summaries.get(1).startsWith("1 messages dropped: MaxQueueSize (8)"));
+
+        assertEquals(3,policy.getDroppedCount());
+    }
+
+    public void testBlockingWithoutWriterThread() {
+        BlockingSyslogQueueOverflowPolicy policy = new BlockingSyslogQueueOverflowPolicy(5000);
+
+        long start = System.currentTimeMillis();
+
+        List<byte[]> queued = queue(new QueueingSyslogWriter(2,policy),SyslogLevel.INFO,3);
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+
+        assertEquals(2,queued.size());
+        assertEquals(1,policy.getDroppedCount());
+    }
+}
@@ -109,4 +109,34 @@ public class SplitSyslogTest extends TestCase {
 
         syslog.flush();
     }
+
+    public void testSplitUTF8() {
+        setMessageLength(18);
+
+        SyslogIF syslog = Syslog.getInstance("split");
+        syslog.getConfig().setTruncateMessage(false);
+
+        syslog.info("For now is the\u00e9t\u00e9");
+        assertSyslog(syslog,new String[] {"For now is the...", "...\u00e9t\u00e9" });
+
+        syslog.info("For now is th\u20ac\u20ac\u20ac\u20ac");
+        assertSyslog(syslog,new String[] {"For now is th...", "...\u20ac\u20ac\u20ac\u20ac" });
+
+        syslog.flush();
+    }
+
+    public void testTruncateUTF8() {
+        setMessageLength(10);
+
+        SyslogIF syslog = Syslog.getInstance("split");
+        syslog.getConfig().setTruncateMessage(true);
+
+        syslog.info("Test 1234\u00e9");
+        syslog.info("Test 123\u00e9");
+        syslog.info("Test 12\ud83d\ude00");
+
+        assertSyslog(syslog,new String[] {"Test 1234", "Test 123\u00e9", "Test 12" } );
+
+        syslog.flush();
+    }
 }
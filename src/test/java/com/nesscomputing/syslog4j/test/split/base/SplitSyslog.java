@@ -46,6 +46,10 @@ public class SplitSyslog extends AbstractSyslog {
         this.lastMessages.add(lastMessage);
     }
 
+    public boolean isPacketSharingSupported() {
+        return true;
+    }
+
     public List<String> getLastMessages() {
         return this.lastMessages;
     }
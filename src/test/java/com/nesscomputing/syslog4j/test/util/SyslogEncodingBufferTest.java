@@ -0,0 +1,160 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.util;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.nesscomputing.syslog4j.util.Base64;
+import com.nesscomputing.syslog4j.util.SyslogEncodingBuffer;
+
+public class SyslogEncodingBufferTest extends TestCase {
+    protected static final String[] CHARSETS = { "UTF-8", "US-ASCII", "ISO-8859-1", "UTF-16", "windows-1252" };
+
+    protected static final String[] DATA = {
+        "",
+        "[TEST] plain ASCII message 123",
+        "Latin-1 \u00e9\u00e8\u00ff and Euro \u20ac",
+        "Greek \u03b1\u03b2\u03b3 CJK \u4e2d\u6587",
+        "Pair \ud83d\ude00 end",
+        "Lone high \ud83d end",
+        "Lone low \ude00 end",
+        "Trailing high \ud83d"
+    };
+
+    public void testEncodeMatchesGetBytes() {
+        for(String charSetName : CHARSETS) {
+            Charset charSet = Charset.forName(charSetName);
+
+            for(String data : DATA) {
+                SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+                try {
+                    int length = encodingBuffer.encode(charSet,data);
+
+                    byte[] expected = data.getBytes(charSet);
+
+                    assertEquals(charSetName + ": " + data,expected.length,length);
+                    assertTrue(charSetName + ": " + data,Arrays.equals(expected,encodingBuffer.toByteArray()));
+
+                } finally {
+                    encodingBuffer.release();
+                }
+            }
+        }
+    }
+
+    public void testAppendAndInsert() {
+        Charset charSet = Charset.forName("UTF-8");
+
+        SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+        try {
+            for(String data : DATA) {
+                encodingBuffer.encode(charSet,data);
+
+                assertEquals(5,encodingBuffer.append(charSet," \u00e9nd"));
+                encodingBuffer.insert(0,"begin ".getBytes(charSet));
+                encodingBuffer.append(new byte[] { '!' });
+
+                String expected = "begin " + data + " \u00e9nd!";
+
+                assertTrue(data,Arrays.equals(expected.getBytes(charSet),encodingBuffer.toByteArray()));
+                assertEquals(new String(expected.getBytes(charSet),charSet),encodingBuffer.toString(charSet));
+            }
+
+        } finally {
+            encodingBuffer.release();
+        }
+    }
+
+    public void testAppendBase64() {
+        byte[] data = new byte[64];
+
+        for(int i=0; i<data.length; i++) {
+            data[i] = (byte) (i * 37);
+        }
+
+        //  UTF-16 is left out, as each append of a String would start with a byte order mark
+        for(String charSetName : new String[] { "UTF-8", "US-ASCII", "ISO-8859-1", "windows-1252", "UTF-16BE" }) {
+            Charset charSet = Charset.forName(charSetName);
+
+            SyslogEncodingBuffer encodingBuffer = SyslogEncodingBuffer.acquire();
+
+            try {
+                for(int length=0; length<data.length; length++) {
+                    String expected = "digest " + Base64.encodeBytes(data,1,length,Base64.DONT_BREAK_LINES);
+
+                    encodingBuffer.encode(charSet,"digest ");
+                    encodingBuffer.appendBase64(charSet,data,1,length);
+
+                    assertTrue(charSetName + ": " + length,Arrays.equals(expected.getBytes(charSet),encodingBuffer.toByteArray()));
+                }
+
+            } finally {
+                encodingBuffer.release();
+            }
+        }
+    }
+
+    public void testGrowAndNestedAcquire() {
+        StringBuilder builder = new StringBuilder();
+
+        for(int i=0; i<10000; i++) {
+            builder.append("\u00e9x");
+        }
+
+        String data = builder.toString();
+
+        SyslogEncodingBuffer outer = SyslogEncodingBuffer.acquire();
+
+        try {
+            outer.encode(Charset.forName("UTF-8"),data);
+
+            SyslogEncodingBuffer inner = SyslogEncodingBuffer.acquire();
+
+            try {
+                assertNotSame(outer,inner);
+
+                inner.encode(Charset.forName("US-ASCII"),"inner");
+                assertEquals("inner",new String(inner.toByteArray(),"US-ASCII"));
+
+            } finally {
+                inner.release();
+            }
+
+            assertTrue(Arrays.equals(data.getBytes("UTF-8"),outer.toByteArray()));
+
+        } catch (UnsupportedEncodingException uee) {
+            fail(uee.getMessage());
+
+        } finally {
+            outer.release();
+        }
+
+        SyslogEncodingBuffer again = SyslogEncodingBuffer.acquire();
+
+        try {
+            assertSame(outer,again);
+            assertEquals(0,again.getLength());
+
+        } finally {
+            again.release();
+        }
+    }
+}
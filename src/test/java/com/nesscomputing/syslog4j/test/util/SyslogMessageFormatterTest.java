@@ -0,0 +1,74 @@
+/**
+ *
+ * (C) Copyright 2008-2011 syslog4j.org
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package com.nesscomputing.syslog4j.test.util;
+
+import junit.framework.TestCase;
+
+import com.nesscomputing.syslog4j.util.SyslogMessageFormatter;
+
+public class SyslogMessageFormatterTest extends TestCase {
+    public void testFormat() {
+        assertEquals("a 1 b two c",SyslogMessageFormatter.format("a {} b {} c",1,"two"));
+        assertEquals("1 and {}",SyslogMessageFormatter.format("{} and {}",1));
+        assertEquals("only 1",SyslogMessageFormatter.format("only {}",1,2));
+        assertEquals("null",SyslogMessageFormatter.format("{}",(Object) null));
+        assertEquals("[1, 2] [a, [b]]",SyslogMessageFormatter.format("{} {}",new int[] { 1, 2 },new Object[] { "a", new String[] { "b" } }));
+        assertEquals("no placeholder",SyslogMessageFormatter.format("no placeholder",1));
+        assertEquals("{} unchanged",SyslogMessageFormatter.format("{} unchanged"));
+        assertNull(SyslogMessageFormatter.format(null,1));
+    }
+
+    public void testNested() {
+        Object nested = new Object() {
+            @Override
+            public String toString() {
+                return SyslogMessageFormatter.format("inner {}",1);
+            }
+        };
+
+        assertEquals("outer inner 1 done",SyslogMessageFormatter.format("outer {} {}",nested,"done"));
+        assertEquals("after 2",SyslogMessageFormatter.format("after {}",2));
+    }
+
+    public void testFailedArgument() {
+        Object failing = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException();
+            }
+        };
+
+        try {
+            SyslogMessageFormatter.format("{}",failing);
+            fail();
+
+        } catch (IllegalStateException ise) {
+            //
+        }
+
+        assertEquals("after 3",SyslogMessageFormatter.format("after {}",3));
+    }
+
+    public void testLargeMessage() {
+        StringBuilder large = new StringBuilder();
+
+        for(int i=0; i<SyslogMessageFormatter.MAX_RETAINED_SIZE; i++) {
+            large.append('x');
+        }
+
+        assertEquals(large.toString() + "!",SyslogMessageFormatter.format("{}!",large));
+        assertEquals("small",SyslogMessageFormatter.format("{}","small"));
+    }
+}